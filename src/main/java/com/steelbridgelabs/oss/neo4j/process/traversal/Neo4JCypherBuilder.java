@@ -0,0 +1,569 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.util.AndP;
+import org.apache.tinkerpop.gremlin.process.traversal.util.ConnectiveP;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the Cypher statement used to find vertices or edges satisfying a set of {@link HasContainer} instances, the
+ * graph {@link Neo4JReadPartition} is always applied. Containers that cannot be translated into Cypher are not part
+ * of the generated statement (they must be evaluated in memory), see {@link #isExact()}.
+ * <p>
+ * Vertices are matched as <code>(n)</code>, edges are matched as <code>(n)-[r]-&gt;(m)</code>. Builders created with a
+ * vertex alias and a shared parameter map generate the patterns and predicates of the vertices in a multi-hop path (see
+ * {@link #pattern()} and {@link #predicates()}).
+ * </p>
+ * <p>
+ * Vertex properties with {@link org.apache.tinkerpop.gremlin.structure.VertexProperty.Cardinality#list} cardinality
+ * are stored as lists, a vertex satisfies a property predicate if any of its values satisfies it. Vertex property
+ * predicates are generated as <code>ANY(item IN [] + n.key WHERE predicate)</code> (a single value is appended to the
+ * empty list, a list is concatenated to it), this keeps the Gremlin semantics for both cardinalities but the predicate
+ * cannot be resolved with a property index.
+ * </p>
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JCypherBuilder {
+
+    public static final String VertexAlias = "n";
+    public static final String EdgeAlias = "r";
+    public static final String InVertexAlias = "m";
+
+    private static final String GraphLabelsParameterName = "graphLabels";
+    private static final String ListItemAlias = "item";
+
+    private final Neo4JReadPartition partition;
+    private final boolean vertices;
+    private final Neo4JElementIdProvider<?> idProvider;
+    private final String idFieldName;
+    private final String vertexAlias;
+    private final List<String> graphLabels;
+    private final List<String> predicates = new ArrayList<>();
+    private final Map<String, Object> parameters;
+    private final List<String> orders = new ArrayList<>();
+
+    private Set<String> vertexLabels = null;
+    private Set<String> relationshipTypes = null;
+    private boolean exact = true;
+
+    /**
+     * Creates a {@link Neo4JCypherBuilder} instance.
+     *
+     * @param graph        The {@link Neo4JGraph} instance.
+     * @param elementClass The element class ({@link Vertex} or {@link org.apache.tinkerpop.gremlin.structure.Edge}).
+     */
+    public Neo4JCypherBuilder(Neo4JGraph graph, Class<? extends Element> elementClass) {
+        this(graph, elementClass, VertexAlias, new HashMap<>());
+    }
+
+    /**
+     * Creates a {@link Neo4JCypherBuilder} instance for the vertices bound to the given alias.
+     *
+     * @param graph      The {@link Neo4JGraph} instance.
+     * @param alias      The vertex alias.
+     * @param parameters The statement parameters (shared with the other builders in the statement).
+     */
+    public Neo4JCypherBuilder(Neo4JGraph graph, String alias, Map<String, Object> parameters) {
+        this(graph, Vertex.class, alias, parameters);
+        Objects.requireNonNull(alias, "alias cannot be null");
+        Objects.requireNonNull(parameters, "parameters cannot be null");
+    }
+
+    private Neo4JCypherBuilder(Neo4JGraph graph, Class<? extends Element> elementClass, String alias, Map<String, Object> parameters) {
+        Objects.requireNonNull(graph, "graph cannot be null");
+        Objects.requireNonNull(elementClass, "elementClass cannot be null");
+        // store fields
+        this.partition = graph.getPartition();
+        this.vertices = Vertex.class.isAssignableFrom(elementClass);
+        this.idProvider = vertices ? graph.getVertexIdProvider() : graph.getEdgeIdProvider();
+        this.idFieldName = idProvider.idFieldName();
+        this.vertexAlias = alias;
+        this.parameters = parameters;
+        // labels managed by graph (not exposed in vertex label)
+        this.graphLabels = graph.vertexLabels().stream().filter(label -> !partition.validateLabel(label)).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Translates the given {@link HasContainer} into a Cypher predicate.
+     *
+     * @param hasContainer The {@link HasContainer} to translate.
+     * @return <code>true</code> if the container was translated, <code>false</code> if it must be evaluated in memory.
+     */
+    public boolean addHasContainer(HasContainer hasContainer) {
+        Objects.requireNonNull(hasContainer, "hasContainer cannot be null");
+        // translate container
+        String predicate = predicate(hasContainer);
+        if (predicate == null) {
+            // container must be evaluated in memory
+            exact = false;
+            return false;
+        }
+        // append predicate (empty predicates are part of the MATCH pattern)
+        if (!predicate.isEmpty())
+            predicates.add(predicate);
+        return true;
+    }
+
+    /**
+     * Checks all {@link HasContainer} instances have been translated into Cypher.
+     *
+     * @return <code>true</code> if the statement returns exactly the elements satisfying all containers.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Gets the alias of the element in the generated statement.
+     *
+     * @return The element alias.
+     */
+    public String alias() {
+        return vertices ? vertexAlias : EdgeAlias;
+    }
+
+    /**
+     * Gets the Cypher expression used to access a property in the element.
+     *
+     * @param key The property name.
+     * @return The Cypher expression, <code>null</code> if the property name cannot be used in a Cypher statement.
+     */
+    public String property(String key) {
+        Objects.requireNonNull(key, "key cannot be null");
+        // check key
+        if (key.contains("`"))
+            return null;
+        // identifier
+        if (T.id.getAccessor().equals(key))
+            return alias() + "." + idFieldName;
+        // other tokens, identifier field is not exposed as an element property
+        if (key.startsWith("~") || idFieldName.equals(key))
+            return null;
+        // property
+        return alias() + ".`" + key + "`";
+    }
+
+    /**
+     * Gets the statement parameters, callers can add parameters used in the RETURN clause.
+     *
+     * @return The statement parameters.
+     */
+    public Map<String, Object> parameters() {
+        return parameters;
+    }
+
+    /**
+     * Adds a parameter to the statement.
+     *
+     * @param value The parameter value.
+     * @return The parameter name.
+     */
+    public String parameter(Object value) {
+        // parameter name
+        String name = "p" + parameters.size();
+        // store value
+        parameters.put(name, value);
+        // return name
+        return name;
+    }
+
+    /**
+     * Generates the MATCH and WHERE clauses of the statement.
+     *
+     * @return The MATCH and WHERE clauses.
+     */
+    public String match() {
+        // predicates
+        List<String> list = new ArrayList<>();
+        // partition predicates
+        String outVertexPredicate = partition.vertexMatchPredicate(vertexAlias);
+        String inVertexPredicate = vertices ? null : partition.vertexMatchPredicate(InVertexAlias);
+        // check vertex predicate
+        if (outVertexPredicate != null && (vertices || inVertexPredicate != null)) {
+            // append vertex predicates
+            list.add(outVertexPredicate);
+            if (inVertexPredicate != null)
+                list.add(inVertexPredicate);
+        }
+        // element predicates
+        list.addAll(predicates);
+        // MATCH pattern
+        String pattern = vertices ? vertexPattern(vertexAlias) : vertexPattern(VertexAlias) + "-[" + EdgeAlias + (relationshipTypes != null ? ":" + relationshipTypes.stream().map(type -> "`" + type + "`").collect(Collectors.joining("|")) : "") + "]->" + vertexPattern(InVertexAlias);
+        // MATCH & WHERE clauses
+        return "MATCH " + pattern + (!list.isEmpty() ? " WHERE " + list.stream().collect(Collectors.joining(" AND ")) : "");
+    }
+
+    /**
+     * Generates the MATCH and WHERE clauses of the relationships of a vertex bound to the {@link #VertexAlias} alias by
+     * a previous MATCH clause (edge builders), the relationship is bound to {@link #EdgeAlias} and the adjacent vertex
+     * to {@link #InVertexAlias}.
+     *
+     * @param direction The relationship direction.
+     * @param types     The relationship types, empty for all types.
+     * @return The MATCH and WHERE clauses, <code>null</code> if a type cannot be used in a Cypher statement.
+     */
+    public String adjacency(Direction direction, String... types) {
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(types, "types cannot be null");
+        // check types
+        if (Arrays.stream(types).anyMatch(type -> type.isEmpty() || type.contains("`")))
+            return null;
+        // predicates
+        List<String> list = new ArrayList<>();
+        // partition predicate (adjacent vertex)
+        String predicate = partition.vertexMatchPredicate(InVertexAlias);
+        if (predicate != null)
+            list.add(predicate);
+        // types in pattern (types in has() containers are evaluated as a predicate)
+        Collection<String> pattern = types.length > 0 ? new LinkedHashSet<>(Arrays.asList(types)) : relationshipTypes;
+        if (types.length > 0 && relationshipTypes != null)
+            list.add("type(" + EdgeAlias + ") IN {" + parameter(new ArrayList<>(relationshipTypes)) + "}");
+        // edge predicates
+        list.addAll(predicates);
+        // relationship pattern
+        String relationship = "[" + EdgeAlias + (pattern != null ? ":" + pattern.stream().map(type -> "`" + type + "`").collect(Collectors.joining("|")) : "") + "]";
+        // MATCH & WHERE clauses
+        return " MATCH (" + VertexAlias + ")" + (direction == Direction.IN ? "<-" : "-") + relationship + (direction == Direction.OUT ? "->" : "-") + vertexPattern(InVertexAlias) + (!list.isEmpty() ? " WHERE " + list.stream().collect(Collectors.joining(" AND ")) : "");
+    }
+
+    /**
+     * Generates the MATCH pattern of the vertex, including the partition labels and the vertex labels used in the
+     * {@link HasContainer} instances.
+     *
+     * @return The vertex pattern, <code>(alias:Label)</code>.
+     */
+    public String pattern() {
+        return vertexPattern(vertexAlias);
+    }
+
+    /**
+     * Generates the WHERE predicates of the vertex (partition and {@link HasContainer} predicates).
+     *
+     * @return The list of predicates, empty if the vertex is matched by its pattern.
+     */
+    public List<String> predicates() {
+        // predicates
+        List<String> list = new ArrayList<>();
+        // partition predicate
+        String predicate = partition.vertexMatchPredicate(vertexAlias);
+        if (predicate != null)
+            list.add(predicate);
+        // vertex predicates
+        list.addAll(predicates);
+        return list;
+    }
+
+    /**
+     * Gets the RETURN clause expressions required to load elements.
+     *
+     * @return The RETURN expressions.
+     */
+    public String elements() {
+        return vertices ? vertexAlias : VertexAlias + ", " + EdgeAlias + ", " + InVertexAlias;
+    }
+
+    /**
+     * Appends a sort expression to the ORDER BY clause.
+     *
+     * @param key        The property name.
+     * @param descending <code>true</code> for descending order.
+     * @return <code>true</code> if the property can be used in the ORDER BY clause.
+     */
+    public boolean addOrder(String key, boolean descending) {
+        Objects.requireNonNull(key, "key cannot be null");
+        // property expression
+        String expression = property(key);
+        if (expression == null)
+            return false;
+        // append expression
+        orders.add(descending ? expression + " DESC" : expression);
+        return true;
+    }
+
+    /**
+     * Generates the ORDER BY clause.
+     *
+     * @return The ORDER BY clause, empty if no sort expressions have been added.
+     */
+    public String orderBy() {
+        return !orders.isEmpty() ? " ORDER BY " + orders.stream().collect(Collectors.joining(", ")) : "";
+    }
+
+    /**
+     * Generates the SKIP and LIMIT clauses for the given range.
+     *
+     * @param low  The number of elements to skip.
+     * @param high The index of the last element in range (exclusive), <code>-1</code> for no limit.
+     * @return The SKIP and LIMIT clauses.
+     */
+    public String range(long low, long high) {
+        // SKIP clause
+        String skip = low > 0 ? " SKIP {" + parameter(low) + "}" : "";
+        // LIMIT clause
+        return high >= 0 ? skip + " LIMIT {" + parameter(Math.max(0, high - low)) + "}" : skip;
+    }
+
+    /**
+     * Creates the {@link Statement} with the given RETURN clause.
+     *
+     * @param returnClause The RETURN clause expressions.
+     * @return The {@link Statement} instance.
+     */
+    public Statement statement(String returnClause) {
+        Objects.requireNonNull(returnClause, "returnClause cannot be null");
+        // create statement
+        return new Statement(match() + " RETURN " + returnClause, parameters);
+    }
+
+    private String vertexPattern(String alias) {
+        // partition labels in pattern
+        Set<String> labels = new LinkedHashSet<>(partition.vertexMatchPatternLabels());
+        // append vertex labels
+        if (vertices && vertexLabels != null)
+            labels.addAll(vertexLabels);
+        // pattern
+        return "(" + alias + labels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("")) + ")";
+    }
+
+    private String predicate(HasContainer hasContainer) {
+        // container key
+        String key = hasContainer.getKey();
+        // check label
+        if (T.label.getAccessor().equals(key))
+            return vertices ? vertexLabelPredicate(hasContainer.getPredicate()) : edgeLabelPredicate(hasContainer.getPredicate());
+        // property expression
+        String expression = property(key);
+        if (expression == null)
+            return null;
+        // check identifier (values must be processed by provider)
+        if (T.id.getAccessor().equals(key))
+            return predicate(expression, hasContainer.getPredicate(), this::identifier);
+        // check edge property predicate (edge properties have a single value)
+        if (!vertices)
+            return predicate(expression, hasContainer.getPredicate(), Function.identity());
+        // vertex property predicate, any value in a list property must satisfy predicate
+        String predicate = predicate(ListItemAlias, hasContainer.getPredicate(), Function.identity());
+        return predicate != null ? "ANY(" + ListItemAlias + " IN [] + " + expression + " WHERE " + predicate + ")" : null;
+    }
+
+    private String predicate(String expression, P<?> predicate, Function<Object, Object> converter) {
+        // check connective predicate (and, or)
+        if (predicate instanceof ConnectiveP) {
+            // translate predicates
+            List<String> list = new ArrayList<>();
+            for (P<?> item : ((ConnectiveP<?>)predicate).getPredicates()) {
+                // translate item
+                String value = predicate(expression, item, converter);
+                if (value == null)
+                    return null;
+                // append predicate
+                list.add(value);
+            }
+            // join predicates
+            return "(" + list.stream().collect(Collectors.joining(predicate instanceof AndP ? " AND " : " OR ")) + ")";
+        }
+        // bi-predicate
+        BiPredicate<?, ?> biPredicate = predicate.getBiPredicate();
+        // check comparison
+        if (biPredicate instanceof Compare) {
+            // convert value
+            Object value = convert(predicate.getValue(), converter);
+            if (value == null)
+                return null;
+            // generate predicate
+            return expression + " " + operator((Compare)biPredicate) + " {" + parameter(value) + "}";
+        }
+        // check contains
+        if (biPredicate instanceof Contains) {
+            // check value is a collection
+            if (!(predicate.getValue() instanceof Collection))
+                return null;
+            // convert values
+            List<Object> values = new ArrayList<>();
+            for (Object item : (Collection<?>)predicate.getValue()) {
+                // convert item
+                Object value = convert(item, converter);
+                if (value == null)
+                    return null;
+                // append value
+                values.add(value);
+            }
+            // generate predicate
+            return (biPredicate == Contains.within ? "" : "NOT ") + expression + " IN {" + parameter(values) + "}";
+        }
+        // check string predicate
+        if (biPredicate instanceof Neo4JTextPredicate && predicate.getValue() instanceof String)
+            return expression + " " + ((Neo4JTextPredicate)biPredicate).operator() + " {" + parameter(predicate.getValue()) + "}";
+        // not supported
+        return null;
+    }
+
+    private String vertexLabelPredicate(P<?> predicate) {
+        // check equality
+        if (predicate.getBiPredicate() == Compare.eq && predicate.getValue() instanceof String)
+            return vertexLabelPredicate((String)predicate.getValue(), vertexLabels == null);
+        // check within
+        if (predicate.getBiPredicate() == Contains.within && predicate.getValue() instanceof Collection) {
+            // translate labels
+            List<String> list = new ArrayList<>();
+            for (Object item : (Collection<?>)predicate.getValue()) {
+                // translate label
+                String value = item instanceof String ? vertexLabelPredicate((String)item, false) : null;
+                if (value == null)
+                    return null;
+                // append predicate
+                list.add(value);
+            }
+            // no labels, nothing should match
+            if (list.isEmpty())
+                return "false";
+            // join predicates
+            return "(" + list.stream().collect(Collectors.joining(" OR ")) + ")";
+        }
+        // not supported
+        return null;
+    }
+
+    private String vertexLabelPredicate(String label, boolean pattern) {
+        // vertex labels
+        String[] labels = label.split(Neo4JVertex.LabelDelimiter);
+        // check labels
+        if (Arrays.stream(labels).anyMatch(item -> item.isEmpty() || item.contains("`")))
+            return null;
+        // number of labels in vertex (vertex label must match all labels not managed by graph)
+        String count;
+        if (!graphLabels.isEmpty()) {
+            // exclude graph labels
+            parameters.put(GraphLabelsParameterName, graphLabels);
+            // expression
+            count = "size([l IN labels(" + vertexAlias + ") WHERE NOT l IN {" + GraphLabelsParameterName + "}])";
+        }
+        else
+            count = "size(labels(" + vertexAlias + "))";
+        // use MATCH pattern if possible (label scan)
+        if (pattern) {
+            // labels in pattern
+            vertexLabels = new LinkedHashSet<>(Arrays.asList(labels));
+            // generate predicate
+            return count + " = " + labels.length;
+        }
+        // generate predicate
+        return "(" + Arrays.stream(labels).map(item -> vertexAlias + ":`" + item + "`").collect(Collectors.joining(" AND ")) + " AND " + count + " = " + labels.length + ")";
+    }
+
+    private String edgeLabelPredicate(P<?> predicate) {
+        // relationship types
+        Set<String> types = new LinkedHashSet<>();
+        // check equality
+        if (predicate.getBiPredicate() == Compare.eq && predicate.getValue() instanceof String)
+            types.add((String)predicate.getValue());
+        else if (predicate.getBiPredicate() == Contains.within && predicate.getValue() instanceof Collection) {
+            // process types
+            for (Object item : (Collection<?>)predicate.getValue()) {
+                // check type
+                if (!(item instanceof String))
+                    return null;
+                // append type
+                types.add((String)item);
+            }
+        }
+        else
+            return null;
+        // check types
+        if (types.stream().anyMatch(type -> type.isEmpty() || type.contains("`")))
+            return null;
+        // no types, nothing should match
+        if (types.isEmpty())
+            return "false";
+        // use MATCH pattern if possible
+        if (relationshipTypes == null) {
+            // types in pattern
+            relationshipTypes = types;
+            return "";
+        }
+        // generate predicate
+        return "type(" + EdgeAlias + ") IN {" + parameter(new ArrayList<>(types)) + "}";
+    }
+
+    private Object identifier(Object id) {
+        try {
+            // process identifier
+            return idProvider.processIdentifier(id);
+        }
+        catch (RuntimeException ex) {
+            // identifier cannot be used in statement
+            return null;
+        }
+    }
+
+    private static Object convert(Object value, Function<Object, Object> converter) {
+        // check value
+        if (value == null)
+            return null;
+        // convert value
+        Object result = converter.apply(value);
+        // check value can be sent to server
+        return result instanceof String || result instanceof Boolean || result instanceof Long || result instanceof Integer || result instanceof Short || result instanceof Byte || result instanceof Double || result instanceof Float ? result : null;
+    }
+
+    private static String operator(Compare compare) {
+        // comparison operator
+        switch (compare) {
+            case eq:
+                return "=";
+            case neq:
+                return "<>";
+            case gt:
+                return ">";
+            case gte:
+                return ">=";
+            case lt:
+                return "<";
+            default:
+                return "<=";
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal;
+
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+/**
+ * String predicates that can be compiled into Cypher string operators, example:
+ * <p>
+ * g.V().has("name", Neo4JTextPredicate.startingWith("Jo"))
+ * </p>
+ *
+ * @author Rogelio J. Baucells
+ */
+public enum Neo4JTextPredicate implements BiPredicate<Object, Object> {
+
+    /**
+     * Cypher <code>STARTS WITH</code> operator.
+     */
+    StartingWith("STARTS WITH") {
+        @Override
+        public boolean test(Object value, Object text) {
+            return value instanceof String && text instanceof String && ((String)value).startsWith((String)text);
+        }
+    },
+    /**
+     * Cypher <code>ENDS WITH</code> operator.
+     */
+    EndingWith("ENDS WITH") {
+        @Override
+        public boolean test(Object value, Object text) {
+            return value instanceof String && text instanceof String && ((String)value).endsWith((String)text);
+        }
+    },
+    /**
+     * Cypher <code>CONTAINS</code> operator.
+     */
+    Containing("CONTAINS") {
+        @Override
+        public boolean test(Object value, Object text) {
+            return value instanceof String && text instanceof String && ((String)value).contains((String)text);
+        }
+    };
+
+    private final String operator;
+
+    Neo4JTextPredicate(String operator) {
+        this.operator = operator;
+    }
+
+    /**
+     * Gets the Cypher operator.
+     *
+     * @return The Cypher operator.
+     */
+    public String operator() {
+        return operator;
+    }
+
+    /**
+     * Creates a {@link P} testing a string property starts with the given text.
+     *
+     * @param text The text.
+     * @return The {@link P} instance.
+     */
+    @SuppressWarnings("unchecked")
+    public static P<String> startingWith(String text) {
+        Objects.requireNonNull(text, "text cannot be null");
+        // create predicate
+        return new P(StartingWith, text);
+    }
+
+    /**
+     * Creates a {@link P} testing a string property ends with the given text.
+     *
+     * @param text The text.
+     * @return The {@link P} instance.
+     */
+    @SuppressWarnings("unchecked")
+    public static P<String> endingWith(String text) {
+        Objects.requireNonNull(text, "text cannot be null");
+        // create predicate
+        return new P(EndingWith, text);
+    }
+
+    /**
+     * Creates a {@link P} testing a string property contains the given text.
+     *
+     * @param text The text.
+     * @return The {@link P} instance.
+     */
+    @SuppressWarnings("unchecked")
+    public static P<String> containing(String text) {
+        Objects.requireNonNull(text, "text cannot be null");
+        // create predicate
+        return new P(Containing, text);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Step collecting up to {@link Neo4JGraph#getExpansionBatchSize()} traversers and loading the edges of their vertices
+ * in the direction and labels of the following adjacency step with a single statement (see
+ * {@link Neo4JGraph#loadEdges(java.util.Collection, Direction, String...)}), the adjacency step finds the edges in
+ * memory. Traversers are emitted unchanged in the order they were received, traversers are not collected if the
+ * batch size is zero or less.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JAdjacencyBatchStep extends AbstractStep<Vertex, Vertex> {
+
+    private final Direction direction;
+    private final String[] labels;
+    private Deque<Traverser.Admin<Vertex>> batch = new ArrayDeque<>();
+
+    /**
+     * Creates a {@link Neo4JAdjacencyBatchStep} instance.
+     *
+     * @param traversal The {@link Traversal} instance.
+     * @param direction The edge direction.
+     * @param labels    The edge labels, empty for all labels.
+     */
+    public Neo4JAdjacencyBatchStep(Traversal.Admin traversal, Direction direction, String... labels) {
+        super(traversal);
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // store fields
+        this.direction = direction;
+        this.labels = labels;
+    }
+
+    /**
+     * Gets the direction of the edges loaded by the step.
+     *
+     * @return The edge direction.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Gets the labels of the edges loaded by the step.
+     *
+     * @return The edge labels, empty for all labels.
+     */
+    public String[] getEdgeLabels() {
+        return labels;
+    }
+
+    @Override
+    protected Traverser.Admin<Vertex> processNextStart() {
+        // check batch has been consumed
+        if (batch.isEmpty()) {
+            // graph instance
+            Neo4JGraph graph = (Neo4JGraph)this.getTraversal().getGraph().get();
+            // batch size
+            int size = graph.getExpansionBatchSize();
+            if (size <= 0)
+                return this.starts.next();
+            // collect traversers
+            while (batch.size() < size && this.starts.hasNext())
+                batch.add(this.starts.next());
+            // check we have traversers
+            if (batch.isEmpty())
+                throw FastNoSuchElementException.instance();
+            // load edges of all vertices in batch
+            graph.loadEdges(batch.stream().map(Traverser::get).collect(Collectors.toList()), direction, labels);
+        }
+        // next traverser in batch
+        return batch.poll();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        // discard traversers (the deque is replaced, a clone is reset before it gets its own deque)
+        batch = new ArrayDeque<>();
+    }
+
+    @Override
+    public Neo4JAdjacencyBatchStep clone() {
+        Neo4JAdjacencyBatchStep clone = (Neo4JAdjacencyBatchStep)super.clone();
+        // clone must not share the traversers collected by this step
+        clone.batch = new ArrayDeque<>();
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, direction, Arrays.asList(labels));
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ direction.hashCode() ^ Arrays.hashCode(labels);
+    }
+}
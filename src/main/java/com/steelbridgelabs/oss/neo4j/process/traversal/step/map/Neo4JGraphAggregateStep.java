@@ -0,0 +1,220 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.Neo4JCypherBuilder;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.neo4j.driver.v1.Record;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Start step replacing a {@link Neo4JGraphStep} followed by reducing steps that can be computed with a Cypher
+ * aggregation function:
+ * <ul>
+ * <li><code>groupCount().by(key)</code> and <code>group().by(key).by(count())</code>: <code>RETURN n.key, count(*)</code></li>
+ * <li><code>values(key).sum()</code>, <code>min()</code>, <code>max()</code> and <code>mean()</code>: <code>RETURN sum(n.key)</code></li>
+ * </ul>
+ * The aggregation is computed by the database when the {@link Neo4JGraphStep} has been compiled into Cypher (see
+ * {@link Neo4JGraphStep#isCompiled(Neo4JGraph, Neo4JCypherBuilder)}), otherwise the elements are processed in memory by
+ * the original reducing steps. The original steps also produce the result for cases where Cypher and Gremlin semantics
+ * differ (elements without the grouping property, aggregations without values), the original steps are a local child
+ * of this step.
+ *
+ * @param <S> The step start type.
+ * @param <E> The aggregation type.
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JGraphAggregateStep<S, E> extends AbstractStep<S, E> implements TraversalParent {
+
+    private Neo4JGraphStep<S, ? extends Element> graphStep;
+    private Traversal.Admin<Element, E> reducer;
+    private final String groupKey;
+    private final String function;
+    private final String valueKey;
+
+    private boolean done = false;
+
+    /**
+     * Creates a {@link Neo4JGraphAggregateStep} instance.
+     *
+     * @param traversal The {@link Traversal} instance.
+     * @param graphStep The {@link Neo4JGraphStep} with the elements to aggregate.
+     * @param reducer   The {@link Traversal} with the original reducing steps (used if the aggregation cannot be computed in the database).
+     * @param groupKey  The property used to group elements, <code>null</code> if elements are not grouped.
+     * @param function  The Cypher aggregation function (count, sum, min, max, avg).
+     * @param valueKey  The property being aggregated, <code>null</code> to count elements.
+     */
+    public Neo4JGraphAggregateStep(Traversal.Admin traversal, Neo4JGraphStep<S, ? extends Element> graphStep, Traversal.Admin<Element, E> reducer, String groupKey, String function, String valueKey) {
+        super(traversal);
+        Objects.requireNonNull(graphStep, "graphStep cannot be null");
+        Objects.requireNonNull(reducer, "reducer cannot be null");
+        Objects.requireNonNull(function, "function cannot be null");
+        // store fields
+        this.graphStep = graphStep;
+        this.reducer = this.integrateChild(reducer);
+        this.groupKey = groupKey;
+        this.function = function;
+        this.valueKey = valueKey;
+    }
+
+    /**
+     * Gets the {@link Neo4JGraphStep} with the elements to aggregate.
+     *
+     * @return The {@link Neo4JGraphStep} instance.
+     */
+    public Neo4JGraphStep<S, ? extends Element> getGraphStep() {
+        return graphStep;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Traversal.Admin<Element, E>> getLocalChildren() {
+        return Collections.singletonList(reducer);
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return this.getSelfAndChildRequirements();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Traverser.Admin<E> processNextStart() {
+        // check aggregation has been generated
+        if (done)
+            throw FastNoSuchElementException.instance();
+        // aggregation is generated once
+        done = true;
+        // generate traverser
+        return this.getTraversal().getTraverserGenerator().generate(aggregate(), (Step)this, 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E aggregate() {
+        // graph instance
+        Neo4JGraph graph = (Neo4JGraph)this.getTraversal().getGraph().get();
+        // builder
+        Neo4JCypherBuilder builder = graphStep.builder(graph);
+        // check aggregation can be computed in database
+        if (graphStep.isCompiled(graph, builder)) {
+            // check property names can be used in statement
+            String groupExpression = groupKey != null ? builder.property(groupKey) : null;
+            String valueExpression = valueKey != null ? builder.property(valueKey) : "*";
+            if ((groupKey == null || groupExpression != null) && valueExpression != null) {
+                // aggregation expression
+                String aggregation = function + "(" + valueExpression + ")";
+                // execute statement (result is discarded by the transaction if the step is not completed)
+                try (Stream<Record> records = graph.records(graphStep.aggregate(builder, groupExpression != null ? groupExpression + ", " + aggregation : aggregation))) {
+                    // records
+                    Iterator<Record> iterator = records.iterator();
+                    // check elements are grouped
+                    if (groupExpression != null) {
+                        // groups
+                        Map<Object, Object> groups = new HashMap<>();
+                        while (iterator.hasNext()) {
+                            // current record
+                            Record record = iterator.next();
+                            // group key
+                            Object key = record.get(0).asObject();
+                            if (key == null) {
+                                // elements without grouping property, use reducing steps
+                                return reduce(graphStep.elements());
+                            }
+                            // store group
+                            groups.put(key, record.get(1).asObject());
+                        }
+                        return (E)groups;
+                    }
+                    // aggregated value (aggregation without grouping returns a single record)
+                    Object value = iterator.hasNext() ? iterator.next().get(0).asObject() : null;
+                    // check there were values to aggregate (seed value is provided by reducing steps)
+                    return value != null ? (E)value : reduce(Collections.emptyIterator());
+                }
+            }
+        }
+        // aggregate elements in memory
+        return reduce(graphStep.elements());
+    }
+
+    @SuppressWarnings("unchecked")
+    private E reduce(Iterator<? extends Element> elements) {
+        // reset reducing steps
+        reducer.reset();
+        // start step
+        Step<Element, ?> step = reducer.getStartStep();
+        // process elements
+        elements.forEachRemaining(element -> step.addStart(reducer.getTraverserGenerator().generate(element, (Step)step, 1L)));
+        // reduce elements
+        return reducer.next();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        // aggregation must be generated again
+        done = false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setTraversal(Traversal.Admin<?, ?> parentTraversal) {
+        super.setTraversal(parentTraversal);
+        // graph step and child are evaluated in the new parent traversal
+        graphStep.setTraversal((Traversal.Admin)parentTraversal);
+        this.integrateChild(reducer);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Neo4JGraphAggregateStep<S, E> clone() {
+        Neo4JGraphAggregateStep<S, E> clone = (Neo4JGraphAggregateStep<S, E>)super.clone();
+        // clone must not share the graph step nor the reducing steps
+        clone.graphStep = (Neo4JGraphStep<S, ? extends Element>)graphStep.clone();
+        clone.reducer = reducer.clone();
+        clone.integrateChild(clone.reducer);
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, graphStep, reducer);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ graphStep.hashCode() ^ reducer.hashCode();
+    }
+}
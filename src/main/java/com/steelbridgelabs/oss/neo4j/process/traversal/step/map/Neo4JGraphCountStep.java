@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.Neo4JCypherBuilder;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Start step replacing a {@link Neo4JGraphStep} followed by a <code>count()</code> step. The number of elements is
+ * computed by the database (<code>RETURN count(n)</code>) when the {@link Neo4JGraphStep} has been compiled into
+ * Cypher (see {@link Neo4JGraphStep#isCompiled(Neo4JGraph, Neo4JCypherBuilder)}), otherwise elements are counted in
+ * memory.
+ *
+ * @param <S> The step start type.
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JGraphCountStep<S> extends AbstractStep<S, Long> {
+
+    private Neo4JGraphStep<S, ? extends Element> graphStep;
+
+    private boolean done = false;
+
+    /**
+     * Creates a {@link Neo4JGraphCountStep} instance.
+     *
+     * @param traversal The {@link Traversal} instance.
+     * @param graphStep The {@link Neo4JGraphStep} with the elements to count.
+     */
+    public Neo4JGraphCountStep(Traversal.Admin traversal, Neo4JGraphStep<S, ? extends Element> graphStep) {
+        super(traversal);
+        Objects.requireNonNull(graphStep, "graphStep cannot be null");
+        // store fields
+        this.graphStep = graphStep;
+    }
+
+    /**
+     * Gets the {@link Neo4JGraphStep} with the elements to count.
+     *
+     * @return The {@link Neo4JGraphStep} instance.
+     */
+    public Neo4JGraphStep<S, ? extends Element> getGraphStep() {
+        return graphStep;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Traverser.Admin<Long> processNextStart() {
+        // check count has been generated
+        if (done)
+            throw FastNoSuchElementException.instance();
+        // count is generated once
+        done = true;
+        // generate traverser
+        return this.getTraversal().getTraverserGenerator().generate(count(), (Step)this, 1L);
+    }
+
+    private long count() {
+        // graph instance
+        Neo4JGraph graph = (Neo4JGraph)this.getTraversal().getGraph().get();
+        // builder
+        Neo4JCypherBuilder builder = graphStep.builder(graph);
+        // check count can be computed in database
+        if (graphStep.isCompiled(graph, builder)) {
+            // statement (range must be applied before aggregation)
+            Statement statement = graphStep.aggregate(builder, "count(" + builder.alias() + ")");
+            // execute statement (result is discarded by the transaction if the step is not completed)
+            try (Stream<Record> records = graph.records(statement)) {
+                // read count
+                return records.findFirst().map(record -> record.get(0).asLong()).orElse(0L);
+            }
+        }
+        // count elements in memory
+        long count = 0;
+        for (Iterator<? extends Element> iterator = graphStep.elements(); iterator.hasNext(); iterator.next())
+            count++;
+        // return count
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        // count must be generated again
+        done = false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setTraversal(Traversal.Admin<?, ?> parentTraversal) {
+        super.setTraversal(parentTraversal);
+        // graph step is evaluated in the new parent traversal
+        graphStep.setTraversal((Traversal.Admin)parentTraversal);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Neo4JGraphCountStep<S> clone() {
+        Neo4JGraphCountStep<S> clone = (Neo4JGraphCountStep<S>)super.clone();
+        // clone must not share the graph step
+        clone.graphStep = (Neo4JGraphStep<S, ? extends Element>)graphStep.clone();
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, graphStep);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ graphStep.hashCode();
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.Neo4JCypherBuilder;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalUtil;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.neo4j.driver.v1.Record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Start step replacing a {@link Neo4JGraphStep} followed by a terminal <code>values(keys)</code> or
+ * <code>valueMap(keys)</code> step. Only the requested properties are returned by the database
+ * (<code>RETURN n.a, n.b</code>), elements are not created nor registered in the current transaction. The elements
+ * are processed in memory by the original step when the {@link Neo4JGraphStep} cannot be compiled into Cypher (see
+ * {@link Neo4JGraphStep#isCompiled(Neo4JGraph, Neo4JCypherBuilder)}), the original step is a local child of this step.
+ *
+ * @param <S> The step start type.
+ * @param <E> The projection type.
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JGraphPropertiesStep<S, E> extends AbstractStep<S, E> implements TraversalParent {
+
+    /**
+     * Projection generated by the step.
+     */
+    public enum Projection {
+
+        /**
+         * Property values, <code>values(keys)</code>.
+         */
+        Values,
+        /**
+         * Property maps, <code>valueMap(keys)</code>.
+         */
+        ValueMap
+    }
+
+    private Neo4JGraphStep<S, ? extends Element> graphStep;
+    private Traversal.Admin<Element, E> projection;
+    private final Projection type;
+    private final String[] keys;
+    private final boolean vertices;
+
+    private Iterator<E> iterator = null;
+    private Stream<Record> records = null;
+
+    /**
+     * Creates a {@link Neo4JGraphPropertiesStep} instance.
+     *
+     * @param traversal  The {@link Traversal} instance.
+     * @param graphStep  The {@link Neo4JGraphStep} with the elements to project.
+     * @param projection The {@link Traversal} with the original step (used if the projection cannot be computed in the database).
+     * @param type       The {@link Projection} type.
+     * @param keys       The property names.
+     */
+    public Neo4JGraphPropertiesStep(Traversal.Admin traversal, Neo4JGraphStep<S, ? extends Element> graphStep, Traversal.Admin<Element, E> projection, Projection type, String... keys) {
+        super(traversal);
+        Objects.requireNonNull(graphStep, "graphStep cannot be null");
+        Objects.requireNonNull(projection, "projection cannot be null");
+        Objects.requireNonNull(type, "type cannot be null");
+        Objects.requireNonNull(keys, "keys cannot be null");
+        // store fields
+        this.graphStep = graphStep;
+        this.projection = this.integrateChild(projection);
+        this.type = type;
+        this.keys = keys;
+        this.vertices = graphStep.returnsVertex();
+    }
+
+    /**
+     * Gets the {@link Neo4JGraphStep} with the elements to project.
+     *
+     * @return The {@link Neo4JGraphStep} instance.
+     */
+    public Neo4JGraphStep<S, ? extends Element> getGraphStep() {
+        return graphStep;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Traversal.Admin<Element, E>> getLocalChildren() {
+        return Collections.singletonList(projection);
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return this.getSelfAndChildRequirements();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Traverser.Admin<E> processNextStart() {
+        // check we need to execute statement
+        if (iterator == null)
+            iterator = values();
+        // check we have more values
+        if (!iterator.hasNext()) {
+            // release statement records
+            close();
+            // no more values
+            throw FastNoSuchElementException.instance();
+        }
+        // generate traverser
+        return this.getTraversal().getTraverserGenerator().generate(iterator.next(), (Step)this, 1L);
+    }
+
+    private Iterator<E> values() {
+        // graph instance
+        Neo4JGraph graph = (Neo4JGraph)this.getTraversal().getGraph().get();
+        // builder
+        Neo4JCypherBuilder builder = graphStep.builder(graph);
+        // check projection can be computed in database
+        if (graphStep.isCompiled(graph, builder)) {
+            // property expressions
+            List<String> expressions = Arrays.stream(keys).map(builder::property).collect(Collectors.toList());
+            if (!expressions.contains(null)) {
+                // execute statement (result is discarded by the transaction if the step is not exhausted)
+                records = graph.records(builder.statement(expressions.stream().collect(Collectors.joining(", ")) + builder.orderBy() + builder.range(graphStep.getLowRange(), graphStep.getHighRange())));
+                // project records
+                return IteratorUtils.flatMap(records.iterator(), this::project);
+            }
+        }
+        // project elements in memory
+        return IteratorUtils.flatMap(graphStep.elements(), element -> TraversalUtil.applyAll(element, projection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterator<E> project(Record record) {
+        // check projection
+        if (type == Projection.Values) {
+            // property values (in key order)
+            List<Object> values = new ArrayList<>();
+            for (int index = 0; index < keys.length; index++)
+                values.addAll(propertyValues(record.get(index).asObject()));
+            return (Iterator<E>)values.iterator();
+        }
+        // property map
+        Map<String, Object> map = new HashMap<>();
+        for (int index = 0; index < keys.length; index++) {
+            // property values
+            List<Object> values = propertyValues(record.get(index).asObject());
+            if (!values.isEmpty())
+                map.put(keys[index], vertices ? values : values.get(0));
+        }
+        return (Iterator<E>)Collections.singleton(map).iterator();
+    }
+
+    private List<Object> propertyValues(Object value) {
+        // check property exists
+        if (value == null)
+            return Collections.emptyList();
+        // vertex list properties are exposed as multiple properties
+        if (vertices && value instanceof Collection)
+            return new ArrayList<>((Collection<?>)value);
+        // single value
+        return new ArrayList<>(Collections.singletonList(value));
+    }
+
+    private void close() {
+        // check statement was executed
+        if (records != null) {
+            // discard records not processed
+            records.close();
+            // reset records
+            records = null;
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        // records not processed are discarded by the transaction (a clone is reset while it still shares the records of this step)
+        records = null;
+        // projection must be generated again
+        iterator = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setTraversal(Traversal.Admin<?, ?> parentTraversal) {
+        super.setTraversal(parentTraversal);
+        // graph step and child are evaluated in the new parent traversal
+        graphStep.setTraversal((Traversal.Admin)parentTraversal);
+        this.integrateChild(projection);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Neo4JGraphPropertiesStep<S, E> clone() {
+        Neo4JGraphPropertiesStep<S, E> clone = (Neo4JGraphPropertiesStep<S, E>)super.clone();
+        // clone must not share the graph step, the original step nor the statement records
+        clone.graphStep = (Neo4JGraphStep<S, ? extends Element>)graphStep.clone();
+        clone.projection = projection.clone();
+        clone.iterator = null;
+        clone.records = null;
+        clone.integrateChild(clone.projection);
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, graphStep, projection);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ graphStep.hashCode() ^ projection.hashCode();
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.Neo4JCypherBuilder;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ElementValueTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.TokenTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.util.AndP;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalUtil;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.javatuples.Pair;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link GraphStep} that finds vertices or edges using a Cypher statement generated from the {@link HasContainer}
+ * instances folded into the step (see {@link Neo4JCypherBuilder}). Elements returned by the statement are evaluated
+ * again in memory, elements modified in the current transaction are evaluated in memory only.
+ *
+ * @param <S> The step start type.
+ * @param <E> The element type.
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JGraphStep<S, E extends Element> extends GraphStep<S, E> implements HasContainerHolder {
+
+    private final List<HasContainer> hasContainers = new ArrayList<>();
+    private final List<Pair<Traversal.Admin<E, Object>, Comparator<Object>>> comparators = new ArrayList<>();
+
+    private long low = 0;
+    private long high = -1;
+
+    /**
+     * Creates a {@link Neo4JGraphStep} instance replacing the given {@link GraphStep}.
+     *
+     * @param originalGraphStep The {@link GraphStep} instance.
+     */
+    public Neo4JGraphStep(GraphStep<S, E> originalGraphStep) {
+        super(originalGraphStep.getTraversal(), originalGraphStep.getReturnClass(), originalGraphStep.isStartStep(), originalGraphStep.getIds());
+        // copy step labels
+        originalGraphStep.getLabels().forEach(this::addLabel);
+        // iterator supplier
+        this.setIteratorSupplier(this::elements);
+    }
+
+    /**
+     * Creates the {@link Neo4JCypherBuilder} with all the {@link HasContainer} instances in the step.
+     *
+     * @param graph The {@link Neo4JGraph} instance.
+     * @return The {@link Neo4JCypherBuilder} instance.
+     */
+    public Neo4JCypherBuilder builder(Neo4JGraph graph) {
+        Objects.requireNonNull(graph, "graph cannot be null");
+        // create builder
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, returnClass);
+        // process containers
+        hasContainers.forEach(builder::addHasContainer);
+        // process sort expressions
+        comparators.forEach(comparator -> builder.addOrder(propertyKey(comparator.getValue0()), comparator.getValue1() == Order.decr));
+        // return builder
+        return builder;
+    }
+
+    /**
+     * Checks the elements returned by the step can be computed by the database (all containers have been compiled into
+     * Cypher and there are no changes pending in the current transaction).
+     *
+     * @param graph   The {@link Neo4JGraph} instance.
+     * @param builder The {@link Neo4JCypherBuilder} created by the step.
+     * @return <code>true</code> if the step can be evaluated in the database.
+     */
+    public boolean isCompiled(Neo4JGraph graph, Neo4JCypherBuilder builder) {
+        Objects.requireNonNull(graph, "graph cannot be null");
+        Objects.requireNonNull(builder, "builder cannot be null");
+        // check identifiers, containers and transaction state
+        return (ids == null || ids.length == 0) && builder.isExact() && !graph.hasPendingChanges();
+    }
+
+    /**
+     * Creates the {@link Statement} aggregating the elements returned by the step, order and range are applied before
+     * the aggregation.
+     *
+     * @param builder      The {@link Neo4JCypherBuilder} created by the step.
+     * @param returnClause The RETURN clause expressions.
+     * @return The {@link Statement} instance.
+     */
+    public Statement aggregate(Neo4JCypherBuilder builder, String returnClause) {
+        Objects.requireNonNull(builder, "builder cannot be null");
+        Objects.requireNonNull(returnClause, "returnClause cannot be null");
+        // check order and range must be applied before aggregation
+        if (!comparators.isEmpty() || low > 0 || high >= 0)
+            return new Statement(builder.match() + " WITH " + builder.alias() + builder.orderBy() + builder.range(low, high) + " RETURN " + returnClause, builder.parameters());
+        // aggregate all elements
+        return builder.statement(returnClause);
+    }
+
+    /**
+     * Gets the property name used by the given <code>by()</code> modulator traversal.
+     *
+     * @param traversal The modulator traversal (<code>by(key)</code>, <code>by(T.id)</code>).
+     * @return The property name, <code>null</code> if the traversal is not a property or identifier accessor.
+     */
+    public static String propertyKey(Traversal.Admin<?, ?> traversal) {
+        // property value
+        if (traversal instanceof ElementValueTraversal)
+            return ((ElementValueTraversal<?>)traversal).getPropertyKey();
+        // identifier
+        if (traversal instanceof TokenTraversal && ((TokenTraversal<?, ?>)traversal).getToken() == T.id)
+            return T.id.getAccessor();
+        // not supported
+        return null;
+    }
+
+    /**
+     * Sets the order of the elements returned by the step (folded <code>order().by()</code> step). Only property values,
+     * identifiers and the {@link Order#incr} and {@link Order#decr} comparators can be compiled into Cypher.
+     *
+     * @param comparators The comparators in the <code>order()</code> step.
+     * @return <code>true</code> if the comparators were added to the step, <code>false</code> if any of them cannot be
+     * compiled into Cypher.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean addComparators(List<? extends Pair<? extends Traversal.Admin<?, ?>, ? extends Comparator<?>>> comparators) {
+        Objects.requireNonNull(comparators, "comparators cannot be null");
+        // check comparators
+        if (comparators.isEmpty() || comparators.stream().anyMatch(comparator -> propertyKey(comparator.getValue0()) == null || (comparator.getValue1() != Order.incr && comparator.getValue1() != Order.decr)))
+            return false;
+        // store comparators
+        comparators.forEach(comparator -> this.comparators.add(new Pair<>((Traversal.Admin<E, Object>)comparator.getValue0(), (Comparator<Object>)comparator.getValue1())));
+        return true;
+    }
+
+    /**
+     * Sets the range of elements returned by the step (folded <code>limit()</code> and <code>range()</code> steps).
+     *
+     * @param low  The number of elements to skip.
+     * @param high The index of the last element in range (exclusive), <code>-1</code> for no limit.
+     */
+    public void setRange(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * Gets the number of elements skipped by the step.
+     *
+     * @return The number of elements to skip.
+     */
+    public long getLowRange() {
+        return low;
+    }
+
+    /**
+     * Gets the index of the last element returned by the step (exclusive).
+     *
+     * @return The index of the last element in range, <code>-1</code> for no limit.
+     */
+    public long getHighRange() {
+        return high;
+    }
+
+    Iterator<E> elements() {
+        // graph instance
+        Neo4JGraph graph = (Neo4JGraph)this.getTraversal().getGraph().get();
+        // check range is empty
+        if (high >= 0 && high <= low)
+            return Collections.emptyIterator();
+        // check step can be evaluated in database
+        if (!hasContainers.isEmpty() || !comparators.isEmpty() || low > 0 || high >= 0) {
+            // builder
+            Neo4JCypherBuilder builder = builder(graph);
+            if (isCompiled(graph, builder)) {
+                // statement, order and range are applied in database
+                Statement statement = builder.statement(builder.elements() + builder.orderBy() + builder.range(low, high));
+                // execute statement
+                return elements(graph, statement);
+            }
+        }
+        // order and range are applied in memory
+        return range(sort(filteredElements(graph)), low, high);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterator<E> elements(Neo4JGraph graph, Statement statement) {
+        // execute statement, all containers are evaluated in memory
+        if (Vertex.class.isAssignableFrom(returnClass))
+            return (Iterator<E>)graph.vertices(statement, vertex -> HasContainer.testAll(vertex, hasContainers));
+        return (Iterator<E>)graph.edges(statement, edge -> HasContainer.testAll(edge, hasContainers));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterator<E> filteredElements(Neo4JGraph graph) {
+        // vertices
+        if (Vertex.class.isAssignableFrom(returnClass)) {
+            // check identifiers were specified
+            if (ids != null && ids.length > 0)
+                return (Iterator<E>)IteratorUtils.filter(graph.vertices(ids), vertex -> HasContainer.testAll(vertex, hasContainers));
+            // check containers
+            if (hasContainers.isEmpty())
+                return (Iterator<E>)graph.vertices();
+        }
+        else {
+            // check identifiers were specified
+            if (ids != null && ids.length > 0)
+                return (Iterator<E>)IteratorUtils.filter(graph.edges(ids), edge -> HasContainer.testAll(edge, hasContainers));
+            // check containers
+            if (hasContainers.isEmpty())
+                return (Iterator<E>)graph.edges();
+        }
+        // builder
+        Neo4JCypherBuilder builder = builder(graph);
+        // execute statement
+        return elements(graph, builder.statement(builder.elements()));
+    }
+
+    private Iterator<E> sort(Iterator<E> iterator) {
+        // check elements must be sorted
+        if (comparators.isEmpty())
+            return iterator;
+        // collect elements
+        List<E> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        // sort elements
+        list.sort((left, right) -> {
+            // loop comparators
+            for (Pair<Traversal.Admin<E, Object>, Comparator<Object>> comparator : comparators) {
+                // compare values
+                int result = comparator.getValue1().compare(TraversalUtil.apply(left, comparator.getValue0()), TraversalUtil.apply(right, comparator.getValue0()));
+                if (result != 0)
+                    return result;
+            }
+            return 0;
+        });
+        return list.iterator();
+    }
+
+    private static <E> Iterator<E> range(Iterator<E> iterator, long low, long high) {
+        // skip elements
+        for (long index = 0; index < low && iterator.hasNext(); index++)
+            iterator.next();
+        // check limit
+        if (high < 0)
+            return iterator;
+        // limit elements
+        return IteratorUtils.limit(iterator, (int)Math.min(Integer.MAX_VALUE, high - low));
+    }
+
+    @Override
+    public List<HasContainer> getHasContainers() {
+        return Collections.unmodifiableList(hasContainers);
+    }
+
+    @Override
+    public void addHasContainer(HasContainer hasContainer) {
+        Objects.requireNonNull(hasContainer, "hasContainer cannot be null");
+        // check and predicate
+        if (hasContainer.getPredicate() instanceof AndP) {
+            // split predicates
+            for (Object predicate : ((AndP<?>)hasContainer.getPredicate()).getPredicates())
+                addHasContainer(new HasContainer(hasContainer.getKey(), (P<?>)predicate));
+        }
+        else
+            hasContainers.add(hasContainer);
+    }
+
+    @Override
+    public String toString() {
+        // check containers and range
+        if (hasContainers.isEmpty() && comparators.isEmpty() && low == 0 && high < 0)
+            return super.toString();
+        // range
+        String range = low != 0 || high >= 0 ? "[" + low + "," + high + "]" : null;
+        // include containers
+        return ids != null && ids.length > 0 ? StringFactory.stepString(this, returnClass.getSimpleName().toLowerCase(), Arrays.toString(ids), hasContainers, comparators, range) : StringFactory.stepString(this, returnClass.getSimpleName().toLowerCase(), hasContainers, comparators, range);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ hasContainers.hashCode() ^ comparators.hashCode() ^ Long.hashCode(low) ^ Long.hashCode(high);
+    }
+}
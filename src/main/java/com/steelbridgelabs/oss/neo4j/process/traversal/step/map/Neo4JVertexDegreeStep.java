@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+
+import java.util.Arrays;
+
+/**
+ * Step replacing an adjacency step (<code>out()</code>, <code>outE()</code>, etc.) followed by a <code>count()</code>
+ * step. The traverser bulk is multiplied by the degree of the vertex (see {@link Neo4JVertex#degree(Direction, String...)}),
+ * the <code>count()</code> step counts the edges without loading them into the current transaction, even if the
+ * transaction has pending changes (the database degree is adjusted by the edges created or deleted in the transaction).
+ * Vertices without edges are filtered out.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JVertexDegreeStep extends AbstractStep<Vertex, Vertex> {
+
+    private final Direction direction;
+    private final String[] labels;
+
+    /**
+     * Creates a {@link Neo4JVertexDegreeStep} instance.
+     *
+     * @param vertexStep The original {@link VertexStep}.
+     */
+    public Neo4JVertexDegreeStep(VertexStep<?> vertexStep) {
+        super(vertexStep.getTraversal());
+        // store fields
+        this.direction = vertexStep.getDirection();
+        this.labels = vertexStep.getEdgeLabels();
+    }
+
+    /**
+     * Gets the direction of the edges counted by the step.
+     *
+     * @return The edge direction.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Gets the labels of the edges counted by the step.
+     *
+     * @return The edge labels, empty for all labels.
+     */
+    public String[] getEdgeLabels() {
+        return labels;
+    }
+
+    @Override
+    protected Traverser.Admin<Vertex> processNextStart() {
+        // process traversers
+        while (true) {
+            // next traverser
+            Traverser.Admin<Vertex> traverser = this.starts.next();
+            // current vertex
+            Vertex vertex = traverser.get();
+            // degree
+            long degree = vertex instanceof Neo4JVertex ? ((Neo4JVertex)vertex).degree(direction, labels) : IteratorUtils.count(vertex.edges(direction, labels));
+            // check vertex has edges
+            if (degree > 0) {
+                // a traverser per edge
+                traverser.setBulk(traverser.bulk() * degree);
+                // return traverser
+                return traverser;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, direction, Arrays.asList(labels));
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ direction.hashCode() ^ Arrays.hashCode(labels);
+    }
+}
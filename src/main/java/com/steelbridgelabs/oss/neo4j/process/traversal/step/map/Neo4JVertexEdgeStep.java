@@ -0,0 +1,222 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.Neo4JCypherBuilder;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FlatMapStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.javatuples.Pair;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Step replacing an <code>outE()</code>, <code>inE()</code> or <code>bothE()</code> step and the
+ * {@link org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep} instances following it, the relationship
+ * predicates are evaluated by the database while expanding every traverser, example:
+ * <p>
+ * MATCH (n:Person{id: {id}}) MATCH (n)-[r:`rated`]-&gt;(m) WHERE r.`score` &gt; {p0} RETURN r, m ORDER BY r.`ts` DESC LIMIT {p2}
+ * </p>
+ * The traverser vertex is not part of the records, the edges are attached to it (see {@link Neo4JVertex#edges(Statement)}).
+ * A top-N (<code>order().by(key).limit(n)</code> or <code>limit(n)</code>) following the step is applied to the edges
+ * of every traverser, the original <code>order()</code> and <code>limit()</code> steps are still part of the traversal
+ * (the global top-N is contained in the union of the top-N of every vertex). The edges are found in memory when the
+ * current transaction has pending changes, the order and limit are only applied in the database when all
+ * containers have been compiled into Cypher. When a supernode degree threshold is configured the edges are found one
+ * page at a time unless a top-N bounds the number of records below the threshold, the first page is also the degree
+ * probe (a first page with less records than the page size is the only one) and the <code>order()</code> and
+ * <code>limit()</code> steps are evaluated on the pages, example:
+ * <p>
+ * MATCH (n:Person{id: {id}}) MATCH (n)-[r:`rated`]-&gt;(m) WHERE r.`score` &gt; {p0} WITH r, m WHERE r.id &gt; {last} RETURN r, m ORDER BY r.id LIMIT {p2}
+ * </p>
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JVertexEdgeStep extends FlatMapStep<Vertex, Edge> implements HasContainerHolder {
+
+    private static final String IdParameterName = "id";
+    private static final String LastParameterName = "last";
+
+    private final Direction direction;
+    private final String[] labels;
+    private final List<HasContainer> hasContainers = new ArrayList<>();
+    private final List<Pair<Traversal.Admin<?, ?>, Comparator<?>>> comparators = new ArrayList<>();
+
+    private long limit = -1;
+
+    /**
+     * Creates a {@link Neo4JVertexEdgeStep} instance.
+     *
+     * @param vertexStep The original {@link VertexStep}.
+     */
+    public Neo4JVertexEdgeStep(VertexStep<Edge> vertexStep) {
+        super(vertexStep.getTraversal());
+        // store fields
+        this.direction = vertexStep.getDirection();
+        this.labels = vertexStep.getEdgeLabels();
+        // copy step labels
+        vertexStep.getLabels().forEach(this::addLabel);
+    }
+
+    /**
+     * Gets the direction of the edges returned by the step.
+     *
+     * @return The edge direction.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Gets the labels of the edges returned by the step.
+     *
+     * @return The edge labels, empty for all labels.
+     */
+    public String[] getEdgeLabels() {
+        return labels;
+    }
+
+    @Override
+    public List<HasContainer> getHasContainers() {
+        return Collections.unmodifiableList(hasContainers);
+    }
+
+    @Override
+    public void addHasContainer(HasContainer hasContainer) {
+        Objects.requireNonNull(hasContainer, "hasContainer cannot be null");
+        // append container
+        hasContainers.add(hasContainer);
+    }
+
+    /**
+     * Sets the top-N applied to the edges of every traverser (folded <code>order().by()</code> and
+     * <code>limit()</code> steps). Only property values, identifiers and the {@link Order#incr} and
+     * {@link Order#decr} comparators can be compiled into Cypher.
+     *
+     * @param comparators The comparators in the <code>order()</code> step, empty if the edges are not sorted.
+     * @param limit       The maximum number of edges per traverser.
+     * @return <code>true</code> if the top-N was added to the step, <code>false</code> if it cannot be compiled into
+     * Cypher.
+     */
+    public boolean setTopN(List<? extends Pair<? extends Traversal.Admin<?, ?>, ? extends Comparator<?>>> comparators, long limit) {
+        Objects.requireNonNull(comparators, "comparators cannot be null");
+        // check comparators
+        if (limit < 0 || comparators.stream().anyMatch(comparator -> Neo4JGraphStep.propertyKey(comparator.getValue0()) == null || (comparator.getValue1() != Order.incr && comparator.getValue1() != Order.decr)))
+            return false;
+        // store comparators
+        comparators.forEach(comparator -> this.comparators.add(new Pair<>(comparator.getValue0(), comparator.getValue1())));
+        // store limit
+        this.limit = limit;
+        return true;
+    }
+
+    /**
+     * Gets the maximum number of edges returned per traverser.
+     *
+     * @return The maximum number of edges, <code>-1</code> for no limit.
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    @Override
+    protected Iterator<Edge> flatMap(Traverser.Admin<Vertex> traverser) {
+        // graph instance
+        Neo4JGraph graph = (Neo4JGraph)this.getTraversal().getGraph().get();
+        // current vertex
+        Vertex vertex = traverser.get();
+        // check edges can be found in database
+        if (vertex instanceof Neo4JVertex && !graph.hasPendingChanges()) {
+            // builder
+            Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Edge.class);
+            // process containers
+            hasContainers.forEach(builder::addHasContainer);
+            // MATCH clause for relationships
+            String adjacency = builder.adjacency(direction, labels);
+            if (adjacency != null) {
+                // vertex id
+                builder.parameters().put(IdParameterName, vertex.id());
+                // MATCH clause for current vertex
+                String match = "MATCH " + ((Neo4JVertex)vertex).matchPattern(Neo4JCypherBuilder.VertexAlias, IdParameterName) + adjacency;
+                // supernode degree threshold
+                int threshold = graph.getSupernodeDegreeThreshold();
+                // check edges could be found in pages (top-N can be applied only if all containers were compiled)
+                if (threshold > 0 && !(builder.isExact() && limit >= 0 && limit <= threshold)) {
+                    // relationship identifier
+                    String idFieldName = graph.getEdgeIdProvider().idFieldName();
+                    // ORDER BY and LIMIT clauses (relationships sorted by identifier, a full first page means the degree is above the threshold)
+                    String page = " ORDER BY " + Neo4JCypherBuilder.EdgeAlias + "." + idFieldName + builder.range(0, threshold + 1);
+                    // execute a statement per page (containers are evaluated again in memory)
+                    return IteratorUtils.filter(((Neo4JVertex)vertex).edges(last -> {
+                        // parameters
+                        Map<String, Object> parameters = new HashMap<>(builder.parameters());
+                        // check first page
+                        if (last != null)
+                            parameters.put(LastParameterName, last);
+                        // relationships after the last one in previous page
+                        String predicate = last != null ? " WITH " + Neo4JCypherBuilder.EdgeAlias + ", " + Neo4JCypherBuilder.InVertexAlias + " WHERE " + Neo4JCypherBuilder.EdgeAlias + "." + idFieldName + " > {" + LastParameterName + "}" : "";
+                        // statement
+                        return new Statement(match + predicate + " RETURN " + Neo4JCypherBuilder.EdgeAlias + ", " + Neo4JCypherBuilder.InVertexAlias + page, parameters);
+                    }), edge -> HasContainer.testAll(edge, hasContainers));
+                }
+                // top-N can be applied only if all containers were compiled
+                if (builder.isExact())
+                    comparators.forEach(comparator -> builder.addOrder(Neo4JGraphStep.propertyKey(comparator.getValue0()), comparator.getValue1() == Order.decr));
+                // RETURN clause (anchor vertex is not part of the records)
+                String returnClause = Neo4JCypherBuilder.EdgeAlias + ", " + Neo4JCypherBuilder.InVertexAlias + (builder.isExact() ? builder.orderBy() + builder.range(0, limit) : "");
+                // statement
+                Statement statement = new Statement(match + " RETURN " + returnClause, builder.parameters());
+                // execute statement (containers are evaluated again in memory)
+                return IteratorUtils.filter(((Neo4JVertex)vertex).edges(statement), edge -> HasContainer.testAll(edge, hasContainers));
+            }
+        }
+        // evaluate containers in memory
+        return IteratorUtils.filter(vertex.edges(direction, labels), edge -> HasContainer.testAll(edge, hasContainers));
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, direction, Arrays.asList(labels), hasContainers, comparators, limit);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ direction.hashCode() ^ Arrays.hashCode(labels) ^ hasContainers.hashCode() ^ Long.hashCode(limit);
+    }
+}
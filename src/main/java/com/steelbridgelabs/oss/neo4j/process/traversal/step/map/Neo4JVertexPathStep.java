@@ -0,0 +1,334 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.Neo4JCypherBuilder;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.LoopTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.branch.RepeatStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalUtil;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.EmptyIterator;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Step replacing consecutive <code>out()</code>, <code>in()</code> and <code>both()</code> steps (and the
+ * {@link org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep} instances between them) or a
+ * <code>repeat()</code> step over them with a single Cypher statement per batch of traversers. The step collects up to
+ * {@link Neo4JGraph#getExpansionBatchSize()} traversers (one at a time if the batch size is zero or less) and executes
+ * a statement per group of start vertices with the same labels, every record returns the identifier of the start
+ * vertex and the vertex at the end of the path, example:
+ * <p>
+ * MATCH (n:Person) WHERE n.id IN {ids} MATCH (n)-[:`knows`]-&gt;(v1) MATCH (v1)-[:`worksAt`]-&gt;(v2) RETURN n.id AS s, v2 AS v
+ * </p>
+ * Each hop is matched in its own MATCH clause, relationships can be traversed more than once in the same path (Gremlin
+ * semantics). Intermediate vertices are not loaded into the session. A <code>repeat().times(n)</code> step is unrolled
+ * into <code>n</code> copies of the repeated steps, vertices emitted in every iteration (<code>emit()</code>) are
+ * returned by a query per depth combined with UNION ALL. The original steps are evaluated in memory when the current
+ * transaction has pending changes or a filter cannot be compiled into Cypher, the original steps are a local child of
+ * this step. Traversers are emitted grouped by batch, not in the order they were received.
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JVertexPathStep extends AbstractStep<Vertex, Vertex> implements TraversalParent {
+
+    private static final String IdsParameterName = "ids";
+    private static final String StartColumnName = "s";
+    private static final String VertexColumnName = "v";
+
+    private Traversal.Admin<Vertex, Vertex> path;
+
+    private Boolean compiled = null;
+    private List<String> statements = null;
+    private Map<String, Object> parameters = null;
+    private List<HasContainer> hasContainers = null;
+    private boolean emitStart = false;
+    private Iterator<Traverser.Admin<Vertex>> iterator = EmptyIterator.instance();
+
+    /**
+     * Creates a {@link Neo4JVertexPathStep} instance.
+     *
+     * @param traversal The {@link Traversal} instance.
+     * @param path      The {@link Traversal} with the original adjacency and filter steps.
+     */
+    public Neo4JVertexPathStep(Traversal.Admin traversal, Traversal.Admin<Vertex, Vertex> path) {
+        super(traversal);
+        Objects.requireNonNull(path, "path cannot be null");
+        // store fields
+        this.path = this.integrateChild(path);
+    }
+
+    /**
+     * Gets the {@link Traversal} with the original adjacency and filter steps.
+     *
+     * @return The {@link Traversal} instance.
+     */
+    public Traversal.Admin<Vertex, Vertex> getPath() {
+        return path;
+    }
+
+    @Override
+    public List<Traversal.Admin<Vertex, Vertex>> getLocalChildren() {
+        return Collections.singletonList(path);
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return this.getSelfAndChildRequirements();
+    }
+
+    @Override
+    protected Traverser.Admin<Vertex> processNextStart() {
+        // process batches
+        while (true) {
+            // check current batch has more traversers
+            if (iterator.hasNext())
+                return iterator.next();
+            // graph instance
+            Neo4JGraph graph = (Neo4JGraph)this.getTraversal().getGraph().get();
+            // batch size (traversers are processed one at a time if batches are disabled)
+            int size = Math.max(graph.getExpansionBatchSize(), 1);
+            // collect traversers
+            List<Traverser.Admin<Vertex>> batch = new ArrayList<>();
+            while (batch.size() < size && this.starts.hasNext())
+                batch.add(this.starts.next());
+            // check we have traversers
+            if (batch.isEmpty())
+                throw FastNoSuchElementException.instance();
+            // traversers produced by batch
+            iterator = process(graph, batch);
+        }
+    }
+
+    private Iterator<Traverser.Admin<Vertex>> process(Neo4JGraph graph, List<Traverser.Admin<Vertex>> batch) {
+        // check path can be evaluated in database
+        if (graph.hasPendingChanges() || !isCompiled(graph))
+            return IteratorUtils.flatMap(batch.iterator(), this::evaluate);
+        // traversers evaluated in database, grouped by the pattern matching their vertices (labels)
+        Map<String, List<Traverser.Admin<Vertex>>> groups = new LinkedHashMap<>();
+        // traversers evaluated in memory
+        List<Traverser.Admin<Vertex>> memory = new ArrayList<>();
+        // process traversers
+        for (Traverser.Admin<Vertex> traverser : batch) {
+            // current vertex
+            Vertex vertex = traverser.get();
+            if (vertex instanceof Neo4JVertex)
+                groups.computeIfAbsent(((Neo4JVertex)vertex).matchPattern(Neo4JCypherBuilder.VertexAlias), key -> new ArrayList<>()).add(traverser);
+            else
+                memory.add(traverser);
+        }
+        // traversers evaluated in memory followed by the ones evaluated in database (a statement per group, executed on demand)
+        return IteratorUtils.concat(IteratorUtils.flatMap(memory.iterator(), this::evaluate), IteratorUtils.flatMap(groups.entrySet().iterator(), entry -> query(graph, entry.getKey(), entry.getValue())));
+    }
+
+    private Iterator<Traverser.Admin<Vertex>> query(Neo4JGraph graph, String pattern, List<Traverser.Admin<Vertex>> traversers) {
+        // traversers by vertex id (the same vertex can be in more than one traverser)
+        Map<Object, List<Traverser.Admin<Vertex>>> map = traversers.stream().collect(Collectors.groupingBy(traverser -> traverser.get().id()));
+        // statement parameters
+        Map<String, Object> statementParameters = new HashMap<>(parameters);
+        statementParameters.put(IdsParameterName, new ArrayList<>(map.keySet()));
+        // MATCH clause for vertices in group
+        String match = "MATCH " + pattern + " WHERE " + Neo4JCypherBuilder.VertexAlias + "." + graph.getVertexIdProvider().idFieldName() + " IN {" + IdsParameterName + "}";
+        // statement (a query per emitted depth)
+        Statement statement = new Statement(statements.stream().map(item -> match + item).collect(Collectors.joining(" UNION ALL ")), statementParameters);
+        // execute statement (last hop containers are evaluated again in memory), a traverser per path
+        Iterator<Traverser.Admin<Vertex>> paths = IteratorUtils.flatMap(IteratorUtils.filter(graph.keyedVertices(statement), entry -> HasContainer.testAll(entry.getValue(), hasContainers)), entry -> IteratorUtils.map(map.getOrDefault(entry.getKey(), Collections.emptyList()).iterator(), traverser -> traverser.split(entry.getValue(), this)));
+        // check start vertices are emitted, emit().repeat()
+        return emitStart ? IteratorUtils.concat(IteratorUtils.map(traversers.iterator(), traverser -> traverser.split(traverser.get(), this)), paths) : paths;
+    }
+
+    private Iterator<Traverser.Admin<Vertex>> evaluate(Traverser.Admin<Vertex> traverser) {
+        // evaluate original steps in memory
+        return IteratorUtils.map(TraversalUtil.applyAll(traverser.get(), path), vertex -> traverser.split(vertex, this));
+    }
+
+    private boolean isCompiled(Neo4JGraph graph) {
+        // check path has been compiled
+        if (compiled == null)
+            compiled = compile(graph);
+        return compiled;
+    }
+
+    private boolean compile(Neo4JGraph graph) {
+        // steps in path (repeat() steps are unrolled)
+        List<Step<?, ?>> steps = new ArrayList<>();
+        // number of hops in path where vertices are emitted
+        List<Integer> emits = new ArrayList<>();
+        boolean start = false;
+        // process steps
+        for (Step<?, ?> step : path.getSteps()) {
+            // check repeat step, repeat().times(n)
+            if (step instanceof RepeatStep) {
+                // repeat step
+                RepeatStep<?> repeatStep = (RepeatStep<?>)step;
+                // check vertices are emitted in every iteration, emit()
+                boolean emit = repeatStep.getEmitTraversal() != null;
+                start = emit && repeatStep.emitFirst;
+                // unroll loop
+                for (long loop = 0; loop < ((LoopTraversal<?>)repeatStep.getUntilTraversal()).getMaxLoops(); loop++) {
+                    // append repeated steps
+                    repeatStep.getGlobalChildren().get(0).getSteps().stream().filter(item -> !(item instanceof RepeatStep.RepeatEndStep)).forEach(steps::add);
+                    // check vertices are emitted
+                    if (emit)
+                        emits.add(hops(steps));
+                }
+            }
+            else
+                steps.add(step);
+        }
+        // vertices at the end of the path are always emitted
+        if (emits.isEmpty() || emits.get(emits.size() - 1) != hops(steps))
+            emits.add(hops(steps));
+        // parameters shared by all vertices in path
+        Map<String, Object> map = new HashMap<>();
+        // builders, one per hop
+        List<Neo4JCypherBuilder> builders = new ArrayList<>();
+        List<VertexStep<?>> hops = new ArrayList<>();
+        List<HasContainer> containers = new ArrayList<>();
+        // process steps
+        for (Step<?, ?> step : steps) {
+            // check adjacency step
+            if (step instanceof VertexStep) {
+                // append hop
+                hops.add((VertexStep<?>)step);
+                builders.add(new Neo4JCypherBuilder(graph, "v" + (builders.size() + 1), map));
+                // containers in last hop
+                containers = new ArrayList<>();
+            }
+            else if (step instanceof HasContainerHolder) {
+                // process containers in current hop
+                for (HasContainer hasContainer : ((HasContainerHolder)step).getHasContainers()) {
+                    // translate container
+                    if (!builders.get(builders.size() - 1).addHasContainer(hasContainer))
+                        return false;
+                    // append container
+                    containers.add(hasContainer);
+                }
+            }
+            else if (!(step instanceof NoOpBarrierStep)) {
+                // step cannot be translated (barriers inserted by other strategies only bulk traversers)
+                return false;
+            }
+        }
+        // MATCH clauses
+        List<String> clauses = new ArrayList<>();
+        String alias = Neo4JCypherBuilder.VertexAlias;
+        for (int index = 0; index < hops.size(); index++) {
+            // current hop
+            VertexStep<?> hop = hops.get(index);
+            Neo4JCypherBuilder vertexBuilder = builders.get(index);
+            // relationship pattern
+            String relationship = "[" + (hop.getEdgeLabels().length > 0 ? ":" + Arrays.stream(hop.getEdgeLabels()).distinct().map(label -> "`" + label + "`").collect(Collectors.joining("|")) : "") + "]";
+            // check labels can be used in statement
+            if (Arrays.stream(hop.getEdgeLabels()).anyMatch(label -> label.isEmpty() || label.contains("`")))
+                return false;
+            // predicates
+            List<String> predicates = vertexBuilder.predicates();
+            // MATCH clause, a new clause per hop allows relationships to be traversed more than once
+            clauses.add(" MATCH (" + alias + ")" + (hop.getDirection() == Direction.IN ? "<-" : "-") + relationship + (hop.getDirection() == Direction.OUT ? "->" : "-") + vertexBuilder.pattern() + (!predicates.isEmpty() ? " WHERE " + predicates.stream().collect(Collectors.joining(" AND ")) : ""));
+            // next hop
+            alias = vertexBuilder.alias();
+        }
+        // a query per emitted depth, start vertex id and vertex at the end of the path (columns in UNION must have the same name)
+        List<String> list = new ArrayList<>();
+        for (int depth : emits)
+            list.add(clauses.subList(0, depth).stream().collect(Collectors.joining("")) + " RETURN " + Neo4JCypherBuilder.VertexAlias + "." + graph.getVertexIdProvider().idFieldName() + " AS " + StartColumnName + ", " + builders.get(depth - 1).alias() + " AS " + VertexColumnName);
+        // store fields
+        this.parameters = map;
+        this.hasContainers = Collections.unmodifiableList(containers);
+        this.statements = list;
+        this.emitStart = start;
+        return true;
+    }
+
+    private static int hops(List<Step<?, ?>> steps) {
+        // number of adjacency steps
+        return (int)steps.stream().filter(step -> step instanceof VertexStep).count();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        // discard traversers in current batch (the iterator is replaced, a clone is reset before it gets its own iterator)
+        iterator = EmptyIterator.instance();
+        // statement must be generated again
+        compiled = null;
+        statements = null;
+        parameters = null;
+        hasContainers = null;
+    }
+
+    @Override
+    public void setTraversal(Traversal.Admin<?, ?> parentTraversal) {
+        super.setTraversal(parentTraversal);
+        // child shares the side effects of the new parent traversal
+        this.integrateChild(path);
+    }
+
+    @Override
+    public Neo4JVertexPathStep clone() {
+        Neo4JVertexPathStep clone = (Neo4JVertexPathStep)super.clone();
+        // clone must not share the original steps (nor the statement generated from them)
+        clone.path = path.clone();
+        clone.iterator = EmptyIterator.instance();
+        clone.compiled = null;
+        clone.statements = null;
+        clone.parameters = null;
+        clone.hasContainers = null;
+        clone.integrateChild(clone.path);
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, path);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ path.hashCode();
+    }
+}
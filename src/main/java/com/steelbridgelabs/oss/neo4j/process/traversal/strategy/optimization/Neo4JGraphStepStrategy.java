@@ -0,0 +1,222 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JGraphAggregateStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JGraphCountStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JGraphPropertiesStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JGraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GroupCountStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GroupStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MaxGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MeanGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MinGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertyMapStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.SumGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.PropertyType;
+
+/**
+ * Replaces {@link GraphStep} instances with {@link Neo4JGraphStep} instances folding the {@link HasStep} instances
+ * that follow the step, the filters are compiled into the Cypher statement used to find the elements. Start steps
+ * also fold the following <code>order().by()</code> (ORDER BY), <code>limit()</code>/<code>range()</code> (SKIP and LIMIT) and <code>count()</code>
+ * (<code>RETURN count(n)</code>) steps, and aggregations computed by Cypher functions (see
+ * {@link Neo4JGraphAggregateStep}) or terminal property projections (see {@link Neo4JGraphPropertiesStep}).
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JGraphStepStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final Neo4JGraphStepStrategy Instance = new Neo4JGraphStepStrategy();
+
+    private Neo4JGraphStepStrategy() {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // check traversal is executed in graph computer
+        if (TraversalHelper.onGraphComputer(traversal))
+            return;
+        // process graph steps
+        for (GraphStep originalGraphStep : TraversalHelper.getStepsOfClass(GraphStep.class, traversal)) {
+            // create step
+            Neo4JGraphStep<?, ?> graphStep = new Neo4JGraphStep<>(originalGraphStep);
+            // replace step
+            TraversalHelper.replaceStep(originalGraphStep, (Step)graphStep, traversal);
+            // fold has steps
+            Step<?, ?> currentStep = graphStep.getNextStep();
+            while (currentStep instanceof HasStep) {
+                // process containers
+                for (HasContainer hasContainer : ((HasContainerHolder)currentStep).getHasContainers()) {
+                    // identifiers are processed by graph step
+                    if (!GraphStep.processHasContainerIds(graphStep, hasContainer))
+                        graphStep.addHasContainer(hasContainer);
+                }
+                // copy step labels
+                currentStep.getLabels().forEach(graphStep::addLabel);
+                // remove step
+                traversal.removeStep(currentStep);
+                // next step
+                currentStep = currentStep.getNextStep();
+            }
+            // range can be applied to elements only if graph step is the traversal start step
+            if (!graphStep.isStartStep())
+                continue;
+            // fold order() step
+            if (currentStep instanceof OrderGlobalStep && currentStep.getLabels().isEmpty() && graphStep.addComparators(((OrderGlobalStep<?, ?>)currentStep).getComparators())) {
+                // remove step
+                traversal.removeStep(currentStep);
+                // next step
+                currentStep = currentStep.getNextStep();
+            }
+            // fold limit() and range() steps
+            if (currentStep instanceof RangeGlobalStep && currentStep.getLabels().isEmpty()) {
+                // range step
+                RangeGlobalStep<?> rangeStep = (RangeGlobalStep<?>)currentStep;
+                // apply range to graph step
+                graphStep.setRange(rangeStep.getLowRange(), rangeStep.getHighRange());
+                // remove step
+                traversal.removeStep(currentStep);
+                // next step
+                currentStep = currentStep.getNextStep();
+            }
+            // fold count() step (elements are not part of the traversal path)
+            if (currentStep instanceof CountGlobalStep && graphStep.getLabels().isEmpty()) {
+                // create step
+                Neo4JGraphCountStep<?> countStep = new Neo4JGraphCountStep<>(traversal, graphStep);
+                // copy step labels
+                currentStep.getLabels().forEach(countStep::addLabel);
+                // remove count step
+                traversal.removeStep(currentStep);
+                // replace graph step
+                TraversalHelper.replaceStep((Step)graphStep, countStep, traversal);
+            }
+            else if (graphStep.getLabels().isEmpty()) {
+                // fold terminal projection steps
+                Step<?, ?> step = currentStep.getNextStep() instanceof EmptyStep ? propertiesStep(traversal, graphStep, currentStep) : null;
+                // fold aggregation steps
+                if (step == null)
+                    step = aggregateStep(traversal, graphStep, currentStep);
+                // check steps were folded
+                if (step != null) {
+                    // replace graph step
+                    TraversalHelper.replaceStep((Step)graphStep, step, traversal);
+                }
+            }
+        }
+    }
+
+    private static Step<?, ?> propertiesStep(Traversal.Admin<?, ?> traversal, Neo4JGraphStep<?, ?> graphStep, Step<?, ?> currentStep) {
+        // check values(keys)
+        if (currentStep instanceof PropertiesStep && ((PropertiesStep<?>)currentStep).getReturnType() == PropertyType.VALUE && ((PropertiesStep<?>)currentStep).getPropertyKeys().length > 0)
+            return propertiesStep(traversal, graphStep, currentStep, Neo4JGraphPropertiesStep.Projection.Values, ((PropertiesStep<?>)currentStep).getPropertyKeys());
+        // check valueMap(keys)
+        if (currentStep instanceof PropertyMapStep && ((PropertyMapStep<?>)currentStep).getReturnType() == PropertyType.VALUE && !((PropertyMapStep<?>)currentStep).isIncludeTokens() && ((PropertyMapStep<?>)currentStep).getPropertyKeys().length > 0)
+            return propertiesStep(traversal, graphStep, currentStep, Neo4JGraphPropertiesStep.Projection.ValueMap, ((PropertyMapStep<?>)currentStep).getPropertyKeys());
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Step<?, ?> propertiesStep(Traversal.Admin<?, ?> traversal, Neo4JGraphStep<?, ?> graphStep, Step<?, ?> currentStep, Neo4JGraphPropertiesStep.Projection type, String[] keys) {
+        // original step (used if projection cannot be computed in database)
+        Traversal.Admin<Element, Object> projection = new DefaultTraversal<>();
+        // remove step from traversal
+        traversal.removeStep(currentStep);
+        // append step to projection
+        projection.addStep(currentStep);
+        // create step
+        Neo4JGraphPropertiesStep<?, ?> propertiesStep = new Neo4JGraphPropertiesStep<>(traversal, graphStep, projection, type, keys);
+        // copy step labels
+        currentStep.getLabels().forEach(propertiesStep::addLabel);
+        // return step
+        return propertiesStep;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Step<?, ?> aggregateStep(Traversal.Admin<?, ?> traversal, Neo4JGraphStep<?, ?> graphStep, Step<?, ?> currentStep) {
+        // check groupCount().by(key)
+        if (currentStep instanceof GroupCountStep && ((GroupCountStep<?, ?>)currentStep).getLocalChildren().size() == 1) {
+            // group key
+            String groupKey = Neo4JGraphStep.propertyKey(((GroupCountStep<?, ?>)currentStep).getLocalChildren().get(0));
+            if (groupKey != null)
+                return aggregateStep(traversal, graphStep, groupKey, "count", null, currentStep);
+        }
+        // check group().by(key).by(count())
+        if (currentStep instanceof GroupStep && ((GroupStep<?, ?, ?>)currentStep).getLocalChildren().size() == 2) {
+            // group key
+            String groupKey = Neo4JGraphStep.propertyKey(((GroupStep<?, ?, ?>)currentStep).getLocalChildren().get(0));
+            // value traversal
+            Traversal.Admin<?, ?> valueTraversal = ((GroupStep<?, ?, ?>)currentStep).getLocalChildren().get(1);
+            if (groupKey != null && valueTraversal.getSteps().size() == 1 && valueTraversal.getStartStep() instanceof CountGlobalStep)
+                return aggregateStep(traversal, graphStep, groupKey, "count", null, currentStep);
+        }
+        // check values(key) followed by sum(), min(), max() or mean()
+        if (currentStep instanceof PropertiesStep && ((PropertiesStep<?>)currentStep).getReturnType() == PropertyType.VALUE && ((PropertiesStep<?>)currentStep).getPropertyKeys().length == 1 && currentStep.getLabels().isEmpty()) {
+            // aggregation function
+            Step<?, ?> nextStep = currentStep.getNextStep();
+            String function = nextStep instanceof SumGlobalStep ? "sum" : nextStep instanceof MinGlobalStep ? "min" : nextStep instanceof MaxGlobalStep ? "max" : nextStep instanceof MeanGlobalStep ? "avg" : null;
+            if (function != null)
+                return aggregateStep(traversal, graphStep, null, function, ((PropertiesStep<?>)currentStep).getPropertyKeys()[0], currentStep, nextStep);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Step<?, ?> aggregateStep(Traversal.Admin<?, ?> traversal, Neo4JGraphStep<?, ?> graphStep, String groupKey, String function, String valueKey, Step<?, ?>... steps) {
+        // reducing steps (used if aggregation cannot be computed in database)
+        Traversal.Admin<Element, Object> reducer = new DefaultTraversal<>();
+        for (Step<?, ?> step : steps) {
+            // remove step from traversal
+            traversal.removeStep(step);
+            // append step to reducer
+            reducer.addStep(step);
+        }
+        // create step
+        Neo4JGraphAggregateStep<?, ?> aggregateStep = new Neo4JGraphAggregateStep<>(traversal, graphStep, reducer, groupKey, function, valueKey);
+        // copy step labels (last step)
+        steps[steps.length - 1].getLabels().forEach(aggregateStep::addLabel);
+        // return step
+        return aggregateStep;
+    }
+
+    /**
+     * Gets the {@link Neo4JGraphStepStrategy} instance.
+     *
+     * @return The {@link Neo4JGraphStepStrategy} instance.
+     */
+    public static Neo4JGraphStepStrategy instance() {
+        return Instance;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JAdjacencyBatchStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JVertexDegreeStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JVertexEdgeStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JVertexPathStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.LoopTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.TrueTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.branch.RepeatStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replaces two or more consecutive <code>out()</code>, <code>in()</code> and <code>both()</code> steps (including the
+ * {@link HasStep} instances between them) with a {@link Neo4JVertexPathStep}, the adjacent vertices are found with a
+ * single Cypher statement per batch of traversers instead of a statement per traverser per hop. Steps are not folded if the
+ * traversal requires the traverser path (intermediate vertices are not part of the path) or if the steps are labeled.
+ * <p>
+ * <code>repeat().times(n)</code> steps (with an optional <code>emit()</code> modulator) repeating adjacency and
+ * {@link HasStep} instances are replaced with a {@link Neo4JVertexPathStep} evaluating the unrolled path, up to 32
+ * hops. Loops with <code>until()</code> conditions are not folded, the number of iterations depends on the vertices
+ * found in every iteration.
+ * </p>
+ * <p>
+ * <code>outE()</code>, <code>inE()</code> and <code>bothE()</code> steps followed by {@link HasStep} instances or a
+ * top-N (<code>order().by(key).limit(n)</code>, <code>limit(n)</code>) are replaced with a {@link Neo4JVertexEdgeStep}
+ * evaluating the relationship predicates and the top-N of every traverser in the database. Adjacency steps followed by
+ * <code>count()</code> are replaced with a {@link Neo4JVertexDegreeStep}, edges are counted from the node degree.
+ * </p>
+ * <p>
+ * A {@link Neo4JAdjacencyBatchStep} is inserted before the remaining adjacency steps, the edges of the incoming
+ * vertices are loaded in batches (see {@link com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph#getExpansionBatchSize()}).
+ * </p>
+ *
+ * @author Rogelio J. Baucells
+ */
+public final class Neo4JVertexStepStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final Neo4JVertexStepStrategy Instance = new Neo4JVertexStepStrategy();
+    private static final long MaxUnrolledHops = 32;
+
+    private Neo4JVertexStepStrategy() {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void apply(Traversal.Admin<?, ?> traversal) {
+        // check traversal is executed in graph computer
+        if (TraversalHelper.onGraphComputer(traversal))
+            return;
+        // check traversal holds the original steps of a path step (evaluated in memory as they are)
+        if (isPathChild(traversal))
+            return;
+        // check traversal requires path (intermediate vertices must be part of the path)
+        if (!TraversalHelper.anyStepRecursively(step -> step.getRequirements().contains(TraverserRequirement.PATH), TraversalHelper.getRootTraversal(traversal)))
+            fold(traversal);
+        // fold edge filters and top-N
+        foldEdges(traversal);
+        // fold adjacency steps followed by count()
+        foldDegrees(traversal);
+        // load adjacent edges in batches before the remaining adjacency steps
+        for (VertexStep<?> vertexStep : TraversalHelper.getStepsOfClass(VertexStep.class, traversal))
+            TraversalHelper.insertBeforeStep(new Neo4JAdjacencyBatchStep(traversal, vertexStep.getDirection(), vertexStep.getEdgeLabels()), (Step)vertexStep, traversal);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void fold(Traversal.Admin<?, ?> traversal) {
+        // process steps
+        Step<?, ?> currentStep = traversal.getStartStep();
+        while (!(currentStep instanceof EmptyStep)) {
+            // fold repeat().times(n) step
+            if (currentStep instanceof RepeatStep && isUnrollable((RepeatStep<?>)currentStep)) {
+                // original step (used if path cannot be evaluated in database)
+                Traversal.Admin<Vertex, Vertex> path = new DefaultTraversal<>();
+                // create step
+                Neo4JVertexPathStep pathStep = new Neo4JVertexPathStep(traversal, path);
+                // copy step labels
+                currentStep.getLabels().forEach(pathStep::addLabel);
+                // replace step
+                TraversalHelper.replaceStep((Step)currentStep, pathStep, traversal);
+                // append step to path
+                path.addStep((Step)currentStep);
+                // next step
+                currentStep = pathStep.getNextStep();
+                continue;
+            }
+            // adjacency and filter steps
+            List<Step<?, ?>> steps = new ArrayList<>();
+            int hops = 0;
+            // collect consecutive adjacency steps
+            Step<?, ?> step = currentStep;
+            while (step instanceof VertexStep && ((VertexStep<?>)step).returnsVertex() && step.getLabels().isEmpty()) {
+                // append hop
+                steps.add(step);
+                hops++;
+                // collect filters in hop
+                step = step.getNextStep();
+                while (step instanceof HasStep && step.getLabels().isEmpty()) {
+                    // append filter
+                    steps.add(step);
+                    // next step
+                    step = step.getNextStep();
+                }
+            }
+            // check path has more than one hop
+            if (hops > 1) {
+                // original steps (used if path cannot be evaluated in database)
+                Traversal.Admin<Vertex, Vertex> path = new DefaultTraversal<>();
+                // create step
+                Neo4JVertexPathStep pathStep = new Neo4JVertexPathStep(traversal, path);
+                // insert step in traversal
+                TraversalHelper.insertBeforeStep(pathStep, (Step)currentStep, traversal);
+                // move steps
+                for (Step<?, ?> item : steps) {
+                    // remove step from traversal
+                    traversal.removeStep(item);
+                    // append step to path
+                    path.addStep(item);
+                }
+            }
+            // next step
+            currentStep = steps.isEmpty() ? step.getNextStep() : step;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void foldEdges(Traversal.Admin<?, ?> traversal) {
+        // process edge steps
+        for (VertexStep<?> vertexStep : TraversalHelper.getStepsOfClass(VertexStep.class, traversal)) {
+            // check step returns edges
+            if (!vertexStep.returnsEdge())
+                continue;
+            // create step
+            Neo4JVertexEdgeStep edgeStep = new Neo4JVertexEdgeStep((VertexStep<Edge>)vertexStep);
+            // collect filters
+            List<Step<?, ?>> steps = new ArrayList<>();
+            Step<?, ?> currentStep = vertexStep.getNextStep();
+            while (currentStep instanceof HasStep && currentStep.getLabels().isEmpty()) {
+                // append containers
+                ((HasContainerHolder)currentStep).getHasContainers().forEach(edgeStep::addHasContainer);
+                // append filter
+                steps.add(currentStep);
+                // next step
+                currentStep = currentStep.getNextStep();
+            }
+            // top-N per traverser (order() and limit() steps are still evaluated in traversal)
+            boolean topN = false;
+            if (currentStep instanceof OrderGlobalStep && currentStep.getNextStep() instanceof RangeGlobalStep)
+                topN = edgeStep.setTopN(((OrderGlobalStep<?, ?>)currentStep).getComparators(), ((RangeGlobalStep<?>)currentStep.getNextStep()).getHighRange());
+            else if (currentStep instanceof RangeGlobalStep)
+                topN = edgeStep.setTopN(Collections.emptyList(), ((RangeGlobalStep<?>)currentStep).getHighRange());
+            // check there is something to evaluate in database
+            if (steps.isEmpty() && !topN)
+                continue;
+            // replace step
+            TraversalHelper.replaceStep((Step)vertexStep, edgeStep, traversal);
+            // remove filters
+            steps.forEach(traversal::removeStep);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void foldDegrees(Traversal.Admin<?, ?> traversal) {
+        // process adjacency steps
+        for (VertexStep<?> vertexStep : TraversalHelper.getStepsOfClass(VertexStep.class, traversal)) {
+            // check step is followed by count() (edges are not part of the traversal path)
+            if (vertexStep.getLabels().isEmpty() && vertexStep.getNextStep() instanceof CountGlobalStep) {
+                // replace step
+                TraversalHelper.replaceStep((Step)vertexStep, new Neo4JVertexDegreeStep(vertexStep), traversal);
+            }
+        }
+    }
+
+    private static boolean isPathChild(Traversal.Admin<?, ?> traversal) {
+        // process parent steps
+        Step<?, ?> step = traversal.getParent().asStep();
+        while (!(step instanceof EmptyStep)) {
+            // check path step
+            if (step instanceof Neo4JVertexPathStep)
+                return true;
+            // next parent
+            step = step.getTraversal().getParent().asStep();
+        }
+        return false;
+    }
+
+    private static boolean isUnrollable(RepeatStep<?> repeatStep) {
+        // check times(n) and emit() modulators
+        if (repeatStep.untilFirst || !(repeatStep.getUntilTraversal() instanceof LoopTraversal) || (repeatStep.getEmitTraversal() != null && !(repeatStep.getEmitTraversal() instanceof TrueTraversal)))
+            return false;
+        // repeated steps
+        List<Step> steps = repeatStep.getGlobalChildren().get(0).getSteps();
+        // check first step is an adjacency step
+        if (steps.isEmpty() || !(steps.get(0) instanceof VertexStep))
+            return false;
+        // check repeated steps
+        long hops = 0;
+        for (Step<?, ?> step : steps) {
+            // check adjacency step
+            if (step instanceof VertexStep && ((VertexStep<?>)step).returnsVertex() && step.getLabels().isEmpty())
+                hops++;
+            else if (!(step instanceof RepeatStep.RepeatEndStep) && !(step instanceof HasStep && step.getLabels().isEmpty()))
+                return false;
+        }
+        // number of hops in unrolled path
+        hops *= ((LoopTraversal<?>)repeatStep.getUntilTraversal()).getMaxLoops();
+        // check path has more than one hop (or vertices are emitted) and the statement size is bounded
+        return (hops > 1 || repeatStep.getEmitTraversal() != null) && hops > 0 && hops <= MaxUnrolledHops;
+    }
+
+    /**
+     * Gets the {@link Neo4JVertexStepStrategy} instance.
+     *
+     * @return The {@link Neo4JVertexStepStrategy} instance.
+     */
+    public static Neo4JVertexStepStrategy instance() {
+        return Instance;
+    }
+}
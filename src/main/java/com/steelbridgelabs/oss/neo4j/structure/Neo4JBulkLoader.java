@@ -0,0 +1,454 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads vertices and edges into the database without creating {@link Neo4JVertex} and {@link Neo4JEdge} instances.
+ * Elements are written in batched UNWIND statements and committed every <code>commitSize</code> elements, the
+ * loader is not attached to the {@link Neo4JGraph} transaction and elements are not visible in the graph session.
+ *
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JBulkLoader implements AutoCloseable {
+
+    /**
+     * Describes a vertex to be loaded by the {@link Neo4JBulkLoader}.
+     */
+    public static class VertexDescriptor {
+
+        private final String label;
+        private final Object[] keyValues;
+
+        private Object id;
+
+        /**
+         * Creates a {@link VertexDescriptor} instance.
+         *
+         * @param label     The vertex label, multiple labels are separated by {@link Neo4JVertex#LabelDelimiter}.
+         * @param keyValues The vertex property key/value pairs.
+         */
+        public VertexDescriptor(String label, Object... keyValues) {
+            Objects.requireNonNull(label, "label cannot be null");
+            Objects.requireNonNull(keyValues, "keyValues cannot be null");
+            // store fields
+            this.label = label;
+            this.keyValues = keyValues;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public Object[] keyValues() {
+            return keyValues;
+        }
+
+        /**
+         * Gets the vertex identifier generated by the {@link Neo4JBulkLoader}.
+         *
+         * @return The vertex identifier, <code>null</code> if the vertex has not been processed by the loader.
+         */
+        public Object id() {
+            return id;
+        }
+    }
+
+    /**
+     * Describes an edge to be loaded by the {@link Neo4JBulkLoader}.
+     */
+    public static class EdgeDescriptor {
+
+        private final String label;
+        private final String outLabel;
+        private final Object outId;
+        private final String inLabel;
+        private final Object inId;
+        private final Object[] keyValues;
+
+        private Object id;
+
+        /**
+         * Creates a {@link EdgeDescriptor} instance.
+         *
+         * @param label     The edge label.
+         * @param outLabel  The out vertex label (used to locate the vertex in the database), <code>null</code> if not known.
+         * @param outId     The out vertex identifier.
+         * @param inLabel   The in vertex label (used to locate the vertex in the database), <code>null</code> if not known.
+         * @param inId      The in vertex identifier.
+         * @param keyValues The edge property key/value pairs.
+         */
+        public EdgeDescriptor(String label, String outLabel, Object outId, String inLabel, Object inId, Object... keyValues) {
+            Objects.requireNonNull(label, "label cannot be null");
+            Objects.requireNonNull(outId, "outId cannot be null");
+            Objects.requireNonNull(inId, "inId cannot be null");
+            Objects.requireNonNull(keyValues, "keyValues cannot be null");
+            // store fields
+            this.label = label;
+            this.outLabel = outLabel;
+            this.outId = outId;
+            this.inLabel = inLabel;
+            this.inId = inId;
+            this.keyValues = keyValues;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public String outLabel() {
+            return outLabel;
+        }
+
+        public Object outId() {
+            return outId;
+        }
+
+        public String inLabel() {
+            return inLabel;
+        }
+
+        public Object inId() {
+            return inId;
+        }
+
+        public Object[] keyValues() {
+            return keyValues;
+        }
+
+        /**
+         * Gets the edge identifier generated by the {@link Neo4JBulkLoader}.
+         *
+         * @return The edge identifier, <code>null</code> if the edge has not been processed by the loader.
+         */
+        public Object id() {
+            return id;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(Neo4JBulkLoader.class);
+
+    public static final int DefaultCommitSize = 10000;
+
+    private final Session session;
+    private final Neo4JElementIdProvider<?> vertexIdProvider;
+    private final Neo4JElementIdProvider<?> edgeIdProvider;
+    private final String vertexIdFieldName;
+    private final String edgeIdFieldName;
+    private final Collection<String> additionalLabels;
+    private final int commitSize;
+    private final int batchSize;
+    private final long startTime;
+    private final Neo4JStatementTemplateCache templates = new Neo4JStatementTemplateCache();
+
+    private Neo4JStatementBatch vertices;
+    private Neo4JStatementBatch edges;
+    private long pendingCount = 0;
+    private long vertexCount = 0;
+    private long edgeCount = 0;
+
+    /**
+     * Creates a {@link Neo4JBulkLoader} instance.
+     *
+     * @param graph            The {@link Neo4JGraph} instance (source of the additional vertex labels and batch size).
+     * @param session          The {@link Session} used to write elements, it will be closed by the loader.
+     * @param vertexIdProvider The {@link Neo4JElementIdProvider} for the {@link Vertex} id generation.
+     * @param edgeIdProvider   The {@link Neo4JElementIdProvider} for the edge id generation.
+     * @param commitSize       The number of elements written in a single transaction.
+     */
+    Neo4JBulkLoader(Neo4JGraph graph, Session session, Neo4JElementIdProvider<?> vertexIdProvider, Neo4JElementIdProvider<?> edgeIdProvider, int commitSize) {
+        Objects.requireNonNull(graph, "graph cannot be null");
+        Objects.requireNonNull(session, "session cannot be null");
+        Objects.requireNonNull(vertexIdProvider, "vertexIdProvider cannot be null");
+        Objects.requireNonNull(edgeIdProvider, "edgeIdProvider cannot be null");
+        if (commitSize <= 0)
+            throw new IllegalArgumentException("commitSize must be greater than zero");
+        // store fields
+        this.session = session;
+        this.vertexIdProvider = vertexIdProvider;
+        this.edgeIdProvider = edgeIdProvider;
+        this.vertexIdFieldName = vertexIdProvider.idFieldName();
+        this.edgeIdFieldName = edgeIdProvider.idFieldName();
+        this.additionalLabels = graph.vertexLabels();
+        this.batchSize = graph.getBatchSize();
+        this.commitSize = commitSize;
+        // initialize batches
+        this.vertices = new Neo4JStatementBatch(batchSize);
+        this.edges = new Neo4JStatementBatch(batchSize);
+        // start time (throughput)
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Adds a vertex to the loader.
+     *
+     * @param label     The vertex label, multiple labels are separated by {@link Neo4JVertex#LabelDelimiter}.
+     * @param keyValues The vertex property key/value pairs.
+     * @return The identifier of the new vertex.
+     */
+    public Object addVertex(String label, Object... keyValues) {
+        Objects.requireNonNull(label, "label cannot be null");
+        Objects.requireNonNull(keyValues, "keyValues cannot be null");
+        // validate labels
+        validateLabels(label);
+        // generate id
+        Object id = vertexIdProvider.processIdentifier(vertexIdProvider.generateId());
+        // row
+        Map<String, Object> row = properties(keyValues);
+        row.put(vertexIdFieldName, id);
+        // vertices with the same label share the statement
+        vertices.add(templates.template(() -> {
+            // vertex labels (labels + additional labels)
+            SortedSet<String> labels = Stream.concat(Arrays.stream(label.split(Neo4JVertex.LabelDelimiter)), additionalLabels.stream()).collect(Collectors.toCollection(TreeSet::new));
+            // statement text
+            return "UNWIND {" + Neo4JStatementBatch.RowsParameterName + "} AS row CREATE (n" + processLabels(labels) + ") SET n = row";
+        }, "vertex", label), row);
+        // update counters
+        vertexCount++;
+        pendingCount++;
+        // commit if needed
+        if (pendingCount >= commitSize)
+            flush();
+        // return identifier
+        return id;
+    }
+
+    /**
+     * Adds an edge to the loader.
+     *
+     * @param label     The edge label.
+     * @param outLabel  The out vertex label (used to locate the vertex in the database), <code>null</code> if not known.
+     * @param outId     The out vertex identifier.
+     * @param inLabel   The in vertex label (used to locate the vertex in the database), <code>null</code> if not known.
+     * @param inId      The in vertex identifier.
+     * @param keyValues The edge property key/value pairs.
+     * @return The identifier of the new edge.
+     */
+    public Object addEdge(String label, String outLabel, Object outId, String inLabel, Object inId, Object... keyValues) {
+        Objects.requireNonNull(label, "label cannot be null");
+        Objects.requireNonNull(outId, "outId cannot be null");
+        Objects.requireNonNull(inId, "inId cannot be null");
+        Objects.requireNonNull(keyValues, "keyValues cannot be null");
+        // validate labels
+        validateLabel(label);
+        if (outLabel != null)
+            validateLabels(outLabel);
+        if (inLabel != null)
+            validateLabels(inLabel);
+        // generate id
+        Object id = edgeIdProvider.processIdentifier(edgeIdProvider.generateId());
+        // edge properties
+        Map<String, Object> properties = properties(keyValues);
+        properties.put(edgeIdFieldName, id);
+        // row
+        Map<String, Object> row = new HashMap<>();
+        row.put("oid", outId);
+        row.put("iid", inId);
+        row.put("ep", properties);
+        // edges with the same label and vertex labels share the statement
+        edges.add(templates.template(() -> "UNWIND {" + Neo4JStatementBatch.RowsParameterName + "} AS row MATCH " + vertexMatchPattern("o", outLabel, "oid") + ", " + vertexMatchPattern("i", inLabel, "iid") + " CREATE (o)-[r:`" + label + "`]->(i) SET r = row.ep", "edge", label, outLabel, inLabel), row);
+        // update counters
+        edgeCount++;
+        pendingCount++;
+        // commit if needed
+        if (pendingCount >= commitSize)
+            flush();
+        // return identifier
+        return id;
+    }
+
+    /**
+     * Adds the vertices in the stream to the loader, the generated identifiers are available in the descriptors
+     * once processed.
+     *
+     * @param vertices The vertices to load.
+     * @return The number of vertices processed.
+     */
+    public long addVertices(Stream<VertexDescriptor> vertices) {
+        Objects.requireNonNull(vertices, "vertices cannot be null");
+        // current number of vertices
+        long count = vertexCount;
+        // process stream
+        vertices.forEachOrdered(vertex -> vertex.id = addVertex(vertex.label, vertex.keyValues));
+        // number of vertices processed
+        return vertexCount - count;
+    }
+
+    /**
+     * Adds the edges in the stream to the loader, the generated identifiers are available in the descriptors
+     * once processed.
+     *
+     * @param edges The edges to load.
+     * @return The number of edges processed.
+     */
+    public long addEdges(Stream<EdgeDescriptor> edges) {
+        Objects.requireNonNull(edges, "edges cannot be null");
+        // current number of edges
+        long count = edgeCount;
+        // process stream
+        edges.forEachOrdered(edge -> edge.id = addEdge(edge.label, edge.outLabel, edge.outId, edge.inLabel, edge.inId, edge.keyValues));
+        // number of edges processed
+        return edgeCount - count;
+    }
+
+    /**
+     * Writes the pending elements to the database and commits the transaction.
+     */
+    public void flush() {
+        // check we have pending elements
+        if (pendingCount > 0) {
+            // statements (vertices before edges)
+            Collection<Statement> statements = new ArrayList<>(vertices.statements());
+            statements.addAll(edges.statements());
+            // begin transaction
+            try (Transaction transaction = session.beginTransaction()) {
+                // execute statements
+                for (Statement statement : statements) {
+                    // log information
+                    if (logger.isDebugEnabled())
+                        logger.debug("Executing Cypher statement on transaction [{}]: {}", transaction.hashCode(), statement.text());
+                    // execute statement
+                    ResultSummaryLogger.log(transaction.run(statement).consume());
+                }
+                // commit transaction
+                transaction.success();
+            }
+            // reset batches
+            vertices = new Neo4JStatementBatch(batchSize);
+            edges = new Neo4JStatementBatch(batchSize);
+            pendingCount = 0;
+            // log information
+            if (logger.isInfoEnabled())
+                logger.info("Bulk loader committed {} vertices and {} edges ({} elements/s)", vertexCount, edgeCount, String.format("%.2f", throughput()));
+        }
+    }
+
+    /**
+     * Gets the number of vertices added to the loader.
+     *
+     * @return The number of vertices.
+     */
+    public long vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of edges added to the loader.
+     *
+     * @return The number of edges.
+     */
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the number of elements (vertices and edges) added to the loader per second since the loader was created.
+     *
+     * @return The loader throughput in elements per second.
+     */
+    public double throughput() {
+        // elapsed time in seconds
+        double elapsed = (System.nanoTime() - startTime) / 1000000000.0;
+        // elements per second
+        return elapsed > 0 ? (vertexCount + edgeCount) / elapsed : 0;
+    }
+
+    /**
+     * Writes the pending elements to the database and closes the loader.
+     */
+    @Override
+    public void close() {
+        try {
+            // commit pending elements
+            flush();
+        }
+        finally {
+            // close session
+            session.close();
+        }
+    }
+
+    private static Map<String, Object> properties(Object... keyValues) {
+        // verify parameters are key/value pairs
+        ElementHelper.legalPropertyKeyValueArray(keyValues);
+        // id cannot be present
+        if (ElementHelper.getIdValue(keyValues).isPresent())
+            throw Vertex.Exceptions.userSuppliedIdsNotSupported();
+        // process key values
+        Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i = i + 2) {
+            // skip label (T.label)
+            if (keyValues[i] instanceof String) {
+                // key & value
+                String key = (String)keyValues[i];
+                Object value = keyValues[i + 1];
+                // validate property
+                ElementHelper.validateProperty(key, value);
+                // store value (collections are stored as lists)
+                properties.put(key, value instanceof Collection ? new ArrayList<>((Collection<?>)value) : value);
+            }
+        }
+        return properties;
+    }
+
+    private static void validateLabels(String label) {
+        // validate each label (trailing empty labels are not discarded)
+        for (String item : label.split(Neo4JVertex.LabelDelimiter, -1))
+            validateLabel(item);
+    }
+
+    private static void validateLabel(String label) {
+        // validate label (null, empty, hidden)
+        ElementHelper.validateLabel(label);
+        // labels are quoted in the statement text
+        if (label.contains("`"))
+            throw new IllegalArgumentException("label cannot contain backticks: " + label);
+    }
+
+    private String vertexMatchPattern(String alias, String label, String fieldName) {
+        // vertex labels (label + additional labels)
+        SortedSet<String> labels = Stream.concat(label != null ? Arrays.stream(label.split(Neo4JVertex.LabelDelimiter)) : Stream.empty(), additionalLabels.stream()).collect(Collectors.toCollection(TreeSet::new));
+        // generate match pattern
+        return "(" + alias + processLabels(labels) + "{" + vertexIdFieldName + ": row." + fieldName + "})";
+    }
+
+    private static String processLabels(Collection<String> labels) {
+        // labels
+        return labels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining(""));
+    }
+}
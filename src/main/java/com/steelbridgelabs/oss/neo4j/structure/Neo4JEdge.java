@@ -28,7 +28,6 @@ import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.neo4j.driver.v1.Statement;
 import org.neo4j.driver.v1.Value;
-import org.neo4j.driver.v1.Values;
 import org.neo4j.driver.v1.types.Relationship;
 
 import java.util.Arrays;
@@ -38,6 +37,8 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -86,7 +87,14 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
         @Override
         public void remove() {
             // remove from edge
-            edge.properties.remove(name);
+            if (edge.properties.remove(name) != null) {
+                // update flag
+                edge.dirty = true;
+                // property must be updated in database
+                edge.dirtyProperties.add(name);
+                // set edge as dirty
+                edge.session.dirtyEdge(edge);
+            }
         }
 
         @Override
@@ -105,9 +113,12 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
         }
     }
 
+    private static final Neo4JStatementTemplateCache templates = new Neo4JStatementTemplateCache();
+
     private final Neo4JGraph graph;
     private final Neo4JSession session;
     private final Map<String, Neo4JEdgeProperty> properties = new HashMap<>();
+    private final SortedSet<String> dirtyProperties = new TreeSet<>();
     private final String idFieldName;
     private final Object id;
     private final String label;
@@ -117,6 +128,8 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
     private boolean dirty = false;
     private boolean newEdge;
     private Map<String, Neo4JEdgeProperty> originalProperties;
+    private Map<String, Neo4JEdgeProperty> transactionProperties = null;
+    private boolean transactionNewEdge = false;
 
     Neo4JEdge(Neo4JGraph graph, Neo4JSession session, Neo4JElementIdProvider provider, Object id, String label, Neo4JVertex out, Neo4JVertex in) {
         Objects.requireNonNull(graph, "graph cannot be null");
@@ -176,8 +189,9 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
      */
     @Override
     public Iterator<Vertex> vertices(Direction direction) {
-        // transaction should be ready for io operations
-        graph.tx().readWrite();
+        // transaction should be ready for io operations (vertices of a detached edge are in memory)
+        if (!session.isDetached())
+            graph.tx().readWrite();
         // out direction
         if (direction == Direction.OUT)
             return Stream.of((Vertex)out).iterator();
@@ -228,16 +242,20 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
     @Override
     public <V> Property<V> property(String name, V value) {
         ElementHelper.validateProperty(name, value);
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
         // transaction should be ready for io operations
         graph.tx().readWrite();
         // property value for key
         Neo4JEdgeProperty<V> propertyValue = new Neo4JEdgeProperty<>(this, name, value);
         // update map
         properties.put(name, propertyValue);
-        // set edge as dirty
-        session.dirtyEdge(this);
         // update flag
         dirty = true;
+        // property must be updated in database
+        dirtyProperties.add(name);
+        // set edge as dirty
+        session.dirtyEdge(this);
         // return property
         return propertyValue;
     }
@@ -262,6 +280,8 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
      */
     @Override
     public void remove() {
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
         // transaction should be ready for io operations
         graph.tx().readWrite();
         // remove edge on session
@@ -312,41 +332,141 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
 
     @Override
     public Statement insertStatement() {
-        // create statement
-        String statement = "MATCH " + out.matchPattern("o", "oid") + ", " + in.matchPattern("i", "iid") + " CREATE (o)-[r:`" + label + "`{ep}]->(i)";
-        // parameters
-        Value parameters = Values.parameters("oid", out.id(), "iid", in.id(), "ep", statementParameters());
+        // create batch for a single edge
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(1);
+        // append insert statement
+        insertStatement(batch);
+        // command statement
+        return batch.statements().get(0);
+    }
+
+    @Override
+    void insertStatement(Neo4JStatementBatch batch) {
+        // row
+        Map<String, Object> row = new HashMap<>();
+        row.put("oid", out.id());
+        row.put("iid", in.id());
+        row.put("ep", statementParameters());
+        // edges with the same label and vertex labels share the statement
+        batch.add(templates.template(() -> "UNWIND {" + Neo4JStatementBatch.RowsParameterName + "} AS row MATCH " + out.rowMatchPattern("o", "oid") + ", " + in.rowMatchPattern("i", "iid") + " CREATE (o)-[r:`" + label + "`]->(i) SET r = row.ep", "insert", label, out.matchLabels(), in.matchLabels(), out.idFieldName()), row);
         // reset flags
         dirty = false;
-        // command statement
-        return new Statement(statement, parameters);
     }
 
     @Override
     public Statement updateStatement() {
-        // update statement
-        String statement = "MATCH " + out.matchPattern("o", "oid") + ", " + in.matchPattern("i", "iid") + " MERGE (o)-[r:`" + label + "`{" + idFieldName + ": {id}}]->(i) ON MATCH SET r = {rp}";
-        // parameters
-        Value parameters = Values.parameters("oid", out.id(), "iid", in.id(), "id", id, "rp", statementParameters());
+        // create batch for a single edge
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(1);
+        // append update statement
+        updateStatement(batch);
+        // check we need to issue statement (adding a property and then removing it will set the edge as dirty in session but nothing to do)
+        return !batch.isEmpty() ? batch.statements().get(0) : null;
+    }
+
+    @Override
+    void updateStatement(Neo4JStatementBatch batch) {
+        // property values added or changed in session
+        Map<String, Object> values = new HashMap<>();
+        // property keys to be removed from relationship (sorted, they are part of the statement text)
+        SortedSet<String> removedProperties = new TreeSet<>();
+        // process dirty properties
+        for (String key : dirtyProperties) {
+            // current value
+            Neo4JEdgeProperty property = properties.get(key);
+            if (property != null)
+                values.put(key, property.value());
+            else if (originalProperties.containsKey(key))
+                removedProperties.add(key);
+        }
+        // check we need to issue statement
+        if (!values.isEmpty() || !removedProperties.isEmpty()) {
+            // edges with the same label, vertex labels and set of removed properties share the statement
+            String statement = templates.template(() -> {
+                // create builder
+                StringBuilder builder = new StringBuilder();
+                // match statement
+                builder.append("UNWIND {").append(Neo4JStatementBatch.RowsParameterName).append("} AS row MATCH ").append(out.rowMatchPattern("o", "oid")).append("-[r:`").append(label).append("`{").append(idFieldName).append(": row.id}]->").append(in.rowMatchPattern("i", "iid"));
+                // set clause
+                if (!values.isEmpty())
+                    builder.append(" SET r += row.rp");
+                // remove clause
+                if (!removedProperties.isEmpty())
+                    builder.append(" REMOVE ").append(removedProperties.stream().map(key -> "r.`" + key + "`").collect(Collectors.joining(", ")));
+                // statement text
+                return builder.toString();
+            }, "update", label, out.matchLabels(), in.matchLabels(), out.idFieldName(), idFieldName, !values.isEmpty(), removedProperties);
+            // row
+            Map<String, Object> row = new HashMap<>();
+            row.put("oid", out.id());
+            row.put("iid", in.id());
+            row.put("id", id);
+            row.put("rp", values);
+            // append row
+            batch.add(statement, row);
+        }
         // reset flags
         dirty = false;
-        // command statement
-        return new Statement(statement, parameters);
     }
 
     @Override
     public Statement deleteStatement() {
-        // delete statement
-        String statement = "MATCH " + out.matchPattern("o", "oid") + "-[r:`" + label + "`{" + idFieldName + ": {id}}]->" + in.matchPattern("i", "iid") + " DELETE r";
-        // parameters
-        Value parameters = Values.parameters("oid", out.id(), "iid", in.id(), "id", id);
+        // create batch for a single edge
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(1);
+        // append delete statement
+        deleteStatement(batch);
         // command statement
-        return new Statement(statement, parameters);
+        return batch.statements().get(0);
+    }
+
+    @Override
+    void deleteStatement(Neo4JStatementBatch batch) {
+        // row
+        Map<String, Object> row = new HashMap<>();
+        row.put("oid", out.id());
+        row.put("iid", in.id());
+        row.put("id", id);
+        // edges with the same label and vertex labels share the statement
+        batch.add(templates.template(() -> "UNWIND {" + Neo4JStatementBatch.RowsParameterName + "} AS row MATCH " + out.rowMatchPattern("o", "oid") + "-[r:`" + label + "`{" + idFieldName + ": row.id}]->" + in.rowMatchPattern("i", "iid") + " DELETE r", "delete", label, out.matchLabels(), in.matchLabels(), out.idFieldName(), idFieldName), row);
+    }
+
+    /**
+     * Gets the out vertex without opening a transaction (see {@link #outVertex()}).
+     *
+     * @return The out vertex.
+     */
+    Neo4JVertex out() {
+        return out;
+    }
+
+    /**
+     * Gets the in vertex without opening a transaction (see {@link #inVertex()}).
+     *
+     * @return The in vertex.
+     */
+    Neo4JVertex in() {
+        return in;
+    }
+
+    void flush() {
+        // keep state at the beginning of the transaction (restored on rollback)
+        if (transactionProperties == null) {
+            transactionProperties = originalProperties;
+            transactionNewEdge = newEdge;
+        }
+        // state in database is the flushed one (changes after flush are relative to it)
+        originalProperties = new HashMap<>(properties);
+        dirtyProperties.clear();
+        // reset flags
+        dirty = false;
+        newEdge = false;
     }
 
     void commit() {
+        // flushed state is committed
+        transactionProperties = null;
         // commit property values
         originalProperties = new HashMap<>(properties);
+        dirtyProperties.clear();
         // reset flags
         dirty = false;
         // this is no longer a transient edge
@@ -354,12 +474,27 @@ public class Neo4JEdge extends Neo4JElement implements Edge {
     }
 
     void rollback() {
+        // check changes were flushed in transaction
+        if (transactionProperties != null) {
+            // restore state at the beginning of the transaction
+            originalProperties = transactionProperties;
+            newEdge = transactionNewEdge;
+            transactionProperties = null;
+        }
+        // check edge was created in transaction (it is transient, keep its state)
+        if (newEdge) {
+            // reset flags
+            dirtyProperties.clear();
+            dirty = false;
+            return;
+        }
         // restore edge references
         out.addOutEdge(this);
         in.addInEdge(this);
         // restore property values
         properties.clear();
         properties.putAll(originalProperties);
+        dirtyProperties.clear();
         // reset flags
         dirty = false;
     }
@@ -33,10 +33,16 @@ abstract class Neo4JElement implements Element {
 
     public abstract Statement insertStatement();
 
+    abstract void insertStatement(Neo4JStatementBatch batch);
+
     public abstract Statement updateStatement();
 
+    abstract void updateStatement(Neo4JStatementBatch batch);
+
     public abstract Statement deleteStatement();
 
+    abstract void deleteStatement(Neo4JStatementBatch batch);
+
     public abstract boolean isDirty();
 
     public abstract boolean isTransient();
@@ -18,10 +18,13 @@
 
 package com.steelbridgelabs.oss.neo4j.structure;
 
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JGraphStepStrategy;
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JVertexStepStrategy;
 import com.steelbridgelabs.oss.neo4j.structure.partitions.NoReadPartition;
-import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
 import org.apache.commons.configuration.Configuration;
 import org.apache.tinkerpop.gremlin.process.computer.GraphComputer;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
+import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Transaction;
@@ -30,18 +33,25 @@ import org.apache.tinkerpop.gremlin.structure.util.AbstractThreadLocalTransactio
 import org.apache.tinkerpop.gremlin.structure.util.GraphFactoryClass;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Statement;
 import org.neo4j.driver.v1.StatementResult;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Rogelio J. Baucells
@@ -51,6 +61,8 @@ import java.util.stream.Collectors;
 @GraphFactoryClass(Neo4JGraphFactory.class)
 public class Neo4JGraph implements Graph {
 
+    public static final int DefaultBatchSize = 1000;
+
     private class Neo4JTransaction extends AbstractThreadLocalTransaction {
 
         public Neo4JTransaction() {
@@ -100,6 +112,11 @@ public class Neo4JGraph implements Graph {
         }
     }
 
+    static {
+        // register provider strategies (Cypher compilation of graph and adjacency steps)
+        TraversalStrategies.GlobalCache.registerStrategies(Neo4JGraph.class, TraversalStrategies.GlobalCache.getStrategies(Graph.class).clone().addStrategies(Neo4JGraphStepStrategy.instance(), Neo4JVertexStepStrategy.instance()));
+    }
+
     private final Neo4JReadPartition partition;
     private final Set<String> vertexLabels;
     private final Driver driver;
@@ -108,6 +125,13 @@ public class Neo4JGraph implements Graph {
     private final ThreadLocal<Neo4JSession> session = ThreadLocal.withInitial(() -> null);
     private final Neo4JTransaction transaction = new Neo4JTransaction();
 
+    private int batchSize = DefaultBatchSize;
+    private boolean pipelinedFlushEnabled = false;
+    private int flushThreshold = 0;
+    private int scanPageSize = 0;
+    private int expansionBatchSize = 0;
+    private int supernodeDegreeThreshold = 0;
+
     /**
      * Creates a {@link Neo4JGraph} instance.
      *
@@ -186,6 +210,24 @@ public class Neo4JGraph implements Graph {
         return vertexLabels;
     }
 
+    /**
+     * Gets the {@link Neo4JElementIdProvider} used for {@link Vertex} identifiers.
+     *
+     * @return The vertex identifier provider.
+     */
+    public Neo4JElementIdProvider<?> getVertexIdProvider() {
+        return vertexIdProvider;
+    }
+
+    /**
+     * Gets the {@link Neo4JElementIdProvider} used for {@link Edge} identifiers.
+     *
+     * @return The edge identifier provider.
+     */
+    public Neo4JElementIdProvider<?> getEdgeIdProvider() {
+        return edgeIdProvider;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -199,6 +241,93 @@ public class Neo4JGraph implements Graph {
         return session.addVertex(keyValues);
     }
 
+    /**
+     * Creates a {@link Neo4JBulkLoader} instance to load elements into the database without tracking them in the
+     * current session, elements are committed every {@link Neo4JBulkLoader#DefaultCommitSize} elements.
+     *
+     * @return The {@link Neo4JBulkLoader} instance, it must be closed to commit pending elements.
+     */
+    public Neo4JBulkLoader bulkLoader() {
+        // use overloaded method
+        return bulkLoader(Neo4JBulkLoader.DefaultCommitSize);
+    }
+
+    /**
+     * Creates a {@link Neo4JBulkLoader} instance to load elements into the database without tracking them in the
+     * current session.
+     *
+     * @param commitSize The number of elements written in a single transaction.
+     * @return The {@link Neo4JBulkLoader} instance, it must be closed to commit pending elements.
+     */
+    public Neo4JBulkLoader bulkLoader(int commitSize) {
+        // create loader on a new session
+        return new Neo4JBulkLoader(this, driver.session(), vertexIdProvider, edgeIdProvider, commitSize);
+    }
+
+    /**
+     * Creates a parallel {@link Stream} with all vertices in the graph partition. The vertex identifier space is split
+     * into ranges and each range is scanned on its own database session (and read transaction), ranges are processed
+     * by the {@link java.util.concurrent.ForkJoinPool} executing the stream. Vertices are detached read only snapshots
+     * that are not tracked by any session, traversing or modifying them throws an {@link IllegalStateException} (load
+     * the vertex from the graph to do it), vertex identifiers must be numeric
+     * (e.g. {@link com.steelbridgelabs.oss.neo4j.structure.providers.DatabaseSequenceElementIdProvider}).
+     *
+     * @param ranges The number of identifier ranges to scan in parallel.
+     * @return The parallel {@link Stream}, it must be closed if it is not fully consumed.
+     */
+    public Stream<Vertex> parallelVertices(int ranges) {
+        // scan vertex identifier ranges
+        return parallelScan(ranges, Neo4JSession::vertexIdentifierRange, Neo4JSession::scanVertices);
+    }
+
+    /**
+     * Creates a parallel {@link Stream} with all edges in the graph partition. The edge identifier space is split
+     * into ranges and each range is scanned on its own database session (and read transaction), ranges are processed
+     * by the {@link java.util.concurrent.ForkJoinPool} executing the stream. Edges are detached read only snapshots
+     * that are not tracked by any session, traversing or modifying them throws an {@link IllegalStateException} (load
+     * the edge from the graph to do it), edge identifiers must be numeric
+     * (e.g. {@link com.steelbridgelabs.oss.neo4j.structure.providers.DatabaseSequenceElementIdProvider}).
+     *
+     * @param ranges The number of identifier ranges to scan in parallel.
+     * @return The parallel {@link Stream}, it must be closed if it is not fully consumed.
+     */
+    public Stream<Edge> parallelEdges(int ranges) {
+        // scan edge identifier ranges
+        return parallelScan(ranges, Neo4JSession::edgeIdentifierRange, Neo4JSession::scanEdges);
+    }
+
+    private <T> Stream<T> parallelScan(int ranges, Function<Neo4JSession, long[]> identifierRange, Neo4JRangeSpliterator.RangeScan<T> rangeScan) {
+        // validate argument
+        if (ranges <= 0)
+            throw new IllegalArgumentException("ranges must be greater than zero");
+        // identifiers range
+        long[] range;
+        // find minimum and maximum identifiers
+        try (Neo4JSession session = scanSession()) {
+            // execute statement
+            range = identifierRange.apply(session);
+        }
+        // check graph is empty
+        if (range == null)
+            return Stream.empty();
+        // spliterators with an open session
+        Set<Neo4JRangeSpliterator<?>> registry = ConcurrentHashMap.newKeySet();
+        // create stream, range is split in the number of requested ranges
+        return StreamSupport.stream(new Neo4JRangeSpliterator<>(this::scanSession, rangeScan, range[0], range[1], Neo4JRangeSpliterator.size(range[0], range[1]) / ranges, registry), true)
+            .onClose(() -> new ArrayList<>(registry).forEach(Neo4JRangeSpliterator::close));
+    }
+
+    private Neo4JSession scanSession() {
+        // create session (not attached to current thread)
+        Neo4JSession session = new Neo4JSession(this, driver.session(), vertexIdProvider, edgeIdProvider);
+        // elements loaded by the session are detached snapshots (session is closed once its range is scanned)
+        session.detachElements();
+        // begin read transaction (never committed)
+        session.beginTransaction();
+        // return session
+        return session;
+    }
+
     /**
      * Creates an index in the neo4j database.
      *
@@ -251,16 +380,30 @@ public class Neo4JGraph implements Graph {
         Neo4JSession session = currentSession();
         // transaction should be ready for io operations
         transaction.readWrite();
-        // execute statement
-        StatementResult result = session.executeStatement(statement);
-        // find vertices
-        Iterator<Vertex> iterator = session.vertices(result)
-            .collect(Collectors.toCollection(LinkedList::new))
-            .iterator();
-        // process summary (query has been already consumed by collect)
-        ResultSummaryLogger.log(result.consume());
-        // return iterator
-        return iterator;
+        // find vertices (records are loaded on demand)
+        return session.vertices(statement);
+    }
+
+    /**
+     * Executes a Cypher statement returning vertices (first column in result) and merges the result with the state of
+     * the current transaction: vertices created or modified in the transaction are evaluated in memory with the
+     * given predicate (the statement cannot see their current state) and vertices returned by the statement are
+     * evaluated again with the predicate. The statement must return at least all vertices in the database
+     * satisfying the predicate.
+     *
+     * @param statement The Cypher statement.
+     * @param predicate The predicate all returned vertices must satisfy.
+     * @return The vertices iterator.
+     */
+    public Iterator<Vertex> vertices(Statement statement, Predicate<? super Vertex> predicate) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        Objects.requireNonNull(predicate, "predicate cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // transaction should be ready for io operations
+        transaction.readWrite();
+        // find vertices (records are loaded on demand)
+        return session.vertices(statement, predicate);
     }
 
     public Iterator<Vertex> vertices(String statement) {
@@ -276,6 +419,24 @@ public class Neo4JGraph implements Graph {
         return vertices(new Statement(statement, parameters));
     }
 
+    /**
+     * Executes a Cypher statement returning a key (first column in result) and a vertex (second column in result) per
+     * record, e.g. the identifier of the vertex a path starts from and the vertex at the end of the path. Vertices
+     * are loaded into the current transaction on demand.
+     *
+     * @param statement The Cypher statement.
+     * @return The iterator of key and vertex pairs.
+     */
+    public Iterator<Map.Entry<Object, Vertex>> keyedVertices(Statement statement) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // transaction should be ready for io operations
+        transaction.readWrite();
+        // find vertices (records are loaded on demand)
+        return session.keyedVertices(statement);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -295,16 +456,30 @@ public class Neo4JGraph implements Graph {
         Neo4JSession session = currentSession();
         // transaction should be ready for io operations
         transaction.readWrite();
-        // execute statement
-        StatementResult result = session.executeStatement(statement);
-        // find edges
-        Iterator<Edge> iterator = session.edges(result)
-            .collect(Collectors.toCollection(LinkedList::new))
-            .iterator();
-        // process summary (query has been already consumed by collect)
-        ResultSummaryLogger.log(result.consume());
-        // return iterator
-        return iterator;
+        // find edges (records are loaded on demand)
+        return session.edges(statement);
+    }
+
+    /**
+     * Executes a Cypher statement returning edges (<code>RETURN n, r, m</code>) and merges the result with the state
+     * of the current transaction: edges created or modified in the transaction are evaluated in memory with the
+     * given predicate (the statement cannot see their current state) and edges returned by the statement are
+     * evaluated again with the predicate. The statement must return at least all edges in the database
+     * satisfying the predicate.
+     *
+     * @param statement The Cypher statement.
+     * @param predicate The predicate all returned edges must satisfy.
+     * @return The edges iterator.
+     */
+    public Iterator<Edge> edges(Statement statement, Predicate<? super Edge> predicate) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        Objects.requireNonNull(predicate, "predicate cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // transaction should be ready for io operations
+        transaction.readWrite();
+        // find edges (records are loaded on demand)
+        return session.edges(statement, predicate);
     }
 
     public Iterator<Edge> edges(String statement) {
@@ -365,6 +540,203 @@ public class Neo4JGraph implements Graph {
         return execute(new Statement(statement, parameters));
     }
 
+    /**
+     * Executes the given statement on the current {@link Graph} instance, records are read on demand. The result is
+     * registered in the current transaction: records not processed are discarded when the stream is closed or the
+     * transaction is committed, rolled back or closed. WARNING: There is no guarantee that the results are confined
+     * within the current {@link Neo4JReadPartition}.
+     *
+     * @param statement The CYPHER statement.
+     * @return The {@link Stream} with the CYPHER statement execution records.
+     */
+    public Stream<Record> records(Statement statement) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // transaction should be ready for io operations
+        transaction.readWrite();
+        // execute statement
+        return session.records(statement);
+    }
+
+    /**
+     * Loads the edges of the given vertices into the current transaction with a single statement per group of vertices
+     * with the same labels, {@link Vertex#edges(Direction, String...)} and {@link Vertex#vertices(Direction, String...)}
+     * are resolved in memory for these vertices afterwards. Vertices with the requested edges already in memory are
+     * skipped.
+     *
+     * @param vertices  The vertices.
+     * @param direction The edge direction.
+     * @param labels    The edge labels, all edges if no labels are specified.
+     */
+    public void loadEdges(Collection<? extends Vertex> vertices, Direction direction, String... labels) {
+        Objects.requireNonNull(vertices, "vertices cannot be null");
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // get current session
+        Neo4JSession session = currentSession();
+        // transaction should be ready for io operations
+        transaction.readWrite();
+        // load edges
+        session.loadEdges(vertices.stream().filter(vertex -> vertex instanceof Neo4JVertex).map(vertex -> (Neo4JVertex)vertex).collect(Collectors.toList()), direction, new HashSet<>(Arrays.asList(labels)));
+    }
+
+    /**
+     * Loads the vertices and edges within <code>depth</code> hops of the given vertices (relationships are followed in
+     * both directions) into the current transaction with a single statement. The edges of the vertices closer than
+     * <code>depth</code> hops to the seeds are marked as loaded, traversals over the neighborhood are resolved in
+     * memory afterwards. The statement enumerates all paths up to <code>depth</code> hops, keep the depth small on
+     * dense graphs.
+     *
+     * @param seedIds           The identifiers of the seed vertices.
+     * @param depth             The number of hops, zero to load the seed vertices only.
+     * @param relationshipTypes The relationship types followed from the seed vertices, all types if no types are specified.
+     */
+    public void prefetch(Object[] seedIds, int depth, String... relationshipTypes) {
+        Objects.requireNonNull(seedIds, "seedIds cannot be null");
+        Objects.requireNonNull(relationshipTypes, "relationshipTypes cannot be null");
+        // check depth
+        if (depth < 0)
+            throw new IllegalArgumentException("depth cannot be negative");
+        // get current session
+        Neo4JSession session = currentSession();
+        // transaction should be ready for io operations
+        transaction.readWrite();
+        // load neighborhood
+        session.prefetch(seedIds, depth, new HashSet<>(Arrays.asList(relationshipTypes)));
+    }
+
+    /**
+     * Gets the maximum number of elements written to the database in a single Cypher statement.
+     *
+     * @return The maximum number of elements in a single statement.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of elements written to the database in a single Cypher statement, a value of zero
+     * or less disables the limit.
+     *
+     * @param batchSize The maximum number of elements in a single statement.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Checks whether write statements are pipelined at commit time.
+     *
+     * @return <code>true</code> if statement summaries are processed once all statements have been sent to the server.
+     */
+    public boolean isPipelinedFlushEnabled() {
+        return pipelinedFlushEnabled;
+    }
+
+    /**
+     * Enables or disables pipelined write statements at commit time. When enabled all write statements are sent to
+     * the server back to back and their summaries (and errors) are processed at the end of the flush, otherwise the
+     * summary of each statement is processed before sending the next one.
+     *
+     * @param pipelinedFlushEnabled <code>true</code> to enable pipelined write statements.
+     */
+    public void setPipelinedFlushEnabled(boolean pipelinedFlushEnabled) {
+        this.pipelinedFlushEnabled = pipelinedFlushEnabled;
+    }
+
+    /**
+     * Gets the number of pending elements (created, updated or deleted) in a transaction that triggers a flush of
+     * the pending changes into the open transaction.
+     *
+     * @return The flush threshold, zero or less if disabled.
+     */
+    public int getFlushThreshold() {
+        return flushThreshold;
+    }
+
+    /**
+     * Sets the number of pending elements (created, updated or deleted) in a transaction that triggers a flush of
+     * the pending changes into the open transaction, a value of zero or less disables it. Flushed elements are
+     * evicted from the session, instances still referenced by the application keep their identity and are committed
+     * or rolled back with the transaction. Identifiers of deleted elements are kept until the transaction completes.
+     *
+     * @param flushThreshold The flush threshold.
+     */
+    public void setFlushThreshold(int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * Gets the number of elements fetched per page in full vertex and edge scans.
+     *
+     * @return The scan page size, zero or less if full scans are executed in a single statement.
+     */
+    public int getScanPageSize() {
+        return scanPageSize;
+    }
+
+    /**
+     * Sets the number of elements fetched per page in full vertex and edge scans, a value of zero or less disables
+     * paging. Paged scans iterate the elements in identifier order (keyset pagination), scanned elements are not
+     * tracked by the session unless they are modified and the session never considers all elements loaded in memory.
+     *
+     * @param scanPageSize The scan page size.
+     */
+    public void setScanPageSize(int scanPageSize) {
+        this.scanPageSize = scanPageSize;
+    }
+
+    /**
+     * Gets the maximum number of traversers collected before loading their adjacent edges with a single statement in
+     * <code>out()</code>, <code>in()</code> and <code>both()</code> steps (and their edge variants).
+     *
+     * @return The expansion batch size, zero or less if adjacent edges are loaded one vertex at a time.
+     */
+    public int getExpansionBatchSize() {
+        return expansionBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of traversers collected before loading their adjacent edges with a single statement in
+     * <code>out()</code>, <code>in()</code> and <code>both()</code> steps (and their edge variants), a value of zero or
+     * less disables batching. Loaded edges are kept in the session, adjacent steps are resolved in memory.
+     *
+     * @param expansionBatchSize The expansion batch size.
+     */
+    public void setExpansionBatchSize(int expansionBatchSize) {
+        this.expansionBatchSize = expansionBatchSize;
+    }
+
+    /**
+     * Gets the number of edges above which the edges of a vertex are iterated in pages instead of being loaded into
+     * memory.
+     *
+     * @return The supernode degree threshold, zero or less if the edges of a vertex are always loaded into memory.
+     */
+    public int getSupernodeDegreeThreshold() {
+        return supernodeDegreeThreshold;
+    }
+
+    /**
+     * Sets the number of edges above which the edges of a vertex are iterated in pages instead of being loaded into
+     * memory, a value of zero or less disables paging. Edges are fetched in relationship identifier order, one page of
+     * <code>supernodeDegreeThreshold + 1</code> edges at a time, the first page is also the degree probe: if it is not
+     * full the edges are cached in the vertex, otherwise the vertex is a supernode and its edges are not cached (every
+     * expansion queries the database again). Batched expansions skip the vertices above the threshold.
+     * <p>
+     * Relationship identifiers are not indexed, every page is a top-N sort of the adjacency of the vertex
+     * (<code>ORDER BY r.id LIMIT {page}</code>), iterating all the edges of a vertex with degree <code>d</code> reads
+     * about <code>d * d / supernodeDegreeThreshold</code> relationships. Paging bounds the memory used by the
+     * expansion, not the database work, a larger threshold means fewer pages.
+     * </p>
+     *
+     * @param supernodeDegreeThreshold The supernode degree threshold.
+     */
+    public void setSupernodeDegreeThreshold(int supernodeDegreeThreshold) {
+        this.supernodeDegreeThreshold = supernodeDegreeThreshold;
+    }
+
     public boolean isProfilerEnabled() {
         // get current session
         Neo4JSession session = currentSession();
@@ -379,6 +751,19 @@ public class Neo4JGraph implements Graph {
         session.setProfilerEnabled(value);
     }
 
+    /**
+     * Checks if the current transaction has vertices or edges created, updated or deleted that have not been written
+     * to the database. Database aggregations (e.g. counts) do not include these changes.
+     *
+     * @return <code>true</code> if there are changes pending in the current transaction.
+     */
+    public boolean hasPendingChanges() {
+        // get current session
+        Neo4JSession session = currentSession();
+        // check session
+        return session.hasPendingChanges();
+    }
+
     /**
      * {@inheritDoc}
      */
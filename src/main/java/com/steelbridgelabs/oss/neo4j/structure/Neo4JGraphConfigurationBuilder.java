@@ -37,6 +37,12 @@ public final class Neo4JGraphConfigurationBuilder {
     public static final String Neo4JVertexIdProviderClassNameConfigurationKey = "neo4j.vertexIdProvider";
     public static final String Neo4JEdgeIdProviderClassNameConfigurationKey = "neo4j.edgeIdProvider";
     public static final String Neo4JPropertyIdProviderClassNameConfigurationKey = "neo4j.propertyIdProvider";
+    public static final String Neo4JBatchSizeConfigurationKey = "neo4j.batchSize";
+    public static final String Neo4JPipelinedFlushConfigurationKey = "neo4j.pipelinedFlush";
+    public static final String Neo4JFlushThresholdConfigurationKey = "neo4j.flushThreshold";
+    public static final String Neo4JScanPageSizeConfigurationKey = "neo4j.scanPageSize";
+    public static final String Neo4JExpansionBatchSizeConfigurationKey = "neo4j.expansionBatchSize";
+    public static final String Neo4JSupernodeDegreeThresholdConfigurationKey = "neo4j.supernodeDegreeThreshold";
 
     private final String hostname;
     private final short port;
@@ -47,6 +53,12 @@ public final class Neo4JGraphConfigurationBuilder {
     private String edgeIdProviderClassName = null;
     private String propertyIdProviderClassName = null;
     private String elementIdProviderClassName = null;
+    private int batchSize = Neo4JGraph.DefaultBatchSize;
+    private boolean pipelinedFlush = false;
+    private int flushThreshold = 0;
+    private int scanPageSize = 0;
+    private int expansionBatchSize = 0;
+    private int supernodeDegreeThreshold = 0;
 
     private Neo4JGraphConfigurationBuilder(String hostname, short port, String username, String password) {
         Objects.requireNonNull(hostname, "hostname cannot be null");
@@ -108,6 +120,48 @@ public final class Neo4JGraphConfigurationBuilder {
         return this;
     }
 
+    public Neo4JGraphConfigurationBuilder withBatchSize(int batchSize) {
+        // store batch size
+        this.batchSize = batchSize;
+        // return builder
+        return this;
+    }
+
+    public Neo4JGraphConfigurationBuilder withPipelinedFlush(boolean pipelinedFlush) {
+        // store flag
+        this.pipelinedFlush = pipelinedFlush;
+        // return builder
+        return this;
+    }
+
+    public Neo4JGraphConfigurationBuilder withFlushThreshold(int flushThreshold) {
+        // store flush threshold
+        this.flushThreshold = flushThreshold;
+        // return builder
+        return this;
+    }
+
+    public Neo4JGraphConfigurationBuilder withScanPageSize(int scanPageSize) {
+        // store scan page size
+        this.scanPageSize = scanPageSize;
+        // return builder
+        return this;
+    }
+
+    public Neo4JGraphConfigurationBuilder withExpansionBatchSize(int expansionBatchSize) {
+        // store expansion batch size
+        this.expansionBatchSize = expansionBatchSize;
+        // return builder
+        return this;
+    }
+
+    public Neo4JGraphConfigurationBuilder withSupernodeDegreeThreshold(int supernodeDegreeThreshold) {
+        // store supernode degree threshold
+        this.supernodeDegreeThreshold = supernodeDegreeThreshold;
+        // return builder
+        return this;
+    }
+
     public Configuration build() {
         // create configuration instance
         Configuration configuration = new BaseConfiguration();
@@ -129,6 +183,18 @@ public final class Neo4JGraphConfigurationBuilder {
         configuration.setProperty(Neo4JEdgeIdProviderClassNameConfigurationKey, edgeIdProviderClassName != null ? edgeIdProviderClassName : elementIdProviderClassName);
         // property id provider
         configuration.setProperty(Neo4JPropertyIdProviderClassNameConfigurationKey, propertyIdProviderClassName != null ? propertyIdProviderClassName : elementIdProviderClassName);
+        // batch size
+        configuration.setProperty(Neo4JBatchSizeConfigurationKey, batchSize);
+        // pipelined flush
+        configuration.setProperty(Neo4JPipelinedFlushConfigurationKey, pipelinedFlush);
+        // flush threshold
+        configuration.setProperty(Neo4JFlushThresholdConfigurationKey, flushThreshold);
+        // scan page size
+        configuration.setProperty(Neo4JScanPageSizeConfigurationKey, scanPageSize);
+        // expansion batch size
+        configuration.setProperty(Neo4JExpansionBatchSizeConfigurationKey, expansionBatchSize);
+        // supernode degree threshold
+        configuration.setProperty(Neo4JSupernodeDegreeThresholdConfigurationKey, supernodeDegreeThreshold);
         // return configuration
         return configuration;
     }
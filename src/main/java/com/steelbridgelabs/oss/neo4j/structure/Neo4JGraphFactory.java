@@ -45,10 +45,21 @@ public class Neo4JGraphFactory {
             Neo4JElementIdProvider<?> vertexIdProvider = loadProvider(configuration.getString(Neo4JGraphConfigurationBuilder.Neo4JVertexIdProviderClassNameConfigurationKey));
             Neo4JElementIdProvider<?> edgeIdProvider = loadProvider(configuration.getString(Neo4JGraphConfigurationBuilder.Neo4JEdgeIdProviderClassNameConfigurationKey));
             // check a read partition is required
-            if (graphName != null)
-                return new Neo4JGraph(new AnyLabelReadPartition(graphName), new String[]{graphName}, driver, vertexIdProvider, edgeIdProvider);
-            // no partition
-            return new Neo4JGraph(driver, vertexIdProvider, edgeIdProvider);
+            Neo4JGraph graph = graphName != null ? new Neo4JGraph(new AnyLabelReadPartition(graphName), new String[]{graphName}, driver, vertexIdProvider, edgeIdProvider) : new Neo4JGraph(driver, vertexIdProvider, edgeIdProvider);
+            // batch size
+            graph.setBatchSize(configuration.getInt(Neo4JGraphConfigurationBuilder.Neo4JBatchSizeConfigurationKey, Neo4JGraph.DefaultBatchSize));
+            // pipelined flush
+            graph.setPipelinedFlushEnabled(configuration.getBoolean(Neo4JGraphConfigurationBuilder.Neo4JPipelinedFlushConfigurationKey, false));
+            // flush threshold
+            graph.setFlushThreshold(configuration.getInt(Neo4JGraphConfigurationBuilder.Neo4JFlushThresholdConfigurationKey, 0));
+            // scan page size
+            graph.setScanPageSize(configuration.getInt(Neo4JGraphConfigurationBuilder.Neo4JScanPageSizeConfigurationKey, 0));
+            // expansion batch size
+            graph.setExpansionBatchSize(configuration.getInt(Neo4JGraphConfigurationBuilder.Neo4JExpansionBatchSizeConfigurationKey, 0));
+            // supernode degree threshold
+            graph.setSupernodeDegreeThreshold(configuration.getInt(Neo4JGraphConfigurationBuilder.Neo4JSupernodeDegreeThresholdConfigurationKey, 0));
+            // return graph
+            return graph;
         }
         catch (Throwable ex) {
             // throw runtime exception
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * {@link Neo4JResultIterator} implementation using keyset pagination, pages are requested by executing a statement
+ * with the key of the last record in the previous page (<code>WHERE n.id &gt; {last} ORDER BY n.id LIMIT {page}</code>).
+ * The next page is requested once all records in the current page have been processed, a page with less records than
+ * the page size is the last one.
+ *
+ * @param <T> The element type.
+ * @author Rogelio J. Baucells
+ */
+class Neo4JPagedResultIterator<T> extends Neo4JResultIterator<T> {
+
+    private final Function<Object, StatementResult> page;
+    private final Function<Record, Object> key;
+    private final int pageSize;
+
+    private Object last = null;
+    private int count = 0;
+
+    /**
+     * Creates a {@link Neo4JPagedResultIterator} instance, the first page is requested in the constructor.
+     *
+     * @param memory   The elements in memory (must be a copy since session state can be modified in the middle of the iteration).
+     * @param page     The function used to execute the page statement given the key of the last record, <code>null</code> for the first page.
+     * @param key      The function used to extract the key from a {@link Record}.
+     * @param loader   The function used to transform a {@link Record} into an element, <code>null</code> to skip the record.
+     * @param pageSize The number of records per page.
+     * @param registry The collection of open iterators (the iterator is removed from it once closed), <code>null</code> if not required.
+     */
+    Neo4JPagedResultIterator(Iterator<? extends T> memory, Function<Object, StatementResult> page, Function<Record, Object> key, Function<Record, ? extends T> loader, int pageSize, Collection<Neo4JResultIterator<?>> registry) {
+        super(memory, page.apply(null), loader, Long.MAX_VALUE, null, registry);
+        // store fields
+        this.page = page;
+        this.key = key;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    T load(Record record) {
+        // keep key of last record in page (even if record is skipped)
+        last = key.apply(record);
+        // update number of records in page
+        count++;
+        // load element
+        return super.load(record);
+    }
+
+    @Override
+    StatementResult nextResult() {
+        // check current page is the last one
+        if (count < pageSize)
+            return null;
+        // reset counter
+        count = 0;
+        // request next page
+        return page.apply(last);
+    }
+}
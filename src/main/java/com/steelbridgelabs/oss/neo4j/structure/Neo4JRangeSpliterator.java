@@ -0,0 +1,188 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link Spliterator} over the elements with identifiers in the range [from, to]. The range is split in halves until
+ * the minimum range size is reached, each range is scanned on its own {@link Neo4JSession} (and driver session) that
+ * is opened on the first element request and closed once the range has been exhausted. Elements returned by the
+ * spliterator are detached snapshots not tracked by any session, operations requiring the database (traversing or
+ * modifying the element) throw an {@link IllegalStateException}.
+ * <p>
+ * Range sizes are computed with unsigned arithmetic, a range can span the whole <code>long</code> identifier space.
+ * </p>
+ *
+ * @param <T> The element type.
+ * @author Rogelio J. Baucells
+ */
+class Neo4JRangeSpliterator<T> implements Spliterator<T>, AutoCloseable {
+
+    /**
+     * Executes the statement used to find the elements with identifiers in a given range.
+     *
+     * @param <T> The element type.
+     */
+    @FunctionalInterface
+    interface RangeScan<T> {
+
+        /**
+         * Finds the elements with identifiers in the range [from, to].
+         *
+         * @param session The {@link Neo4JSession} with an open transaction.
+         * @param from    The first identifier in range (inclusive).
+         * @param to      The last identifier in range (inclusive).
+         * @return The elements iterator.
+         */
+        Iterator<T> scan(Neo4JSession session, long from, long to);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(Neo4JRangeSpliterator.class);
+
+    private final Supplier<Neo4JSession> sessionSupplier;
+    private final RangeScan<T> rangeScan;
+    private final long minimumSize;
+    private final Collection<Neo4JRangeSpliterator<?>> registry;
+
+    private long from;
+    private long to;
+    private Neo4JSession session = null;
+    private Iterator<T> iterator = null;
+    private boolean exhausted = false;
+
+    /**
+     * Creates a {@link Neo4JRangeSpliterator} instance.
+     *
+     * @param sessionSupplier The supplier of {@link Neo4JSession} instances (with an open transaction).
+     * @param rangeScan       The statement used to find the elements in a range.
+     * @param from            The first identifier in range (inclusive).
+     * @param to              The last identifier in range (inclusive).
+     * @param minimumSize     The size of the range that will not be split.
+     * @param registry        The collection of spliterators with an open session (closed when the stream is closed).
+     */
+    Neo4JRangeSpliterator(Supplier<Neo4JSession> sessionSupplier, RangeScan<T> rangeScan, long from, long to, long minimumSize, Collection<Neo4JRangeSpliterator<?>> registry) {
+        Objects.requireNonNull(sessionSupplier, "sessionSupplier cannot be null");
+        Objects.requireNonNull(rangeScan, "rangeScan cannot be null");
+        Objects.requireNonNull(registry, "registry cannot be null");
+        // store fields
+        this.sessionSupplier = sessionSupplier;
+        this.rangeScan = rangeScan;
+        this.from = from;
+        this.to = to;
+        this.minimumSize = Math.max(1, minimumSize);
+        this.registry = registry;
+    }
+
+    /**
+     * Gets the number of identifiers in the range [from, to], the size is saturated to {@link Long#MAX_VALUE} if the
+     * range spans more identifiers.
+     *
+     * @param from The first identifier in range (inclusive).
+     * @param to   The last identifier in range (inclusive), greater or equal than <code>from</code>.
+     * @return The number of identifiers in range.
+     */
+    static long size(long from, long to) {
+        // difference is exact as an unsigned value (to >= from)
+        long difference = to - from;
+        // saturate size if it cannot be represented
+        return difference < 0 || difference == Long.MAX_VALUE ? Long.MAX_VALUE : difference + 1;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Objects.requireNonNull(action, "action cannot be null");
+        // check range has been scanned
+        if (exhausted)
+            return false;
+        // check we need to execute statement
+        if (iterator == null) {
+            // log information
+            if (logger.isDebugEnabled())
+                logger.debug("Scanning identifier range [{}, {})", from, to);
+            // create session
+            session = sessionSupplier.get();
+            // register spliterator (session must be closed if stream is closed before range is exhausted)
+            registry.add(this);
+            // execute statement
+            iterator = rangeScan.scan(session, from, to);
+        }
+        // check we have more elements in range
+        if (iterator.hasNext()) {
+            // process element
+            action.accept(iterator.next());
+            return true;
+        }
+        // range has been scanned
+        exhausted = true;
+        // release session
+        close();
+        return false;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // check range can be split (range scan in progress or range too small)
+        if (iterator != null || exhausted || size(from, to) <= minimumSize)
+            return null;
+        // middle of the range (unsigned difference, the range can span more than Long.MAX_VALUE identifiers)
+        long middle = from + ((to - from) >>> 1);
+        // first half
+        Neo4JRangeSpliterator<T> spliterator = new Neo4JRangeSpliterator<>(sessionSupplier, rangeScan, from, middle, minimumSize, registry);
+        // keep second half
+        from = middle + 1;
+        // return first half
+        return spliterator;
+    }
+
+    @Override
+    public long estimateSize() {
+        // number of identifiers in range (upper bound)
+        return exhausted ? 0 : size(from, to);
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+
+    /**
+     * Closes the {@link Neo4JSession} used to scan the range (if any), records not processed are discarded.
+     */
+    @Override
+    public void close() {
+        // check session was created
+        if (session != null) {
+            // close session (rolls back read only transaction and discards pending results)
+            session.close();
+            // reset session
+            session = null;
+            // unregister spliterator
+            registry.remove(this);
+        }
+    }
+}
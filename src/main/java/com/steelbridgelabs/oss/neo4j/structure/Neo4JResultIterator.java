@@ -0,0 +1,247 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import com.steelbridgelabs.oss.neo4j.structure.summary.ResultSummaryLogger;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Lazy iterator over the elements in memory followed by the elements in a {@link StatementResult}. Records are
+ * transformed into elements on demand (records mapped to <code>null</code> are skipped) and the result summary is
+ * processed once the iterator is exhausted, the maximum number of elements is returned or the iterator is closed.
+ * Closing an iterator discards the records not processed without transforming them into elements. Subclasses can
+ * read records in batches (see {@link #batchSize()}) to prepare the state required to load them with a single
+ * statement per batch instead of one per record.
+ *
+ * @param <T> The element type.
+ * @author Rogelio J. Baucells
+ */
+class Neo4JResultIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final Iterator<? extends T> memory;
+    private final Function<Record, ? extends T> loader;
+    private final Runnable exhausted;
+    private final Collection<Neo4JResultIterator<?>> registry;
+    private final Deque<Record> batch = new ArrayDeque<>();
+
+    private StatementResult result;
+    private long remaining;
+    private T next = null;
+    private boolean closed = false;
+
+    /**
+     * Creates a {@link Neo4JResultIterator} instance.
+     *
+     * @param memory    The elements in memory (must be a copy since session state can be modified in the middle of the iteration).
+     * @param result    The {@link StatementResult} with the elements in the database.
+     * @param loader    The function used to transform a {@link Record} into an element, <code>null</code> to skip the record.
+     * @param exhausted The action executed once all records in the result have been processed, <code>null</code> if not required.
+     */
+    Neo4JResultIterator(Iterator<? extends T> memory, StatementResult result, Function<Record, ? extends T> loader, Runnable exhausted) {
+        this(memory, result, loader, Long.MAX_VALUE, exhausted, null);
+    }
+
+    /**
+     * Creates a {@link Neo4JResultIterator} instance.
+     *
+     * @param memory    The elements in memory (must be a copy since session state can be modified in the middle of the iteration).
+     * @param result    The {@link StatementResult} with the elements in the database.
+     * @param loader    The function used to transform a {@link Record} into an element, <code>null</code> to skip the record.
+     * @param limit     The maximum number of elements to return, the result is closed once the limit is reached.
+     * @param exhausted The action executed once all records in the result have been processed, <code>null</code> if not required.
+     * @param registry  The collection of open iterators (the iterator is removed from it once closed), <code>null</code> if not required.
+     */
+    Neo4JResultIterator(Iterator<? extends T> memory, StatementResult result, Function<Record, ? extends T> loader, long limit, Runnable exhausted, Collection<Neo4JResultIterator<?>> registry) {
+        Objects.requireNonNull(memory, "memory cannot be null");
+        Objects.requireNonNull(result, "result cannot be null");
+        Objects.requireNonNull(loader, "loader cannot be null");
+        // store fields
+        this.memory = memory;
+        this.result = result;
+        this.loader = loader;
+        this.remaining = limit;
+        this.exhausted = exhausted;
+        this.registry = registry;
+        // register iterator
+        if (registry != null)
+            registry.add(this);
+    }
+
+    @Override
+    public boolean hasNext() {
+        // check we have an element ready
+        if (next != null)
+            return true;
+        // check limit has been reached
+        if (remaining <= 0) {
+            // release result (records not processed are discarded)
+            close();
+            return false;
+        }
+        // elements in memory
+        if (memory.hasNext()) {
+            // use element
+            next = memory.next();
+            remaining--;
+            return true;
+        }
+        // process records
+        while (!closed) {
+            // check we have records in current batch
+            if (!batch.isEmpty()) {
+                // load element
+                T element = load(batch.poll());
+                if (element != null) {
+                    // use element
+                    next = element;
+                    remaining--;
+                    return true;
+                }
+            }
+            else if (result.hasNext()) {
+                // check records must be read in batches
+                int size = batchSize();
+                if (size > 1) {
+                    // read next batch
+                    List<Record> records = new ArrayList<>(size);
+                    while (records.size() < size && result.hasNext())
+                        records.add(result.next());
+                    // prepare records before loading them
+                    prepare(records);
+                    // queue records
+                    batch.addAll(records);
+                    continue;
+                }
+                // load element
+                T element = load(result.next());
+                if (element != null) {
+                    // use element
+                    next = element;
+                    remaining--;
+                    return true;
+                }
+            }
+            else {
+                // process summary
+                ResultSummaryLogger.log(result.consume());
+                // next result (e.g. next page)
+                StatementResult following = nextResult();
+                if (following == null) {
+                    // release iterator (summary has been already processed)
+                    release();
+                    // notify all records were processed
+                    if (exhausted != null)
+                        exhausted.run();
+                    return false;
+                }
+                // use next result
+                result = following;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public T next() {
+        // check we have more elements
+        if (!hasNext())
+            throw new NoSuchElementException();
+        // current element
+        T element = next;
+        // move to next element
+        next = null;
+        // return element
+        return element;
+    }
+
+    /**
+     * Discards the remaining records in the result and processes the result summary.
+     */
+    @Override
+    public void close() {
+        // check iterator is open
+        if (!closed) {
+            // release iterator
+            release();
+            // discard records in current batch
+            batch.clear();
+            // process summary (consume discards the records not processed)
+            ResultSummaryLogger.log(result.consume());
+        }
+    }
+
+    /**
+     * Transforms a {@link Record} into an element.
+     *
+     * @param record The record.
+     * @return The element, <code>null</code> if the record must be skipped.
+     */
+    T load(Record record) {
+        return loader.apply(record);
+    }
+
+    /**
+     * Gets the number of records read from the result before they are loaded, records are loaded one at a time if the
+     * batch size is less than two.
+     *
+     * @return The batch size.
+     */
+    int batchSize() {
+        return 1;
+    }
+
+    /**
+     * Prepares a batch of records before they are transformed into elements (e.g. loads the state required by all the
+     * records in the batch), this method is invoked only if {@link #batchSize()} is greater than one.
+     *
+     * @param records The records in the batch.
+     */
+    void prepare(List<Record> records) {
+        // records do not require preparation by default
+    }
+
+    /**
+     * Gets the result with the records following the ones in the current result, this method is invoked once all
+     * records in the current result have been processed.
+     *
+     * @return The next {@link StatementResult}, <code>null</code> if there are no more records.
+     */
+    StatementResult nextResult() {
+        return null;
+    }
+
+    private void release() {
+        // update flag
+        closed = true;
+        // unregister iterator
+        if (registry != null)
+            registry.remove(this);
+    }
+}
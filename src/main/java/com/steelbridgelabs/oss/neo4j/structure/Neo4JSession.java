@@ -36,7 +36,11 @@ import org.neo4j.driver.v1.types.Relationship;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -46,8 +50,12 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -58,6 +66,8 @@ import java.util.stream.StreamSupport;
 class Neo4JSession implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(Neo4JSession.class);
+    private static final Neo4JStatementTemplateCache templates = new Neo4JStatementTemplateCache();
+    private static final int EndpointBatchSize = 100;
 
     private final Neo4JGraph graph;
     private final Neo4JReadPartition partition;
@@ -75,6 +85,11 @@ class Neo4JSession implements AutoCloseable {
     private final Set<Neo4JEdge> edgeUpdateQueue = new HashSet<>();
     private final Set<Neo4JVertex> vertexDeleteQueue = new HashSet<>();
     private final Set<Neo4JEdge> edgeDeleteQueue = new HashSet<>();
+    private final Neo4JWeakElementMap<Neo4JVertex> flushedVertices = new Neo4JWeakElementMap<>();
+    private final Neo4JWeakElementMap<Neo4JEdge> flushedEdges = new Neo4JWeakElementMap<>();
+    private final Neo4JWeakElementMap<Neo4JVertex> scannedVertices = new Neo4JWeakElementMap<>();
+    private final Neo4JWeakElementMap<Neo4JEdge> scannedEdges = new Neo4JWeakElementMap<>();
+    private final Set<Neo4JResultIterator<?>> iterators = new HashSet<>();
     private final String vertexIdFieldName;
     private final String edgeIdFieldName;
 
@@ -82,6 +97,9 @@ class Neo4JSession implements AutoCloseable {
     private boolean verticesLoaded = false;
     private boolean edgesLoaded = false;
     private boolean profilerEnabled = false;
+    private boolean flushed = false;
+    private long flushCount = 0;
+    private boolean detached = false;
 
     public Neo4JSession(Neo4JGraph graph, Session session, Neo4JElementIdProvider<?> vertexIdProvider, Neo4JElementIdProvider<?> edgeIdProvider) {
         Objects.requireNonNull(graph, "graph cannot be null");
@@ -127,6 +145,8 @@ class Neo4JSession implements AutoCloseable {
                 logger.debug("Committing transaction [{}]", transaction.hashCode());
             // indicate success
             transaction.success();
+            // discard results not consumed by the application
+            closeIterators();
             // flush session
             flush();
             // close neo4j transaction (this is the moment that data is committed to the server)
@@ -139,6 +159,9 @@ class Neo4JSession implements AutoCloseable {
             vertexUpdateQueue.forEach(Neo4JVertex::commit);
             // commit dirty edges
             edgeUpdateQueue.forEach(Neo4JEdge::commit);
+            // commit elements flushed in the middle of the transaction (instances still referenced by the application)
+            flushedVertices.elements().forEach(Neo4JVertex::commit);
+            flushedEdges.elements().forEach(Neo4JEdge::commit);
             // clean internal structures
             deletedEdges.clear();
             edgeDeleteQueue.clear();
@@ -148,6 +171,10 @@ class Neo4JSession implements AutoCloseable {
             transientVertices.clear();
             vertexUpdateQueue.clear();
             edgeUpdateQueue.clear();
+            flushedVertices.clear();
+            flushedEdges.clear();
+            // flushed elements are committed
+            flushed = false;
             // log information
             if (logger.isDebugEnabled())
                 logger.debug("Successfully committed transaction [{}]", transaction.hashCode());
@@ -164,6 +191,8 @@ class Neo4JSession implements AutoCloseable {
                 logger.debug("Rolling back transaction [{}]", transaction.hashCode());
             // indicate failure
             transaction.failure();
+            // discard results not consumed by the application
+            closeIterators();
             // close neo4j transaction (this is the moment that data is rolled-back from the server)
             transaction.close();
             // reset vertices loaded flag if needed
@@ -194,6 +223,10 @@ class Neo4JSession implements AutoCloseable {
                 // rollback edge
                 edge.rollback();
             });
+            // rollback flushed vertices still referenced by the application (vertices created in transaction are transient again)
+            flushedVertices.elements().forEach(Neo4JVertex::rollback);
+            // rollback flushed edges still referenced by the application (edges created in transaction are transient again)
+            flushedEdges.elements().forEach(Neo4JEdge::rollback);
             // clean internal structures
             deletedEdges.clear();
             edgeDeleteQueue.clear();
@@ -203,6 +236,20 @@ class Neo4JSession implements AutoCloseable {
             transientVertices.clear();
             vertexUpdateQueue.clear();
             edgeUpdateQueue.clear();
+            flushedVertices.clear();
+            flushedEdges.clear();
+            // check changes were flushed in the middle of the transaction
+            if (flushed) {
+                // elements in memory could reflect flushed changes, they must be loaded again from database
+                vertices.clear();
+                edges.clear();
+                scannedVertices.clear();
+                scannedEdges.clear();
+                verticesLoaded = false;
+                edgesLoaded = false;
+                // reset flag
+                flushed = false;
+            }
             // log information
             if (logger.isDebugEnabled())
                 logger.debug("Successfully rolled-back transaction [{}]", transaction.hashCode());
@@ -217,6 +264,8 @@ class Neo4JSession implements AutoCloseable {
             // log information
             if (logger.isDebugEnabled())
                 logger.debug("Closing transaction [{}]", transaction.hashCode());
+            // discard results not consumed by the application
+            closeIterators();
             // close transaction
             transaction.close();
             // remove instance
@@ -224,6 +273,17 @@ class Neo4JSession implements AutoCloseable {
         }
     }
 
+    private void closeIterators() {
+        // check we have open iterators
+        if (!iterators.isEmpty()) {
+            // log information
+            if (logger.isDebugEnabled())
+                logger.debug("Closing {} open result iterator(s) on transaction [{}]", iterators.size(), transaction.hashCode());
+            // close iterators (copy since iterators are removed from set on close)
+            new ArrayList<>(iterators).forEach(Neo4JResultIterator::close);
+        }
+    }
+
     public Neo4JVertex addVertex(Object... keyValues) {
         Objects.requireNonNull(keyValues, "keyValues cannot be null");
         // verify parameters are key/value pairs
@@ -239,6 +299,8 @@ class Neo4JSession implements AutoCloseable {
         ElementHelper.attachProperties(vertex, keyValues);
         // register element
         registerVertex(vertex);
+        // flush pending changes if needed
+        flushIfRequired();
         // return vertex
         return vertex;
     }
@@ -266,6 +328,8 @@ class Neo4JSession implements AutoCloseable {
         // register transient edge with adjacent vertices
         out.addOutEdge(edge);
         in.addInEdge(edge);
+        // flush pending changes if needed
+        flushIfRequired();
         // return edge
         return edge;
     }
@@ -289,10 +353,72 @@ class Neo4JSession implements AutoCloseable {
         this.profilerEnabled = profilerEnabled;
     }
 
+    /**
+     * Marks the elements loaded by this session as detached snapshots, the session is used to scan a range of elements
+     * and it is closed once the range has been scanned (see {@link Neo4JRangeSpliterator}). Operations requiring the
+     * database on detached elements throw an {@link IllegalStateException} instead of using a closed session (or the
+     * transaction of the calling thread).
+     */
+    void detachElements() {
+        this.detached = true;
+    }
+
+    boolean isDetached() {
+        return detached;
+    }
+
+    void checkAttached() {
+        // check elements are detached
+        if (detached)
+            throw new IllegalStateException("Element is a detached snapshot loaded by a parallel scan, it cannot be traversed nor modified (load it from the graph instead)");
+    }
+
+    boolean hasPendingChanges() {
+        // check elements created, updated or deleted in session (not written to database)
+        return !transientVertices.isEmpty() || !transientEdges.isEmpty() || !vertexUpdateQueue.isEmpty() || !edgeUpdateQueue.isEmpty() || !vertexDeleteQueue.isEmpty() || !edgeDeleteQueue.isEmpty();
+    }
+
+    /**
+     * Gets the identifiers of the vertices deleted in the current transaction and not flushed yet (the nodes and their
+     * relationships are still in the database).
+     *
+     * @return The vertex identifiers (copy).
+     */
+    Set<Object> pendingVertexDeletes() {
+        return vertexDeleteQueue.stream().map(Neo4JVertex::id).collect(Collectors.toSet());
+    }
+
+    /**
+     * Gets the edges deleted in the current transaction and not flushed yet (the relationships are still in the
+     * database).
+     *
+     * @return The edges (copy).
+     */
+    List<Neo4JEdge> pendingEdgeDeletes() {
+        return new ArrayList<>(edgeDeleteQueue);
+    }
+
     public Iterator<Vertex> vertices(Object[] ids) {
+        // use overloaded method
+        return vertices(ids, Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds the vertices with the given identifiers, or all vertices in the partition if no identifiers are provided,
+     * returning at most <code>limit</code> vertices. The limit is sent to the server (<code>LIMIT</code> clause) so
+     * existence checks and bounded traversals do not stream the entire result.
+     *
+     * @param ids   The vertex identifiers (or vertices).
+     * @param limit The maximum number of vertices to return, {@link Long#MAX_VALUE} if not limited.
+     * @return The vertices iterator, the iterator must be closed if it is abandoned before it is exhausted.
+     */
+    Iterator<Vertex> vertices(Object[] ids, long limit) {
         Objects.requireNonNull(ids, "ids cannot be null");
         // verify identifiers
         verifyIdentifiers(Vertex.class, ids);
+        // check limit
+        if (limit <= 0)
+            return Collections.emptyIterator();
         // check we have all vertices already loaded
         if (!verticesLoaded) {
             // check ids
@@ -301,42 +427,56 @@ class Neo4JSession implements AutoCloseable {
                 Set<Object> identifiers = Arrays.stream(ids).map(id -> processIdentifier(vertexIdProvider, id)).collect(Collectors.toSet());
                 // filter ids, remove ids already in memory (only ids that might exist on server)
                 List<Object> filter = identifiers.stream().filter(id -> !vertices.containsKey(id)).collect(Collectors.toList());
+                // vertices in memory (copy since session state can be modified in the middle of the iteration)
+                List<Vertex> memory = identifiers.stream().filter(vertices::containsKey).limit(limit).map(id -> (Vertex)vertices.get(id)).collect(Collectors.toList());
                 // check we need to execute statement in server
-                if (!filter.isEmpty()) {
-                    // vertex match predicate
-                    String predicate = partition.vertexMatchPredicate("n");
+                if (!filter.isEmpty() && memory.size() < limit) {
                     // cypher statement
-                    Statement statement = new Statement("MATCH " + generateVertexMatchPattern("n") + " WHERE n." + vertexIdFieldName + " in {ids}" + (predicate != null ? " AND " + predicate : "") + " RETURN n", Values.parameters("ids", filter));
+                    Statement statement = new Statement(templates.template(() -> {
+                        // vertex match predicate
+                        String predicate = partition.vertexMatchPredicate("n");
+                        // statement text
+                        return "MATCH " + generateVertexMatchPattern("n") + " WHERE n." + vertexIdFieldName + " in {ids}" + (predicate != null ? " AND " + predicate : "") + " RETURN n";
+                    }, "vertices", partition, vertexIdFieldName), Values.parameters("ids", filter));
                     // execute statement
                     StatementResult result = executeStatement(statement);
-                    // create stream from query
-                    Stream<Vertex> query = vertices(result);
-                    // combine stream from memory and query result
-                    Iterator<Vertex> iterator = combine(identifiers.stream().filter(vertices::containsKey).map(id -> (Vertex)vertices.get(id)), query);
-                    // process summary (query has been already consumed by combine)
-                    ResultSummaryLogger.log(result.consume());
-                    // return iterator
-                    return iterator;
+                    // elements in memory followed by the ones in query result (records are loaded on demand)
+                    return new Neo4JResultIterator<>(memory.iterator(), result, this::loadVertex, limit, null, iterators);
                 }
                 // no need to execute query, only items in memory
-                return combine(identifiers.stream().filter(vertices::containsKey).map(id -> (Vertex)vertices.get(id)), Stream.empty());
+                return memory.iterator();
+            }
+            // vertices in memory (transient)
+            List<Vertex> memory = transientVertices.stream().limit(limit).map(vertex -> (Vertex)vertex).collect(Collectors.toList());
+            // check limit has been reached
+            if (memory.size() >= limit)
+                return memory.iterator();
+            // check limit must be applied in server
+            boolean limited = limit != Long.MAX_VALUE;
+            // scan page size
+            int pageSize = graph.getScanPageSize();
+            // check full scan must be paged
+            if (!limited && pageSize > 0) {
+                // elements in memory (transient) followed by the ones in database (one page at a time, vertices are not tracked by session)
+                return new Neo4JPagedResultIterator<>(memory.iterator(), last -> executeStatement(vertexScanStatement(last, pageSize)), record -> record.get(0).asNode().get(vertexIdFieldName).asObject(), record -> loadVertex(record, false), pageSize, iterators);
             }
-            // vertex match predicate
-            String predicate = partition.vertexMatchPredicate("n");
             // cypher statement for all vertices
-            Statement statement = new Statement("MATCH " + generateVertexMatchPattern("n") + (predicate != null ? " WHERE " + predicate : "") + " RETURN n");
+            Statement statement = new Statement(templates.template(() -> {
+                // vertex match predicate
+                String predicate = partition.vertexMatchPredicate("n");
+                // statement text
+                return "MATCH " + generateVertexMatchPattern("n") + (predicate != null ? " WHERE " + predicate : "") + " RETURN n" + (limited ? " LIMIT {limit}" : "");
+            }, "all-vertices", partition, limited), limited ? Values.parameters("limit", limit - memory.size() + deletedVertices.size()) : Values.parameters());
             // execute statement
             StatementResult result = executeStatement(statement);
-            // create stream from query
-            Stream<Vertex> query = vertices(result);
-            // combine stream from memory (transient) and query result
-            Iterator<Vertex> iterator = combine(transientVertices.stream().map(vertex -> (Vertex)vertex), query);
-            // process summary (query has been already consumed by combine)
-            ResultSummaryLogger.log(result.consume());
-            // it is safe to update loaded flag at this time
-            verticesLoaded = true;
-            // return iterator
-            return iterator;
+            // current flush count (elements deleted by a flush in the middle of the iteration are no longer tracked)
+            long count = flushCount;
+            // elements in memory (transient) followed by the ones in query result (records are loaded on demand)
+            return new Neo4JResultIterator<>(memory.iterator(), result, this::loadVertex, limit, () -> {
+                // all records were processed, it is safe to update loaded flag at this time (only if all vertices were returned)
+                if (!limited && count == flushCount)
+                    verticesLoaded = true;
+            }, iterators);
         }
         // check ids
         if (ids.length > 0) {
@@ -345,12 +485,14 @@ class Neo4JSession implements AutoCloseable {
             // no need to execute query, only items in memory
             return identifiers.stream()
                 .filter(vertices::containsKey)
+                .limit(limit)
                 .map(id -> (Vertex)vertices.get(id))
                 .collect(Collectors.toCollection(LinkedList::new))
                 .iterator();
         }
         // no need to execute query, only items in memory
         return vertices.values().stream()
+            .limit(limit)
             .map(vertex -> (Vertex)vertex)
             .collect(Collectors.toCollection(LinkedList::new))
             .iterator();
@@ -364,10 +506,127 @@ class Neo4JSession implements AutoCloseable {
             .filter(vertex -> vertex != null);
     }
 
+    Iterator<Vertex> vertices(Statement statement) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // vertices in query result (records are loaded on demand)
+        return new Neo4JResultIterator<>(Collections.emptyIterator(), result, this::loadVertex, Long.MAX_VALUE, null, iterators);
+    }
+
+    Iterator<Vertex> vertices(Statement statement, Predicate<? super Vertex> predicate) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        Objects.requireNonNull(predicate, "predicate cannot be null");
+        // vertices modified in transaction (state in database is not current), evaluate them in memory
+        List<Vertex> memory = Stream.concat(transientVertices.stream(), vertexUpdateQueue.stream()).filter(predicate).map(vertex -> (Vertex)vertex).collect(Collectors.toList());
+        // identifiers of vertices evaluated in memory
+        Set<Object> identifiers = vertexUpdateQueue.stream().map(Neo4JVertex::id).collect(Collectors.toSet());
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // vertices in memory followed by the ones in query result not evaluated in memory (records are loaded on demand)
+        return new Neo4JResultIterator<>(memory.iterator(), result, record -> {
+            // load vertex
+            Vertex vertex = loadVertex(record);
+            // skip vertices evaluated in memory, evaluate predicate on the others
+            return vertex != null && !identifiers.contains(vertex.id()) && predicate.test(vertex) ? vertex : null;
+        }, Long.MAX_VALUE, null, iterators);
+    }
+
+    /**
+     * Executes a statement returning a key (first column) and a vertex (second column) per record, e.g. the identifier
+     * of the vertex a path starts from and the vertex at the end of the path.
+     *
+     * @param statement The Cypher statement.
+     * @return The iterator of key and vertex pairs, the iterator must be closed if it is abandoned before it is exhausted.
+     */
+    Iterator<Map.Entry<Object, Vertex>> keyedVertices(Statement statement) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // keyed vertices in query result (records are loaded on demand)
+        return new Neo4JResultIterator<>(Collections.emptyIterator(), result, record -> {
+            // load vertex
+            Vertex vertex = loadVertex(record.get(1).asNode(), true);
+            // skip deleted vertices
+            return vertex != null ? new AbstractMap.SimpleImmutableEntry<>(record.get(0).asObject(), vertex) : null;
+        }, Long.MAX_VALUE, null, iterators);
+    }
+
+    /**
+     * Finds the vertices with identifiers in the range [from, to], vertices are not tracked by the session.
+     *
+     * @param from The first identifier in range (inclusive).
+     * @param to   The last identifier in range (inclusive).
+     * @return The vertices iterator.
+     */
+    Iterator<Vertex> scanVertices(long from, long to) {
+        // cypher statement
+        Statement statement = new Statement(templates.template(() -> {
+            // vertex match predicate
+            String predicate = partition.vertexMatchPredicate("n");
+            // statement text
+            return "MATCH " + generateVertexMatchPattern("n") + " WHERE n." + vertexIdFieldName + " >= {from} AND n." + vertexIdFieldName + " <= {to}" + (predicate != null ? " AND " + predicate : "") + " RETURN n";
+        }, "range-vertices", partition, vertexIdFieldName), Values.parameters("from", from, "to", to));
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // vertices in query result (records are loaded on demand)
+        return new Neo4JResultIterator<>(Collections.emptyIterator(), result, record -> loadVertex(record, false), Long.MAX_VALUE, null, iterators);
+    }
+
+    /**
+     * Finds the minimum and maximum vertex identifiers in the partition.
+     *
+     * @return The identifiers range (minimum and maximum), <code>null</code> if there are no vertices.
+     */
+    long[] vertexIdentifierRange() {
+        // cypher statement
+        Statement statement = new Statement(templates.template(() -> {
+            // vertex match predicate
+            String predicate = partition.vertexMatchPredicate("n");
+            // statement text
+            return "MATCH " + generateVertexMatchPattern("n") + (predicate != null ? " WHERE " + predicate : "") + " RETURN min(n." + vertexIdFieldName + "), max(n." + vertexIdFieldName + ")";
+        }, "range-vertex-ids", partition, vertexIdFieldName));
+        // execute statement
+        return identifierRange(executeStatement(statement));
+    }
+
+    private Statement vertexScanStatement(Object last, int pageSize) {
+        // check first page
+        boolean first = last == null;
+        // cypher statement
+        return new Statement(templates.template(() -> {
+            // vertex match predicate
+            String predicate = partition.vertexMatchPredicate("n");
+            // page predicate
+            String range = !first ? "n." + vertexIdFieldName + " > {last}" : null;
+            // where clause
+            String where = range != null ? (predicate != null ? " WHERE " + range + " AND " + predicate : " WHERE " + range) : (predicate != null ? " WHERE " + predicate : "");
+            // statement text
+            return "MATCH " + generateVertexMatchPattern("n") + where + " RETURN n ORDER BY n." + vertexIdFieldName + " LIMIT {page}";
+        }, "scan-vertices", partition, vertexIdFieldName, first), !first ? Values.parameters("last", last, "page", pageSize) : Values.parameters("page", pageSize));
+    }
+
     public Iterator<Edge> edges(Object[] ids) {
+        // use overloaded method
+        return edges(ids, Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds the edges with the given identifiers, or all edges in the partition if no identifiers are provided,
+     * returning at most <code>limit</code> edges. The limit is sent to the server (<code>LIMIT</code> clause) so
+     * existence checks and bounded traversals do not stream the entire result.
+     *
+     * @param ids   The edge identifiers (or edges).
+     * @param limit The maximum number of edges to return, {@link Long#MAX_VALUE} if not limited.
+     * @return The edges iterator, the iterator must be closed if it is abandoned before it is exhausted.
+     */
+    Iterator<Edge> edges(Object[] ids, long limit) {
         Objects.requireNonNull(ids, "ids cannot be null");
         // verify identifiers
         verifyIdentifiers(Edge.class, ids);
+        // check limit
+        if (limit <= 0)
+            return Collections.emptyIterator();
         // check we have all edges already loaded
         if (!edgesLoaded) {
             // check ids
@@ -376,44 +635,78 @@ class Neo4JSession implements AutoCloseable {
                 Set<Object> identifiers = Arrays.stream(ids).map(id -> processIdentifier(edgeIdProvider, id)).collect(Collectors.toSet());
                 // filter ids, remove ids already in memory (only ids that might exist on server)
                 List<Object> filter = identifiers.stream().filter(id -> !edges.containsKey(id)).collect(Collectors.toList());
+                // edges in memory (copy since session state can be modified in the middle of the iteration)
+                List<Edge> memory = identifiers.stream().filter(edges::containsKey).limit(limit).map(id -> (Edge)edges.get(id)).collect(Collectors.toList());
                 // check we need to execute statement in server
-                if (!filter.isEmpty()) {
-                    // vertex match predicates
-                    String outVertexPredicate = partition.vertexMatchPredicate("n");
-                    String inVertexPredicate = partition.vertexMatchPredicate("m");
+                if (!filter.isEmpty() && memory.size() < limit) {
+                    // check limit must be applied in server
+                    boolean limited = limit != Long.MAX_VALUE;
+                    // statement parameters
+                    Map<String, Object> parameters = new HashMap<>();
+                    parameters.put("ids", filter);
+                    // deleted elements are skipped in memory, request enough records to reach the limit
+                    if (limited)
+                        parameters.put("limit", limit - memory.size() + deletedEdges.size() + deletedVertices.size());
                     // cypher statement
-                    Statement statement = new Statement("MATCH " + generateVertexMatchPattern("n") + "-[r]->" + generateVertexMatchPattern("m") + " WHERE r." + edgeIdFieldName + " in {ids}" + (outVertexPredicate != null && inVertexPredicate != null ? " AND " + outVertexPredicate + " AND " + inVertexPredicate : "") + " RETURN n, r, m", Values.parameters("ids", filter));
+                    Statement statement = new Statement(templates.template(() -> {
+                        // vertex match predicates
+                        String outVertexPredicate = partition.vertexMatchPredicate("n");
+                        String inVertexPredicate = partition.vertexMatchPredicate("m");
+                        // statement text
+                        return "MATCH " + generateVertexMatchPattern("n") + "-[r]->" + generateVertexMatchPattern("m") + " WHERE r." + edgeIdFieldName + " in {ids}" + (outVertexPredicate != null && inVertexPredicate != null ? " AND " + outVertexPredicate + " AND " + inVertexPredicate : "") + " RETURN r, n." + vertexIdFieldName + ", m." + vertexIdFieldName + (limited ? " LIMIT {limit}" : "");
+                    }, "edges", partition, vertexIdFieldName, edgeIdFieldName, limited), parameters);
                     // execute statement
                     StatementResult result = executeStatement(statement);
-                    // find edges
-                    Stream<Edge> query = edges(result);
-                    // combine stream from memory and query result
-                    Iterator<Edge> iterator = combine(identifiers.stream().filter(edges::containsKey).map(id -> (Edge)edges.get(id)), query);
-                    // process summary (query has been already consumed by combine)
-                    ResultSummaryLogger.log(result.consume());
-                    // return iterator
-                    return iterator;
+                    // elements in memory followed by the ones in query result (records are loaded on demand, endpoints not in memory are loaded once per batch of records)
+                    return new Neo4JResultIterator<Edge>(memory.iterator(), result, record -> loadEdge(record.get(0).asRelationship(), record.get(1).asObject(), record.get(2).asObject()), limit, null, iterators) {
+
+                        @Override
+                        int batchSize() {
+                            return EndpointBatchSize;
+                        }
+
+                        @Override
+                        void prepare(List<Record> records) {
+                            // load endpoints not in memory
+                            loadEndpoints(records);
+                        }
+                    };
                 }
                 // no need to execute query, only items in memory
-                return combine(identifiers.stream().filter(edges::containsKey).map(id -> (Edge)edges.get(id)), Stream.empty());
+                return memory.iterator();
+            }
+            // edges in memory (transient)
+            List<Edge> memory = transientEdges.stream().limit(limit).map(edge -> (Edge)edge).collect(Collectors.toList());
+            // check limit has been reached
+            if (memory.size() >= limit)
+                return memory.iterator();
+            // check limit must be applied in server
+            boolean limited = limit != Long.MAX_VALUE;
+            // scan page size
+            int pageSize = graph.getScanPageSize();
+            // check full scan must be paged
+            if (!limited && pageSize > 0) {
+                // elements in memory (transient) followed by the ones in database (one page at a time, edges are not tracked by session)
+                return new Neo4JPagedResultIterator<>(memory.iterator(), last -> executeStatement(edgeScanStatement(last, pageSize)), record -> record.get(1).asRelationship().get(edgeIdFieldName).asObject(), record -> loadEdge(record, false), pageSize, iterators);
             }
-            // vertex match predicates
-            String outVertexPredicate = partition.vertexMatchPredicate("n");
-            String inVertexPredicate = partition.vertexMatchPredicate("m");
             // cypher statement for all edges in database
-            Statement statement = new Statement("MATCH " + generateVertexMatchPattern("n") + "-[r]->" + generateVertexMatchPattern("m") + (outVertexPredicate != null && inVertexPredicate != null ? " WHERE " + outVertexPredicate + " AND " + inVertexPredicate : "") + " RETURN n, r, m");
+            Statement statement = new Statement(templates.template(() -> {
+                // vertex match predicates
+                String outVertexPredicate = partition.vertexMatchPredicate("n");
+                String inVertexPredicate = partition.vertexMatchPredicate("m");
+                // statement text
+                return "MATCH " + generateVertexMatchPattern("n") + "-[r]->" + generateVertexMatchPattern("m") + (outVertexPredicate != null && inVertexPredicate != null ? " WHERE " + outVertexPredicate + " AND " + inVertexPredicate : "") + " RETURN n, r, m" + (limited ? " LIMIT {limit}" : "");
+            }, "all-edges", partition, limited), limited ? Values.parameters("limit", limit - memory.size() + deletedEdges.size() + deletedVertices.size()) : Values.parameters());
             // execute statement
             StatementResult result = executeStatement(statement);
-            // find edges
-            Stream<Edge> query = edges(result);
-            // combine stream from memory (transient) and query result
-            Iterator<Edge> iterator = combine(transientEdges.stream().map(edge -> (Edge)edge), query);
-            // process summary (query has been already consumed by combine)
-            ResultSummaryLogger.log(result.consume());
-            // it is safe to update loaded flag at this time
-            edgesLoaded = true;
-            // return iterator
-            return iterator;
+            // current flush count (elements deleted by a flush in the middle of the iteration are no longer tracked)
+            long count = flushCount;
+            // elements in memory (transient) followed by the ones in query result (records are loaded on demand)
+            return new Neo4JResultIterator<>(memory.iterator(), result, this::loadEdge, limit, () -> {
+                // all records were processed, it is safe to update loaded flag at this time (only if all edges were returned)
+                if (!limited && count == flushCount)
+                    edgesLoaded = true;
+            }, iterators);
         }
         // check ids
         if (ids.length > 0) {
@@ -422,32 +715,358 @@ class Neo4JSession implements AutoCloseable {
             // no need to execute query, only items in memory
             return identifiers.stream()
                 .filter(edges::containsKey)
+                .limit(limit)
                 .map(id -> (Edge)edges.get(id))
                 .collect(Collectors.toCollection(LinkedList::new))
                 .iterator();
         }
         // no need to execute query, only items in memory
         return edges.values().stream()
+            .limit(limit)
             .map(edge -> (Edge)edge)
             .collect(Collectors.toCollection(LinkedList::new))
             .iterator();
     }
 
-    Stream<Edge> edges(StatementResult result) {
+    /**
+     * Loads the edges of the given vertex returned by an adjacency statement (<code>RETURN r, m</code>), the vertex
+     * is not part of the records.
+     *
+     * @param vertex The vertex the edges are adjacent to.
+     * @param result The statement result.
+     * @return The edges in the result, deleted edges are skipped.
+     */
+    Stream<Edge> edges(Neo4JVertex vertex, StatementResult result) {
+        Objects.requireNonNull(vertex, "vertex cannot be null");
         Objects.requireNonNull(result, "result cannot be null");
         // create stream from result, skip deleted edges
         return StreamSupport.stream(Spliterators.spliteratorUnknownSize(result, Spliterator.NONNULL | Spliterator.IMMUTABLE), false)
-            .map(this::loadEdge)
+            .map(record -> loadEdge(vertex, record.get(0).asRelationship(), () -> record.get(1).asNode(), true))
             .filter(edge -> edge != null);
     }
 
-    private static <T> Iterator<T> combine(Stream<T> collection, Stream<T> query) {
-        // create a copy of first stream (state can be modified in the middle of the iteration)
-        List<T> copy = collection.collect(Collectors.toCollection(LinkedList::new));
-        // iterate query and accumulate to list
-        query.forEach(copy::add);
-        // return iterator
-        return copy.iterator();
+    /**
+     * Executes an adjacency statement returning the edges of the given vertex (<code>RETURN r, m</code>), the vertex
+     * is not part of the records.
+     *
+     * @param vertex    The vertex the edges are adjacent to.
+     * @param statement The Cypher statement.
+     * @return The edges iterator, the iterator must be closed if it is abandoned before it is exhausted.
+     */
+    Iterator<Edge> edges(Neo4JVertex vertex, Statement statement) {
+        Objects.requireNonNull(vertex, "vertex cannot be null");
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // edges in query result (records are loaded on demand)
+        return new Neo4JResultIterator<>(Collections.emptyIterator(), result, record -> loadEdge(vertex, record.get(0).asRelationship(), () -> record.get(1).asNode(), true), Long.MAX_VALUE, null, iterators);
+    }
+
+    /**
+     * Finds the edges of the given vertex one page at a time (keyset pagination on the relationship identifier), the
+     * pages are returned by adjacency statements (<code>RETURN r, m</code>). The first page is also the degree probe:
+     * if it has less records than the page size the vertex is not a supernode, its edges are registered with the
+     * session (and the vertex) and <code>loaded</code> is executed. Otherwise the edges and adjacent vertices in the
+     * pages are not tracked by the session (or the vertex) unless they are modified.
+     *
+     * @param vertex   The vertex the edges are adjacent to.
+     * @param memory   The edges in memory not stored in the database (must be a copy since session state can be modified in the middle of the iteration).
+     * @param page     The function used to create the page statement given the identifier of the last relationship, <code>null</code> for the first page.
+     * @param pageSize The number of records per page (the supernode degree threshold plus one).
+     * @param loaded   The action executed if all the edges were found in the first page, <code>null</code> if not required.
+     * @return The edges iterator, the iterator must be closed if it is abandoned before it is exhausted.
+     */
+    Iterator<Edge> edges(Neo4JVertex vertex, Iterator<? extends Edge> memory, Function<Object, Statement> page, int pageSize, Runnable loaded) {
+        Objects.requireNonNull(vertex, "vertex cannot be null");
+        Objects.requireNonNull(memory, "memory cannot be null");
+        Objects.requireNonNull(page, "page cannot be null");
+        // execute first page statement
+        StatementResult result = executeStatement(page.apply(null));
+        // records in first page (at most page size records)
+        List<Record> records = new ArrayList<>();
+        while (result.hasNext())
+            records.add(result.next());
+        // process summary
+        ResultSummaryLogger.log(result.consume());
+        // check vertex is a supernode (first page is full)
+        boolean supernode = records.size() >= pageSize;
+        // edges in memory followed by the ones in first page (edges of supernodes are not tracked)
+        List<Edge> edges = new ArrayList<>();
+        memory.forEachRemaining(edges::add);
+        records.stream().map(record -> loadEdge(vertex, record.get(0).asRelationship(), () -> record.get(1).asNode(), !supernode)).filter(edge -> edge != null).forEach(edges::add);
+        // check all edges were found in first page
+        if (!supernode) {
+            // notify edges were loaded
+            if (loaded != null)
+                loaded.run();
+            // return edges
+            return edges.iterator();
+        }
+        // identifier of last relationship in first page
+        Object first = records.get(records.size() - 1).get(0).asRelationship().get(edgeIdFieldName).asObject();
+        // edges in memory and first page followed by the ones in database (one page at a time)
+        return new Neo4JPagedResultIterator<>(edges.iterator(), last -> executeStatement(page.apply(last != null ? last : first)), record -> record.get(0).asRelationship().get(edgeIdFieldName).asObject(), record -> loadEdge(vertex, record.get(0).asRelationship(), () -> record.get(1).asNode(), false), pageSize, iterators);
+    }
+
+    Iterator<Edge> edges(Statement statement) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // edges in query result (records are loaded on demand)
+        return new Neo4JResultIterator<>(Collections.emptyIterator(), result, this::loadEdge, Long.MAX_VALUE, null, iterators);
+    }
+
+    Iterator<Edge> edges(Statement statement, Predicate<? super Edge> predicate) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        Objects.requireNonNull(predicate, "predicate cannot be null");
+        // edges modified in transaction (state in database is not current), evaluate them in memory
+        List<Edge> memory = Stream.concat(transientEdges.stream(), edgeUpdateQueue.stream()).filter(predicate).map(edge -> (Edge)edge).collect(Collectors.toList());
+        // identifiers of edges evaluated in memory
+        Set<Object> identifiers = edgeUpdateQueue.stream().map(Neo4JEdge::id).collect(Collectors.toSet());
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // edges in memory followed by the ones in query result not evaluated in memory (records are loaded on demand)
+        return new Neo4JResultIterator<>(memory.iterator(), result, record -> {
+            // load edge
+            Edge edge = loadEdge(record);
+            // skip edges evaluated in memory, evaluate predicate on the others
+            return edge != null && !identifiers.contains(edge.id()) && predicate.test(edge) ? edge : null;
+        }, Long.MAX_VALUE, null, iterators);
+    }
+
+    /**
+     * Loads the edges of the given vertices into memory with a statement per group of vertices with the same labels
+     * (vertices are matched by identifier). Vertices with the requested edges already in memory are skipped, the loaded
+     * flags and labels of the vertices are updated once the statement has been consumed. Vertices with more edges than
+     * the supernode degree threshold (see {@link Neo4JGraph#getSupernodeDegreeThreshold()}) are not loaded, their edges
+     * are iterated in pages.
+     *
+     * @param vertices  The vertices.
+     * @param direction The edge direction.
+     * @param labels    The edge labels, empty for all labels.
+     */
+    void loadEdges(Collection<Neo4JVertex> vertices, Direction direction, Set<String> labels) {
+        Objects.requireNonNull(vertices, "vertices cannot be null");
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // vertices requiring a statement, grouped by the labels used to match them in the database
+        Map<SortedSet<String>, List<Neo4JVertex>> groups = vertices.stream().distinct().filter(vertex -> !vertex.hasEdgesLoaded(direction, labels)).collect(Collectors.groupingBy(Neo4JVertex::matchLabels));
+        // relationship types (sorted, statement text must not depend on set order)
+        List<String> types = labels.stream().sorted().collect(Collectors.toList());
+        // relationship pattern
+        String relationship = (direction == Direction.IN ? "<-[r" : "-[r") + types.stream().map(type -> ":`" + type + "`").collect(Collectors.joining("|")) + (direction == Direction.OUT ? "]->" : "]-");
+        // supernode degree threshold
+        int threshold = graph.getSupernodeDegreeThreshold();
+        // process groups
+        for (Map.Entry<SortedSet<String>, List<Neo4JVertex>> entry : groups.entrySet()) {
+            // statement parameters
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put("ids", entry.getValue().stream().map(Neo4JVertex::id).collect(Collectors.toList()));
+            // check supernodes must be skipped
+            if (threshold > 0)
+                parameters.put("threshold", threshold);
+            // cypher statement
+            Statement statement = new Statement(templates.template(() -> {
+                // vertex match predicate
+                String predicate = partition.vertexMatchPredicate("m");
+                // anchor nodes
+                String match = "MATCH (n" + entry.getKey().stream().map(label -> ":`" + label + "`").collect(Collectors.joining("")) + ") WHERE n." + vertexIdFieldName + " IN {ids}";
+                // check supernodes must be skipped (anchor nodes are returned even if they do not have edges)
+                if (threshold > 0)
+                    return match + " AND size((n)" + relationship.replace("[r", "[") + "()) <= {threshold} OPTIONAL MATCH (n)" + relationship + generateVertexMatchPattern("m") + (predicate != null ? " WHERE " + predicate : "") + " RETURN n." + vertexIdFieldName + ", r, m";
+                // statement text
+                return match + " MATCH (n)" + relationship + generateVertexMatchPattern("m") + (predicate != null ? " WHERE " + predicate : "") + " RETURN n." + vertexIdFieldName + ", r, m";
+            }, "load-edges", entry.getKey(), vertexIdFieldName, direction, types, partition, threshold > 0), parameters);
+            // vertices by id (anchor nodes are not part of the records)
+            Map<Object, Neo4JVertex> map = entry.getValue().stream().collect(Collectors.toMap(Neo4JVertex::id, vertex -> vertex));
+            // vertices with edges in result (all of them if supernodes are not skipped)
+            Set<Neo4JVertex> loaded = threshold > 0 ? new HashSet<>() : new HashSet<>(entry.getValue());
+            // execute statement
+            StatementResult result = executeStatement(statement);
+            // load edges (edges are registered with adjacent vertices)
+            while (result.hasNext()) {
+                // current record
+                Record record = result.next();
+                // anchor vertex
+                Neo4JVertex vertex = map.get(record.get(0).asObject());
+                if (vertex != null) {
+                    // vertex is not a supernode
+                    loaded.add(vertex);
+                    // check record has a relationship (anchor nodes without edges)
+                    if (!record.get(1).isNull())
+                        loadEdge(vertex, record.get(1).asRelationship(), () -> record.get(2).asNode(), true);
+                }
+            }
+            // process summary
+            ResultSummaryLogger.log(result.consume());
+            // after this line it is safe to update loaded flags and labels in memory
+            loaded.forEach(vertex -> vertex.edgesLoaded(direction, labels));
+        }
+    }
+
+    /**
+     * Loads the vertices and edges within <code>depth</code> hops of the given vertices with a single statement
+     * (relationships are followed in both directions, paths are restricted to vertices in the read partition). The
+     * edges of the vertices closer than <code>depth</code> hops to the seeds are marked as loaded.
+     *
+     * @param ids   The seed vertex identifiers.
+     * @param depth The number of hops.
+     * @param types The relationship types, empty for all types.
+     */
+    void prefetch(Object[] ids, int depth, Set<String> types) {
+        Objects.requireNonNull(ids, "ids cannot be null");
+        Objects.requireNonNull(types, "types cannot be null");
+        // verify identifiers
+        verifyIdentifiers(Vertex.class, ids);
+        // seed identifiers
+        List<Object> identifiers = Arrays.stream(ids).map(id -> processIdentifier(vertexIdProvider, id)).distinct().collect(Collectors.toList());
+        if (identifiers.isEmpty())
+            return;
+        // relationship types (sorted, statement text must not depend on set order)
+        List<String> list = types.stream().sorted().collect(Collectors.toList());
+        // cypher statement
+        Statement statement = new Statement(templates.template(() -> {
+            // seed match predicate
+            String predicate = partition.vertexMatchPredicate("s");
+            // seed vertices
+            String match = "MATCH " + generateVertexMatchPattern("s") + " WHERE s." + vertexIdFieldName + " IN {ids}" + (predicate != null ? " AND " + predicate : "");
+            // check neighborhood is required
+            if (depth == 0)
+                return match + " RETURN s AS n, null AS r, null AS m";
+            // partition conditions on vertices in path
+            List<String> conditions = partition.vertexMatchPatternLabels().stream().map(label -> "x:`" + label + "`").collect(Collectors.toList());
+            String condition = partition.vertexMatchPredicate("x");
+            if (condition != null)
+                conditions.add(condition);
+            // statement text, seeds without relationships are returned with a null relationship
+            return match + " OPTIONAL MATCH p = (s)-[" + list.stream().map(type -> ":`" + type + "`").collect(Collectors.joining("|")) + "*1.." + depth + "]-()" + (!conditions.isEmpty() ? " WHERE ALL(x IN nodes(p) WHERE " + conditions.stream().collect(Collectors.joining(" AND ")) + ")" : "") + " UNWIND coalesce(relationships(p), [null]) AS r WITH DISTINCT s, r RETURN coalesce(startNode(r), s) AS n, r, endNode(r) AS m";
+        }, "prefetch", partition, vertexIdFieldName, depth, list), Values.parameters("ids", identifiers));
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // adjacent vertex identifiers in neighborhood
+        Map<Object, Set<Object>> adjacency = new HashMap<>();
+        // process records
+        while (result.hasNext()) {
+            // current record
+            Record record = result.next();
+            // check seed without relationships
+            if (record.get(1).isNull()) {
+                // load seed
+                loadVertex(record);
+                continue;
+            }
+            // load edge (edges are registered with adjacent vertices)
+            Edge edge = loadEdge(record);
+            if (edge != null) {
+                // vertex identifiers
+                Object out = edge.outVertex().id();
+                Object in = edge.inVertex().id();
+                // update adjacency
+                adjacency.computeIfAbsent(out, key -> new HashSet<>()).add(in);
+                adjacency.computeIfAbsent(in, key -> new HashSet<>()).add(out);
+            }
+        }
+        // process summary
+        ResultSummaryLogger.log(result.consume());
+        // after this line it is safe to update loaded flags and labels in memory (vertices closer than depth hops)
+        Set<Object> visited = new HashSet<>(identifiers);
+        Set<Object> frontier = new HashSet<>(identifiers);
+        for (int hop = 0; hop < depth && !frontier.isEmpty(); hop++) {
+            // next frontier
+            Set<Object> next = new HashSet<>();
+            for (Object id : frontier) {
+                // check vertex is in memory
+                Neo4JVertex vertex = vertices.get(id);
+                if (vertex != null) {
+                    // all edges of vertex are in neighborhood
+                    vertex.edgesLoaded(Direction.BOTH, types);
+                    // adjacent vertices
+                    adjacency.getOrDefault(id, Collections.emptySet()).stream().filter(visited::add).forEach(next::add);
+                }
+            }
+            frontier = next;
+        }
+    }
+
+    /**
+     * Finds the edges with identifiers in the range [from, to], edges are not tracked by the session.
+     *
+     * @param from The first identifier in range (inclusive).
+     * @param to   The last identifier in range (inclusive).
+     * @return The edges iterator.
+     */
+    Iterator<Edge> scanEdges(long from, long to) {
+        // cypher statement
+        Statement statement = new Statement(templates.template(() -> {
+            // vertex match predicates
+            String outVertexPredicate = partition.vertexMatchPredicate("n");
+            String inVertexPredicate = partition.vertexMatchPredicate("m");
+            // statement text
+            return "MATCH " + generateVertexMatchPattern("n") + "-[r]->" + generateVertexMatchPattern("m") + " WHERE r." + edgeIdFieldName + " >= {from} AND r." + edgeIdFieldName + " <= {to}" + (outVertexPredicate != null && inVertexPredicate != null ? " AND " + outVertexPredicate + " AND " + inVertexPredicate : "") + " RETURN n, r, m";
+        }, "range-edges", partition, edgeIdFieldName), Values.parameters("from", from, "to", to));
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // edges in query result (records are loaded on demand)
+        return new Neo4JResultIterator<>(Collections.emptyIterator(), result, record -> loadEdge(record, false), Long.MAX_VALUE, null, iterators);
+    }
+
+    /**
+     * Finds the minimum and maximum edge identifiers in the partition.
+     *
+     * @return The identifiers range (minimum and maximum), <code>null</code> if there are no edges.
+     */
+    long[] edgeIdentifierRange() {
+        // cypher statement
+        Statement statement = new Statement(templates.template(() -> {
+            // vertex match predicates
+            String outVertexPredicate = partition.vertexMatchPredicate("n");
+            String inVertexPredicate = partition.vertexMatchPredicate("m");
+            // statement text
+            return "MATCH " + generateVertexMatchPattern("n") + "-[r]->" + generateVertexMatchPattern("m") + (outVertexPredicate != null && inVertexPredicate != null ? " WHERE " + outVertexPredicate + " AND " + inVertexPredicate : "") + " RETURN min(r." + edgeIdFieldName + "), max(r." + edgeIdFieldName + ")";
+        }, "range-edge-ids", partition, edgeIdFieldName));
+        // execute statement
+        return identifierRange(executeStatement(statement));
+    }
+
+    private static long[] identifierRange(StatementResult result) {
+        // range
+        long[] range = null;
+        // process record
+        if (result.hasNext()) {
+            // record
+            Record record = result.next();
+            // check we have elements
+            if (!record.get(0).isNull() && !record.get(1).isNull()) {
+                // identifiers must be numeric
+                if (!(record.get(0).asObject() instanceof Number) || !(record.get(1).asObject() instanceof Number))
+                    throw new IllegalStateException("Range scans require numeric element identifiers");
+                // minimum and maximum
+                range = new long[]{record.get(0).asLong(), record.get(1).asLong()};
+            }
+        }
+        // process summary
+        ResultSummaryLogger.log(result.consume());
+        // return range
+        return range;
+    }
+
+    private Statement edgeScanStatement(Object last, int pageSize) {
+        // check first page
+        boolean first = last == null;
+        // cypher statement
+        return new Statement(templates.template(() -> {
+            // vertex match predicates
+            String outVertexPredicate = partition.vertexMatchPredicate("n");
+            String inVertexPredicate = partition.vertexMatchPredicate("m");
+            // page predicate
+            String range = !first ? "r." + edgeIdFieldName + " > {last}" : null;
+            // partition predicate
+            String predicate = outVertexPredicate != null && inVertexPredicate != null ? outVertexPredicate + " AND " + inVertexPredicate : null;
+            // where clause
+            String where = range != null ? (predicate != null ? " WHERE " + range + " AND " + predicate : " WHERE " + range) : (predicate != null ? " WHERE " + predicate : "");
+            // statement text
+            return "MATCH " + generateVertexMatchPattern("n") + "-[r]->" + generateVertexMatchPattern("m") + where + " RETURN n, r, m ORDER BY r." + edgeIdFieldName + " LIMIT {page}";
+        }, "scan-edges", partition, edgeIdFieldName, first), !first ? Values.parameters("last", last, "page", pageSize) : Values.parameters("page", pageSize));
     }
 
     void removeEdge(Neo4JEdge edge, boolean explicit) {
@@ -485,11 +1104,14 @@ class Neo4JSession implements AutoCloseable {
                 // add to delete queue
                 edgeDeleteQueue.add(edge);
             }
-            // remove it from update queue (avoid issuing MERGE command for an element that has been deleted)
+            // remove it from update queue (avoid issuing update statement for an element that has been deleted)
             edgeUpdateQueue.remove(edge);
         }
         // remove edge from map
         edges.remove(id);
+        // flush pending changes if needed (edges removed by a vertex delete are flushed with the vertex)
+        if (explicit)
+            flushIfRequired();
     }
 
     private static <T> void verifyIdentifiers(Class<T> elementClass, Object... ids) {
@@ -522,19 +1144,29 @@ class Neo4JSession implements AutoCloseable {
     }
 
     private Vertex loadVertex(Record record) {
-        // node
-        Node node = record.get(0).asNode();
+        // load and register vertex
+        return loadVertex(record, true);
+    }
+
+    private Vertex loadVertex(Record record, boolean register) {
+        // use overloaded method
+        return loadVertex(record.get(0).asNode(), register);
+    }
+
+    private Vertex loadVertex(Node node, boolean register) {
         // vertex id
         Object vertexId = node.get(vertexIdFieldName).asObject();
         // check vertex has been deleted
         if (!deletedVertices.contains(vertexId)) {
             // check this vertex has been already loaded into this session
-            Vertex vertex = vertices.get(vertexId);
+            Vertex vertex = findVertex(vertexId, register);
             if (vertex == null) {
                 // check node belongs to partition
                 if (partition.containsVertex(StreamSupport.stream(node.labels().spliterator(), false).collect(Collectors.toSet()))) {
-                    // create and register vertex
-                    return registerVertex(new Neo4JVertex(graph, this, vertexIdProvider, node));
+                    // create vertex
+                    Neo4JVertex created = new Neo4JVertex(graph, this, vertexIdProvider, node);
+                    // register vertex if required (scanned vertices are not tracked by session unless modified)
+                    return register ? registerVertex(created) : scannedVertex(created);
                 }
                 // skip vertex (not in partition)
                 return null;
@@ -547,18 +1179,26 @@ class Neo4JSession implements AutoCloseable {
     }
 
     private Edge loadEdge(Record record) {
-        // relationship
-        Relationship relationship = record.get(1).asRelationship();
+        // load and register edge
+        return loadEdge(record, true);
+    }
+
+    private Edge loadEdge(Record record, boolean register) {
+        // use overloaded method
+        return loadEdge(record.get(1).asRelationship(), () -> record.get(0).asNode(), () -> record.get(2).asNode(), register);
+    }
+
+    private Edge loadEdge(Relationship relationship, Supplier<Node> firstNodeSupplier, Supplier<Node> secondNodeSupplier, boolean register) {
         // edge id
         Object edgeId = relationship.get(edgeIdFieldName).asObject();
         // check edge has been deleted
         if (!deletedEdges.contains(edgeId)) {
             // check we have record in memory
-            Neo4JEdge edge = edges.get(edgeId);
+            Neo4JEdge edge = findEdge(edgeId, register);
             if (edge == null) {
-                // nodes
-                Node firstNode = record.get(0).asNode();
-                Node secondNode = record.get(2).asNode();
+                // nodes (only needed if edge is not in memory)
+                Node firstNode = firstNodeSupplier.get();
+                Node secondNode = secondNodeSupplier.get();
                 // node ids
                 Object firstNodeId = firstNode.get(vertexIdFieldName).asObject();
                 Object secondNodeId = secondNode.get(vertexIdFieldName).asObject();
@@ -566,26 +1206,35 @@ class Neo4JSession implements AutoCloseable {
                 if (deletedVertices.contains(firstNodeId) || deletedVertices.contains(secondNodeId) || !partition.containsVertex(StreamSupport.stream(firstNode.labels().spliterator(), false).collect(Collectors.toSet())) || !partition.containsVertex(StreamSupport.stream(secondNode.labels().spliterator(), false).collect(Collectors.toSet())))
                     return null;
                 // check we have first vertex in memory
-                Neo4JVertex firstVertex = vertices.get(firstNodeId);
+                Neo4JVertex firstVertex = findVertex(firstNodeId, register);
                 if (firstVertex == null) {
                     // create vertex
                     firstVertex = new Neo4JVertex(graph, this, vertexIdProvider, firstNode);
-                    // register it
-                    registerVertex(firstVertex);
+                    // register it if required
+                    if (register)
+                        registerVertex(firstVertex);
+                    else
+                        scannedVertex(firstVertex);
                 }
                 // check we have second vertex in memory
-                Neo4JVertex secondVertex = vertices.get(secondNodeId);
+                Neo4JVertex secondVertex = findVertex(secondNodeId, register);
                 if (secondVertex == null) {
                     // create vertex
                     secondVertex = new Neo4JVertex(graph, this, vertexIdProvider, secondNode);
-                    // register it
-                    registerVertex(secondVertex);
+                    // register it if required
+                    if (register)
+                        registerVertex(secondVertex);
+                    else
+                        scannedVertex(secondVertex);
                 }
                 // find out start and end of the relationship (edge could come in either direction)
                 Neo4JVertex out = relationship.startNodeId() == firstNode.id() ? firstVertex : secondVertex;
                 Neo4JVertex in = relationship.endNodeId() == firstNode.id() ? firstVertex : secondVertex;
                 // create edge
                 edge = new Neo4JEdge(graph, this, edgeIdProvider, out, relationship, in);
+                // scanned edges are not tracked by session (or adjacent vertices) unless modified
+                if (!register)
+                    return scannedEdge(edge);
                 // register with adjacent vertices
                 out.addOutEdge(edge);
                 in.addInEdge(edge);
@@ -599,6 +1248,179 @@ class Neo4JSession implements AutoCloseable {
         return null;
     }
 
+    private Edge loadEdge(Relationship relationship, Object outVertexId, Object inVertexId) {
+        // edge id
+        Object edgeId = relationship.get(edgeIdFieldName).asObject();
+        // check edge has been deleted
+        if (!deletedEdges.contains(edgeId)) {
+            // check we have record in memory
+            Neo4JEdge edge = findEdge(edgeId, true);
+            if (edge == null) {
+                // check edge has been deleted (one of the vertices was deleted)
+                if (deletedVertices.contains(outVertexId) || deletedVertices.contains(inVertexId))
+                    return null;
+                // vertices (loaded before the record if they were not in memory)
+                Neo4JVertex out = findVertex(outVertexId, true);
+                Neo4JVertex in = findVertex(inVertexId, true);
+                // check vertices are in the read partition
+                if (out == null || in == null)
+                    return null;
+                // create edge
+                edge = new Neo4JEdge(graph, this, edgeIdProvider, out, relationship, in);
+                // register with adjacent vertices
+                out.addOutEdge(edge);
+                in.addInEdge(edge);
+                // register edge
+                return registerEdge(edge);
+            }
+            // return edge
+            return edge;
+        }
+        // skip edge
+        return null;
+    }
+
+    private Edge loadEdge(Neo4JVertex vertex, Relationship relationship, Supplier<Node> nodeSupplier, boolean register) {
+        // edge id
+        Object edgeId = relationship.get(edgeIdFieldName).asObject();
+        // check edge has been deleted
+        if (!deletedEdges.contains(edgeId)) {
+            // check we have record in memory
+            Neo4JEdge edge = findEdge(edgeId, register);
+            if (edge == null) {
+                // adjacent node (the anchor vertex is not part of the record)
+                Node node = nodeSupplier.get();
+                // node id
+                Object nodeId = node.get(vertexIdFieldName).asObject();
+                // check edge has been deleted (one of the vertices was deleted) or the adjacent vertex is not in the read partition
+                if (deletedVertices.contains(vertex.id()) || deletedVertices.contains(nodeId) || !partition.containsVertex(StreamSupport.stream(node.labels().spliterator(), false).collect(Collectors.toSet())))
+                    return null;
+                // check we have adjacent vertex in memory
+                Neo4JVertex adjacentVertex = findVertex(nodeId, register);
+                if (adjacentVertex == null) {
+                    // create vertex
+                    adjacentVertex = new Neo4JVertex(graph, this, vertexIdProvider, node);
+                    // register it if required
+                    if (register)
+                        registerVertex(adjacentVertex);
+                    else
+                        scannedVertex(adjacentVertex);
+                }
+                // find out start and end of the relationship (edge could come in either direction)
+                Neo4JVertex out = relationship.startNodeId() == node.id() ? adjacentVertex : vertex;
+                Neo4JVertex in = relationship.endNodeId() == node.id() ? adjacentVertex : vertex;
+                // create edge
+                edge = new Neo4JEdge(graph, this, edgeIdProvider, out, relationship, in);
+                // paged edges are not tracked by session (or adjacent vertices) unless modified
+                if (!register)
+                    return scannedEdge(edge);
+                // anchor vertex must be tracked by session (it could be a scanned vertex), edges reference it
+                trackVertex(vertex);
+                // register with adjacent vertices
+                out.addOutEdge(edge);
+                in.addInEdge(edge);
+                // register edge
+                return registerEdge(edge);
+            }
+            // return edge
+            return edge;
+        }
+        // skip edge
+        return null;
+    }
+
+    private void loadEndpoints(List<Record> records) {
+        // identifiers of the endpoints not in memory
+        Set<Object> ids = new HashSet<>();
+        for (Record record : records) {
+            // check edge must be created (not deleted and not in memory)
+            Object edgeId = record.get(0).asRelationship().get(edgeIdFieldName).asObject();
+            if (!deletedEdges.contains(edgeId) && findEdge(edgeId, true) == null) {
+                // endpoints
+                for (int index = 1; index <= 2; index++) {
+                    // vertex id
+                    Object vertexId = record.get(index).asObject();
+                    // check vertex must be loaded (found vertices are tracked, they must be available when the record is loaded)
+                    if (!deletedVertices.contains(vertexId) && findVertex(vertexId, true) == null)
+                        ids.add(vertexId);
+                }
+            }
+        }
+        // check we need to execute statement in server
+        if (!ids.isEmpty()) {
+            // load and register vertices (single statement for all records in batch)
+            Iterator<Vertex> iterator = vertices(ids.toArray());
+            while (iterator.hasNext())
+                iterator.next();
+        }
+    }
+
+    private Neo4JVertex findVertex(Object id, boolean register) {
+        // check vertex is in session
+        Neo4JVertex vertex = vertices.get(id);
+        if (vertex == null) {
+            // vertex evicted by a flush or loaded by a scan (instance still referenced by the application)
+            vertex = flushedVertices.get(id);
+            if (vertex == null)
+                vertex = scannedVertices.get(id);
+            // track it if required
+            if (vertex != null && register)
+                trackVertex(vertex);
+        }
+        return vertex;
+    }
+
+    private Neo4JEdge findEdge(Object id, boolean register) {
+        // check edge is in session
+        Neo4JEdge edge = edges.get(id);
+        if (edge == null) {
+            // edge evicted by a flush or loaded by a scan (instance still referenced by the application)
+            edge = flushedEdges.get(id);
+            if (edge == null)
+                edge = scannedEdges.get(id);
+            // track it if required
+            if (edge != null && register)
+                trackEdge(edge);
+        }
+        return edge;
+    }
+
+    private Neo4JVertex scannedVertex(Neo4JVertex vertex) {
+        // vertex is not tracked by session, but subsequent loads must return the same instance while it is in use
+        scannedVertices.put(vertex.id(), vertex);
+        // return vertex
+        return vertex;
+    }
+
+    private Neo4JEdge scannedEdge(Neo4JEdge edge) {
+        // edge is not tracked by session, but subsequent loads must return the same instance while it is in use
+        scannedEdges.put(edge.id(), edge);
+        // return edge
+        return edge;
+    }
+
+    private void trackVertex(Neo4JVertex vertex) {
+        // vertex id
+        Object id = vertex.id();
+        // track vertex, the session must never hold two instances of the same vertex
+        Neo4JVertex existing = vertices.putIfAbsent(id, vertex);
+        if (existing != null && existing != vertex)
+            throw new IllegalStateException(String.format(Locale.getDefault(), "Vertex %s is already tracked by the session with a different instance", id));
+        // vertex is tracked by session
+        scannedVertices.remove(id);
+    }
+
+    private void trackEdge(Neo4JEdge edge) {
+        // edge id
+        Object id = edge.id();
+        // track edge, the session must never hold two instances of the same edge
+        Neo4JEdge existing = edges.putIfAbsent(id, edge);
+        if (existing != null && existing != edge)
+            throw new IllegalStateException(String.format(Locale.getDefault(), "Edge %s is already tracked by the session with a different instance", id));
+        // edge is tracked by session
+        scannedEdges.remove(id);
+    }
+
     private Vertex registerVertex(Neo4JVertex vertex) {
         // map vertex
         vertices.put(vertex.id(), vertex);
@@ -634,43 +1456,109 @@ class Neo4JSession implements AutoCloseable {
             deletedVertices.add(id);
             // add vertex to queue
             vertexDeleteQueue.add(vertex);
-            // remove it from update queue (avoid issuing MERGE command for an element that has been deleted)
+            // remove it from update queue (avoid issuing update statement for an element that has been deleted)
             vertexUpdateQueue.remove(vertex);
         }
         // remove vertex from map
         vertices.remove(id);
+        // flush pending changes if needed
+        flushIfRequired();
     }
 
     void dirtyVertex(Neo4JVertex vertex) {
+        // detached vertices cannot be modified
+        checkAttached();
         // check element is a transient one
         if (!transientVertices.contains(vertex)) {
+            // track vertex (vertices loaded by a scan are adopted by session once modified)
+            trackVertex(vertex);
             // add vertex to processing queue
             vertexUpdateQueue.add(vertex);
+            // flush pending changes if needed
+            flushIfRequired();
         }
     }
 
     void dirtyEdge(Neo4JEdge edge) {
+        // detached edges cannot be modified
+        checkAttached();
         // check element is a transient one
         if (!transientEdges.contains(edge)) {
+            // track edge (edges loaded by a scan are adopted by session once modified)
+            trackEdge(edge);
             // add edge to processing queue
             edgeUpdateQueue.add(edge);
+            // flush pending changes if needed
+            flushIfRequired();
+        }
+    }
+
+    private void flushIfRequired() {
+        // flush threshold
+        int threshold = graph.getFlushThreshold();
+        // check number of pending elements
+        if (threshold > 0 && transaction != null && transientVertices.size() + transientEdges.size() + vertexUpdateQueue.size() + edgeUpdateQueue.size() + vertexDeleteQueue.size() + edgeDeleteQueue.size() >= threshold) {
+            // log information
+            if (logger.isDebugEnabled())
+                logger.debug("Flushing pending changes on transaction [{}]", transaction.hashCode());
+            // write pending changes into the open transaction
+            flush();
+            // flushed elements are evicted from session, instances still referenced by the application are committed or rolled back with the transaction
+            Stream.concat(transientVertices.stream(), vertexUpdateQueue.stream()).forEach(vertex -> {
+                // flush element state (state in database is the flushed one)
+                vertex.flush();
+                // evict vertex
+                flushedVertices.put(vertex.id(), vertex);
+                vertices.remove(vertex.id(), vertex);
+            });
+            Stream.concat(transientEdges.stream(), edgeUpdateQueue.stream()).forEach(edge -> {
+                // flush element state (state in database is the flushed one)
+                edge.flush();
+                // evict edge
+                flushedEdges.put(edge.id(), edge);
+                edges.remove(edge.id(), edge);
+            });
+            // deleted elements are restored if transaction is rolled back (identifiers are kept until transaction is completed, results opened before the flush could return them)
+            vertexDeleteQueue.forEach(vertex -> flushedVertices.put(vertex.id(), vertex));
+            edgeDeleteQueue.forEach(edge -> flushedEdges.put(edge.id(), edge));
+            // clean internal structures
+            edgeDeleteQueue.clear();
+            vertexDeleteQueue.clear();
+            transientEdges.clear();
+            transientVertices.clear();
+            vertexUpdateQueue.clear();
+            edgeUpdateQueue.clear();
+            // flushed elements are no longer in memory
+            verticesLoaded = false;
+            edgesLoaded = false;
+            // changes were written into the transaction
+            flushed = true;
+            flushCount++;
         }
     }
 
     private void flush() {
         try {
+            // statement results to be processed at the end of the flush (pipelined flush), null if processed after each statement
+            List<StatementResult> results = graph.isPipelinedFlushEnabled() ? new ArrayList<>() : null;
             // delete edges
-            deleteEdges();
+            deleteEdges(results);
             // delete vertices
-            deleteVertices();
+            deleteVertices(results);
             // create vertices
-            createVertices();
+            createVertices(results);
             // create edges
-            createEdges();
+            createEdges(results);
             // update edges
-            updateEdges();
+            updateEdges(results);
             // update vertices (after edges to be able to locate the vertex if referenced by an edge)
-            updateVertices();
+            updateVertices(results);
+            // check we need to process summaries
+            if (results != null) {
+                // process summaries (server errors are reported here)
+                for (StatementResult result : results)
+                    ResultSummaryLogger.log(result.consume());
+            }
         }
         catch (ClientException ex) {
             // log error
@@ -681,98 +1569,93 @@ class Neo4JSession implements AutoCloseable {
         }
     }
 
-    private void createVertices() {
+    private void createVertices(List<StatementResult> results) {
+        // batch insert statements (vertices with the same labels are created in a single statement)
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(graph.getBatchSize());
         // insert vertices
-        for (Neo4JVertex vertex : transientVertices) {
-            // create statement
-            Statement statement = vertex.insertStatement();
-            // log information
-            if (logger.isDebugEnabled())
-                logger.debug("Executing Cypher statement on transaction [{}]: {}", transaction.hashCode(), statement.toString());
-            // execute statement
-            StatementResult result = executeStatement(statement);
-            // process summary
-            ResultSummaryLogger.log(result.consume());
-        }
+        for (Neo4JVertex vertex : transientVertices)
+            vertex.insertStatement(batch);
+        // execute statements
+        executeStatements(batch, results);
     }
 
-    private void updateVertices() {
+    private void updateVertices(List<StatementResult> results) {
+        // batch update statements (vertices with the same labels and changes are updated in a single statement)
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(graph.getBatchSize());
         // update vertices
-        for (Neo4JVertex vertex : vertexUpdateQueue) {
-            // create statement
-            Statement statement = vertex.updateStatement();
-            if (statement != null) {
-                // log information
-                if (logger.isDebugEnabled())
-                    logger.debug("Executing Cypher statement on transaction [{}]: {}", transaction.hashCode(), statement.toString());
-                // execute statement
-                StatementResult result = executeStatement(statement);
-                // process summary
-                ResultSummaryLogger.log(result.consume());
-            }
-        }
+        for (Neo4JVertex vertex : vertexUpdateQueue)
+            vertex.updateStatement(batch);
+        // execute statements
+        executeStatements(batch, results);
     }
 
-    private void deleteVertices() {
+    private void deleteVertices(List<StatementResult> results) {
+        // batch delete statements (vertices with the same labels are deleted in a single statement)
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(graph.getBatchSize());
         // delete vertices
-        for (Neo4JVertex vertex : vertexDeleteQueue) {
-            // create statement
-            Statement statement = vertex.deleteStatement();
-            // log information
-            if (logger.isDebugEnabled())
-                logger.debug("Executing Cypher statement on transaction [{}]: {}", transaction.hashCode(), statement.toString());
-            // execute statement
-            StatementResult result = executeStatement(statement);
-            // process summary
-            ResultSummaryLogger.log(result.consume());
-        }
+        for (Neo4JVertex vertex : vertexDeleteQueue)
+            vertex.deleteStatement(batch);
+        // execute statements
+        executeStatements(batch, results);
     }
 
-    private void createEdges() {
+    private void createEdges(List<StatementResult> results) {
+        // batch insert statements (edges with the same label and vertex labels are created in a single statement)
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(graph.getBatchSize());
         // insert edges
-        for (Neo4JEdge edge : transientEdges) {
-            // create statement
-            Statement statement = edge.insertStatement();
-            // log information
-            if (logger.isDebugEnabled())
-                logger.debug("Executing Cypher statement on transaction [{}]: {}", transaction.hashCode(), statement.toString());
-            // execute statement
-            StatementResult result = executeStatement(statement);
-            // process summary
-            ResultSummaryLogger.log(result.consume());
-        }
+        for (Neo4JEdge edge : transientEdges)
+            edge.insertStatement(batch);
+        // execute statements
+        executeStatements(batch, results);
     }
 
-    private void updateEdges() {
+    private void updateEdges(List<StatementResult> results) {
+        // batch update statements (edges with the same label, vertex labels and changes are updated in a single statement)
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(graph.getBatchSize());
         // update edges
-        for (Neo4JEdge edge : edgeUpdateQueue) {
-            // create statement
-            Statement statement = edge.updateStatement();
-            // log information
-            if (logger.isDebugEnabled())
-                logger.debug("Executing Cypher statement on transaction [{}]: {}", transaction.hashCode(), statement.toString());
-            // execute statement
-            StatementResult result = executeStatement(statement);
-            // process summary
-            ResultSummaryLogger.log(result.consume());
-        }
+        for (Neo4JEdge edge : edgeUpdateQueue)
+            edge.updateStatement(batch);
+        // execute statements
+        executeStatements(batch, results);
     }
 
-    private void deleteEdges() {
+    private void deleteEdges(List<StatementResult> results) {
+        // batch delete statements (edges with the same label and vertex labels are deleted in a single statement)
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(graph.getBatchSize());
         // delete edges
         for (Neo4JEdge edge : edgeDeleteQueue) {
-            // create statement
-            Statement statement = edge.deleteStatement();
-            // log information
-            if (logger.isDebugEnabled())
-                logger.debug("Executing Cypher statement on transaction [{}]: {}", transaction.hashCode(), statement.toString());
+            // skip edges attached to a deleted vertex (DETACH DELETE on vertex will remove them)
+            if (!deletedVertices.contains(edge.out().id()) && !deletedVertices.contains(edge.in().id()))
+                edge.deleteStatement(batch);
+        }
+        // execute statements
+        executeStatements(batch, results);
+    }
+
+    private void executeStatements(Neo4JStatementBatch batch, List<StatementResult> results) {
+        // loop statements in batch
+        for (Statement statement : batch.statements()) {
             // execute statement
             StatementResult result = executeStatement(statement);
-            // process summary
-            ResultSummaryLogger.log(result.consume());
+            // check summary must be processed at the end of the flush
+            if (results != null)
+                results.add(result);
+            else
+                ResultSummaryLogger.log(result.consume());
         }
     }
 
+    Stream<Record> records(Statement statement) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // execute statement
+        StatementResult result = executeStatement(statement);
+        // records in query result (result is discarded on commit, rollback or close)
+        Neo4JResultIterator<Record> iterator = new Neo4JResultIterator<>(Collections.emptyIterator(), result, record -> record, Long.MAX_VALUE, null, iterators);
+        // create stream from iterator, closing the stream discards the records not processed
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL | Spliterator.IMMUTABLE), false)
+            .onClose(iterator::close);
+    }
+
     StatementResult executeStatement(Statement statement) {
         try {
             // statement to execute
@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Values;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Groups statement rows by Cypher text, every Cypher statement in the batch must UNWIND the <code>{rows}</code>
+ * parameter, example:
+ * <p>
+ * UNWIND {rows} AS row CREATE (n:`Label`) SET n = row
+ * </p>
+ *
+ * @author Rogelio J. Baucells
+ */
+class Neo4JStatementBatch {
+
+    public static final String RowsParameterName = "rows";
+
+    private final Map<String, List<Object>> rows = new LinkedHashMap<>();
+    private final int batchSize;
+
+    /**
+     * Creates a {@link Neo4JStatementBatch} instance.
+     *
+     * @param batchSize The maximum number of rows in a single statement, a value of zero or less disables the limit.
+     */
+    Neo4JStatementBatch(int batchSize) {
+        this.batchSize = batchSize > 0 ? batchSize : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Adds a row to the batch.
+     *
+     * @param statement The Cypher statement (UNWIND {rows} AS row ...).
+     * @param row       The row to be processed by the statement.
+     */
+    void add(String statement, Object row) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        Objects.requireNonNull(row, "row cannot be null");
+        // append row to statement rows
+        rows.computeIfAbsent(statement, key -> new ArrayList<>()).add(row);
+    }
+
+    boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    /**
+     * Generates the list of statements in the batch, statements with more rows than the maximum batch size
+     * are split into several statements.
+     *
+     * @return The list of statements.
+     */
+    List<Statement> statements() {
+        // statements
+        List<Statement> statements = new ArrayList<>();
+        // process rows
+        rows.forEach((text, list) -> {
+            // split rows in chunks
+            for (int start = 0, end; start < list.size(); start = end) {
+                // end of chunk (avoid overflow)
+                end = list.size() - start > batchSize ? start + batchSize : list.size();
+                // create statement
+                statements.add(new Statement(text, Values.parameters(RowsParameterName, list.subList(start, end))));
+            }
+        });
+        return statements;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches the Cypher text of generated statements, templates are identified by a key composed by the statement kind
+ * and the values used to generate the text (labels, relationship type, direction, etc). Reusing the same text avoids
+ * rebuilding the statement on every operation and keeps the server execution plan cache hitting.
+ * <p>
+ * Instances are thread safe, templates are shared by all {@link Neo4JGraph} instances in the process and lookups do
+ * not lock. Key values are not copied, callers must pass immutable values or collections that are not modified after
+ * the call (use {@link #labels(Collection)} for collections owned by an element). A {@link Neo4JReadPartition} in the
+ * key is compared with its own equals method (the partitions in this library are compared by type and labels), an
+ * arbitrary template is evicted once the cache is full.
+ * </p>
+ *
+ * @author Rogelio J. Baucells
+ */
+class Neo4JStatementTemplateCache {
+
+    public static final int DefaultMaximumSize = 1000;
+
+    private static final class Key {
+
+        private final Object[] values;
+        private final int hash;
+
+        Key(Object[] values) {
+            // store fields
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Key && hash == ((Key)object).hash && Arrays.equals(values, ((Key)object).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final ConcurrentMap<Key, String> templates = new ConcurrentHashMap<>();
+    private final int maximumSize;
+
+    Neo4JStatementTemplateCache() {
+        // use overloaded constructor
+        this(DefaultMaximumSize);
+    }
+
+    Neo4JStatementTemplateCache(int maximumSize) {
+        // store fields
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Creates an immutable copy of the given labels to be used in a template key, the copy is sorted so sets with
+     * the same labels generate the same key.
+     *
+     * @param labels The labels.
+     * @return The immutable labels.
+     */
+    static SortedSet<String> labels(Collection<String> labels) {
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // immutable copy
+        return Collections.unmodifiableSortedSet(new TreeSet<>(labels));
+    }
+
+    /**
+     * Gets the Cypher text for the given key, the text is generated and stored in the cache if not found.
+     *
+     * @param generator The Cypher text generator.
+     * @param key       The template key (statement kind followed by the values used to generate the text), values are
+     *                  not copied.
+     * @return The Cypher text.
+     */
+    String template(Supplier<String> generator, Object... key) {
+        Objects.requireNonNull(generator, "generator cannot be null");
+        Objects.requireNonNull(key, "key cannot be null");
+        // lookup key (varargs array is owned by this call)
+        Key lookup = new Key(key);
+        // find template
+        String template = templates.get(lookup);
+        if (template != null)
+            return template;
+        // generate text (generator can be expensive, concurrent callers could generate the same text)
+        template = generator.get();
+        // store template
+        String existing = templates.putIfAbsent(lookup, template);
+        if (existing != null)
+            return existing;
+        // evict templates once the cache is full
+        for (Iterator<Key> iterator = templates.keySet().iterator(); templates.size() > maximumSize && iterator.hasNext(); ) {
+            // skip template just stored
+            if (iterator.next() != lookup)
+                iterator.remove();
+        }
+        return template;
+    }
+
+    int size() {
+        return templates.size();
+    }
+}
@@ -28,10 +28,10 @@ import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty;
 import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 import org.neo4j.driver.v1.Statement;
 import org.neo4j.driver.v1.StatementResult;
 import org.neo4j.driver.v1.Value;
-import org.neo4j.driver.v1.Values;
 import org.neo4j.driver.v1.types.Node;
 
 import java.util.ArrayList;
@@ -50,6 +50,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -141,6 +142,12 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                     // remove cardinality
                     vertex.cardinalities.remove(name);
                 }
+                // update flag
+                vertex.dirty = true;
+                // property must be updated in database
+                vertex.dirtyProperties.add(name);
+                // notify session
+                vertex.session.dirtyVertex(vertex);
             }
         }
 
@@ -163,6 +170,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     public static final String LabelDelimiter = "::";
 
     private static final AtomicLong propertyIdProvider = new AtomicLong(0L);
+    private static final Neo4JStatementTemplateCache templates = new Neo4JStatementTemplateCache();
 
     private final Neo4JGraph graph;
     private final Neo4JReadPartition partition;
@@ -175,6 +183,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     private final Set<String> inEdgeLabels = new HashSet<>();
     private final SortedSet<String> labelsAdded = new TreeSet<>();
     private final SortedSet<String> labelsRemoved = new TreeSet<>();
+    private final SortedSet<String> dirtyProperties = new TreeSet<>();
     private final SortedSet<String> labels;
     private final Set<String> additionalLabels;
     private final String idFieldName;
@@ -188,6 +197,9 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     private Set<String> graphLabels;
     private Map<String, Collection<VertexProperty>> originalProperties;
     private Map<String, VertexProperty.Cardinality> originalCardinalities;
+    private SortedSet<String> transactionLabels = null;
+    private Map<String, Collection<VertexProperty>> transactionProperties = null;
+    private Map<String, VertexProperty.Cardinality> transactionCardinalities = null;
 
     Neo4JVertex(Neo4JGraph graph, Neo4JSession session, Neo4JElementIdProvider vertexIdProvider, Object id, Collection<String> labels) {
         Objects.requireNonNull(graph, "graph cannot be null");
@@ -237,7 +249,7 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         // this is the original set of labels
         this.originalLabels = new TreeSet<>(this.labels);
         // labels used to match the vertex in the database
-        this.matchLabels = StreamSupport.stream(node.labels().spliterator(), false).collect(Collectors.toCollection(TreeSet::new));
+        this.matchLabels = Collections.unmodifiableSortedSet(StreamSupport.stream(node.labels().spliterator(), false).collect(Collectors.toCollection(TreeSet::new)));
         // copy properties from node, remove idFieldName from map
         StreamSupport.stream(node.keys().spliterator(), false).filter(key -> idFieldName.compareTo(key) != 0).forEach(key -> {
             // value
@@ -293,10 +305,10 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
             throw new IllegalArgumentException("Invalid label, label name cannot be the same as Graph partition labels");
         // add label to set
         if (labels.add(label)) {
-            // notify session
-            session.dirtyVertex(this);
             // we need to update labels
             labelsAdded.add(label);
+            // notify session
+            session.dirtyVertex(this);
             // indicate label was added
             return true;
         }
@@ -315,10 +327,10 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         if (labels.remove(label)) {
             // check this label was previously added in this session
             if (!labelsAdded.remove(label)) {
-                // notify session
-                session.dirtyVertex(this);
                 // we need to update labels
                 labelsRemoved.add(label);
+                // notify session
+                session.dirtyVertex(this);
             }
             // indicate label was removed
             return true;
@@ -326,6 +338,22 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         return false;
     }
 
+    /**
+     * Generates a Cypher MATCH pattern for the vertex without its identifier, example:
+     * <p>
+     * (alias:Label1:Label2)
+     * </p>
+     * Vertices with the same pattern can be matched by a single statement (<code>WHERE alias.id IN {ids}</code>).
+     *
+     * @param alias The node alias.
+     * @return the Cypher MATCH pattern.
+     */
+    public String matchPattern(String alias) {
+        Objects.requireNonNull(alias, "alias cannot be null");
+        // generate match pattern
+        return "(" + alias + processLabels(matchLabels, false) + ")";
+    }
+
     /**
      * Generates a Cypher MATCH pattern for the vertex, example:
      * <p>
@@ -345,6 +373,34 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         return "(" + processLabels(matchLabels, false) + "{" + idFieldName + ": {" + idParameterName + "}})";
     }
 
+    /**
+     * Generates a Cypher MATCH pattern for the vertex using a field in the current UNWIND row, example:
+     * <p>
+     * (alias:Label1:Label2{id: row.fieldName})
+     * </p>
+     *
+     * @param alias     The node alias.
+     * @param fieldName The name of the field in the UNWIND row that contains the vertex id.
+     * @return the Cypher MATCH clause.
+     */
+    String rowMatchPattern(String alias, String fieldName) {
+        // generate match pattern
+        return "(" + alias + processLabels(matchLabels, false) + "{" + idFieldName + ": row." + fieldName + "})";
+    }
+
+    /**
+     * Gets the labels used to match the vertex in the database.
+     *
+     * @return The vertex labels in the database (including additional labels).
+     */
+    SortedSet<String> matchLabels() {
+        return matchLabels;
+    }
+
+    String idFieldName() {
+        return idFieldName;
+    }
+
     /**
      * Generates a Cypher MATCH predicate for the vertex, example:
      * <p>
@@ -380,6 +436,8 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         if (vertex == null)
             throw Graph.Exceptions.argumentCanNotBeNull("vertex");
         ElementHelper.legalPropertyKeyValueArray(keyValues);
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
         // transaction should be ready for io operations
         graph.tx().readWrite();
         // add edge
@@ -392,15 +450,13 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         inEdges.remove(edge);
     }
 
-    private void processEdgesWhereClause(String vertexAlias, List<Object> identifiers, String alias, StringBuilder builder, Map<String, Object> parameters) {
+    private void processEdgesWhereClause(String vertexAlias, boolean excludeEdges, String alias, StringBuilder builder) {
         // generate match predicate
         String predicate = partition.vertexMatchPredicate(vertexAlias);
-        // check identifiers are empty
-        if (!identifiers.isEmpty()) {
+        // check we need to exclude edges in memory
+        if (excludeEdges) {
             // filter edges
             builder.append(" WHERE NOT ").append(alias).append(".").append(idFieldName).append(" IN {ids}");
-            // ids parameters
-            parameters.put("ids", identifiers);
             // check we need to add in predicate
             if (predicate != null) {
                 // append predicate
@@ -413,6 +469,96 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         }
     }
 
+    private String adjacencyStatement(Direction direction, Set<String> relationshipLabels, boolean excludeEdges, String returnClause) {
+        // statements with the same vertex labels, direction, relationship types and return clause share the text
+        return templates.template(() -> {
+            // create string builder
+            StringBuilder builder = new StringBuilder();
+            // match clause
+            builder.append("MATCH ").append(matchPattern("n", "id")).append(direction == Direction.IN ? "<-[r" : "-[r").append(relationshipLabels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append(direction == Direction.OUT ? "]->(m" : "]-(m").append(processLabels(Collections.emptySet(), true)).append(")");
+            // process where clause
+            processEdgesWhereClause("m", excludeEdges, "r", builder);
+            // return
+            builder.append(" RETURN ").append(returnClause);
+            // statement text
+            return builder.toString();
+        }, "adjacency", direction, matchLabels, idFieldName, relationshipLabels, excludeEdges, partition, returnClause);
+    }
+
+    private String pagedAdjacencyStatement(Direction direction, Set<String> relationshipLabels, boolean first) {
+        // statements with the same vertex labels, direction and relationship types share the text
+        return templates.template(() -> {
+            // create string builder
+            StringBuilder builder = new StringBuilder();
+            // match clause
+            builder.append("MATCH ").append(matchPattern("n", "id")).append(direction == Direction.IN ? "<-[r" : "-[r").append(relationshipLabels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append(direction == Direction.OUT ? "]->(m" : "]-(m").append(processLabels(Collections.emptySet(), true)).append(")");
+            // vertex match predicate
+            String predicate = partition.vertexMatchPredicate("m");
+            // page predicate (relationships after the last one in previous page)
+            if (!first)
+                builder.append(" WHERE r.").append(idFieldName).append(" > {last}").append(predicate != null ? " AND " + predicate : "");
+            else if (predicate != null)
+                builder.append(" WHERE ").append(predicate);
+            // return (relationships sorted by identifier, not indexed: every page is a top-N sort of the adjacency)
+            builder.append(" RETURN r, m ORDER BY r.").append(idFieldName).append(" LIMIT {page}");
+            // statement text
+            return builder.toString();
+        }, "paged-adjacency", direction, matchLabels, idFieldName, relationshipLabels, partition, first);
+    }
+
+    /**
+     * Checks the number of edges in the given direction and labels is above the supernode degree threshold (see
+     * {@link Neo4JGraph#getSupernodeDegreeThreshold()}), the degree is computed by the database unless the edges are
+     * already in memory.
+     *
+     * @param direction The edge direction.
+     * @param labels    The edge labels, all edges if no labels are specified.
+     * @return <code>true</code> if the edges must be iterated in pages, <code>false</code> otherwise.
+     */
+    public boolean isSupernode(Direction direction, String... labels) {
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
+        // transaction should be ready for io operations
+        graph.tx().readWrite();
+        // use overloaded method (remove duplicates)
+        return isSupernode(direction, new HashSet<>(Arrays.asList(labels)));
+    }
+
+    private boolean isSupernode(Direction direction, Set<String> relationshipLabels) {
+        // supernode degree threshold
+        int threshold = graph.getSupernodeDegreeThreshold();
+        // check edges are already in memory, otherwise probe degree in database
+        return threshold > 0 && !hasEdgesLoaded(direction, relationshipLabels) && databaseDegree(direction, relationshipLabels, Collections.emptySet()) > threshold;
+    }
+
+    private boolean pagingRequired(Direction direction, Set<String> relationshipLabels) {
+        // check edges could be iterated in pages (the first page is the degree probe)
+        return graph.getSupernodeDegreeThreshold() > 0 && !hasEdgesLoaded(direction, relationshipLabels);
+    }
+
+    private Iterator<Edge> pagedEdges(Direction direction, Set<String> relationshipLabels) {
+        // edges in memory not stored in database (edges in database are part of the pages)
+        List<Edge> memory = Stream.concat(direction != Direction.IN ? outEdges.stream() : Stream.empty(), direction != Direction.OUT ? inEdges.stream() : Stream.empty())
+            .filter(edge -> edge.isTransient() && (relationshipLabels.isEmpty() || relationshipLabels.contains(edge.label())))
+            .collect(Collectors.toList());
+        // page size (a full first page means the degree is above the threshold)
+        int pageSize = graph.getSupernodeDegreeThreshold() + 1;
+        // edges in memory followed by the ones in database, one page at a time (edges are cached in vertex only if they fit in the first page)
+        return session.edges(this, memory.iterator(), last -> {
+            // parameters
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put("id", id);
+            parameters.put("page", pageSize);
+            // check first page
+            if (last != null)
+                parameters.put("last", last);
+            // create statement
+            return new Statement(pagedAdjacencyStatement(direction, relationshipLabels, last == null), parameters);
+        }, pageSize, () -> edgesLoaded(direction, relationshipLabels));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -420,10 +566,15 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     public Iterator<Edge> edges(Direction direction, String... labels) {
         Objects.requireNonNull(direction, "direction cannot be null");
         Objects.requireNonNull(labels, "labels cannot be null");
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
         // transaction should be ready for io operations
         graph.tx().readWrite();
         // load labels in hash set (remove duplicates)
         Set<String> set = new HashSet<>(Arrays.asList(labels));
+        // check edges must be iterated in pages if the vertex has a large number of edges
+        if (pagingRequired(direction, set))
+            return pagedEdges(direction, set);
         // parameters
         Map<String, Object> parameters = new HashMap<>();
         // vertex id
@@ -436,22 +587,17 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 Set<String> relationshipLabels = set.stream().filter(item -> !outEdgeLabels.contains(item)).collect(Collectors.toSet());
                 // check query is required for labels
                 if (set.isEmpty() || !relationshipLabels.isEmpty()) {
-                    // create string builder
-                    StringBuilder builder = new StringBuilder();
-                    // match clause
-                    builder.append("MATCH ").append(matchPattern("n", "id")).append("-[r").append(relationshipLabels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append("]->(m").append(processLabels(Collections.emptySet(), true)).append(")");
                     // edge ids already in memory
                     List<Object> identifiers = outEdges.stream().map(Neo4JEdge::id).collect(Collectors.toList());
-                    // process where clause
-                    processEdgesWhereClause("m", identifiers, "r", builder, parameters);
-                    // return
-                    builder.append(" RETURN n, r, m");
+                    // exclude edges already in memory
+                    if (!identifiers.isEmpty())
+                        parameters.put("ids", identifiers);
                     // create statement
-                    Statement statement = new Statement(builder.toString(), parameters);
+                    Statement statement = new Statement(adjacencyStatement(Direction.OUT, relationshipLabels, !identifiers.isEmpty(), "r, m"), parameters);
                     // execute statement
                     StatementResult result = session.executeStatement(statement);
-                    // execute command
-                    Stream<Edge> query = session.edges(result);
+                    // execute command (anchor vertex is not part of the records)
+                    Stream<Edge> query = session.edges(this, result);
                     // edges in memory plus the ones in database (return copy since edges can be deleted in the middle of the loop)
                     Iterator<Edge> iterator = Stream.concat((labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream()).map(edge -> (Edge)edge), query)
                         .collect(Collectors.toList())
@@ -479,22 +625,17 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 Set<String> relationshipLabels = set.stream().filter(item -> !inEdgeLabels.contains(item)).collect(Collectors.toSet());
                 // check query is required for labels
                 if (set.isEmpty() || !relationshipLabels.isEmpty()) {
-                    // create string builder
-                    StringBuilder builder = new StringBuilder();
-                    // match clause
-                    builder.append("MATCH ").append(matchPattern("n", "id")).append("<-[r").append(relationshipLabels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append("]-(m").append(processLabels(Collections.emptySet(), true)).append(")");
                     // edge ids already in memory
                     List<Object> identifiers = inEdges.stream().map(Neo4JEdge::id).collect(Collectors.toList());
-                    // process where clause
-                    processEdgesWhereClause("m", identifiers, "r", builder, parameters);
-                    // return
-                    builder.append(" RETURN n, r, m");
+                    // exclude edges already in memory
+                    if (!identifiers.isEmpty())
+                        parameters.put("ids", identifiers);
                     // create statement
-                    Statement statement = new Statement(builder.toString(), parameters);
+                    Statement statement = new Statement(adjacencyStatement(Direction.IN, relationshipLabels, !identifiers.isEmpty(), "r, m"), parameters);
                     // execute statement
                     StatementResult result = session.executeStatement(statement);
-                    // execute command
-                    Stream<Edge> query = session.edges(result);
+                    // execute command (anchor vertex is not part of the records)
+                    Stream<Edge> query = session.edges(this, result);
                     // edges in memory plus the ones in database (return copy since edges can be deleted in the middle of the loop)
                     Iterator<Edge> iterator = Stream.concat((labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream()).map(edge -> (Edge)edge), query)
                         .collect(Collectors.toList())
@@ -518,22 +659,17 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         if (!outEdgesLoaded || !inEdgesLoaded) {
             // check we have labels already in memory
             if (set.isEmpty() || !outEdgeLabels.containsAll(set) || !inEdgeLabels.containsAll(set)) {
-                // create string builder
-                StringBuilder builder = new StringBuilder();
-                // match clause
-                builder.append("MATCH ").append(matchPattern("n", "id")).append("-[r").append(set.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append("]-(m").append(processLabels(Collections.emptySet(), true)).append(")");
                 // edge ids already in memory
                 List<Object> identifiers = Stream.concat(outEdges.stream(), inEdges.stream()).map(Neo4JEdge::id).collect(Collectors.toList());
-                // process where clause
-                processEdgesWhereClause("m", identifiers, "r", builder, parameters);
-                // return
-                builder.append(" RETURN n, r, m");
+                // exclude edges already in memory
+                if (!identifiers.isEmpty())
+                    parameters.put("ids", identifiers);
                 // create statement
-                Statement statement = new Statement(builder.toString(), parameters);
+                Statement statement = new Statement(adjacencyStatement(Direction.BOTH, set, !identifiers.isEmpty(), "r, m"), parameters);
                 // execute statement
                 StatementResult result = session.executeStatement(statement);
-                // execute command
-                Stream<Edge> query = session.edges(result);
+                // execute command (anchor vertex is not part of the records)
+                Stream<Edge> query = session.edges(this, result);
                 // edges in memory plus the ones in database (return copy since edges can be deleted in the middle of the loop)
                 Iterator<Edge> iterator = Stream.concat(Stream.concat(labels.length != 0 ? outEdges.stream().filter(edge -> set.contains(edge.label())) : outEdges.stream(), labels.length != 0 ? inEdges.stream().filter(edge -> set.contains(edge.label())) : inEdges.stream()).map(edge -> (Edge)edge), query)
                     .collect(Collectors.toList())
@@ -557,6 +693,148 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
             .iterator();
     }
 
+    /**
+     * Executes an adjacency statement returning edges of this vertex (<code>RETURN r, m</code>), the vertex is not
+     * part of the records and every relationship is attached to this vertex. The statement must match this vertex
+     * with the <code>n</code> alias.
+     *
+     * @param statement The Cypher statement.
+     * @return The edges iterator (records are loaded on demand).
+     */
+    public Iterator<Edge> edges(Statement statement) {
+        Objects.requireNonNull(statement, "statement cannot be null");
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
+        // transaction should be ready for io operations
+        graph.tx().readWrite();
+        // execute statement
+        return session.edges(this, statement);
+    }
+
+    /**
+     * Executes adjacency statements returning edges of this vertex one page at a time (<code>RETURN r, m</code>,
+     * keyset pagination on the relationship identifier), the edges are not cached in the vertex. The statements must
+     * match this vertex with the <code>n</code> alias, sort the relationships by identifier and return up to
+     * {@link Neo4JGraph#getSupernodeDegreeThreshold()} plus one records. The first page is also the degree probe, a
+     * first page with less records is the only one.
+     *
+     * @param page The function used to create the page statement given the identifier of the last relationship, <code>null</code> for the first page.
+     * @return The edges iterator (pages are loaded on demand).
+     */
+    public Iterator<Edge> edges(Function<Object, Statement> page) {
+        Objects.requireNonNull(page, "page cannot be null");
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
+        // transaction should be ready for io operations
+        graph.tx().readWrite();
+        // edges in database, one page at a time
+        return session.edges(this, Collections.emptyIterator(), page, graph.getSupernodeDegreeThreshold() + 1, null);
+    }
+
+    /**
+     * Gets the number of edges in the given direction and labels. The edges in memory are counted if all the requested
+     * edges have been loaded, otherwise the database computes the degree of the node without returning the
+     * relationships, <code>size((n)-[:label]-&gt;())</code>. If the current transaction has pending changes the
+     * database degree excludes the relationships to vertices deleted in the transaction, and it is adjusted by the
+     * edges of this vertex created or deleted in the transaction (the edges are not loaded from the database).
+     *
+     * @param direction The edge direction.
+     * @param labels    The edge labels, all edges if no labels are specified.
+     * @return The number of edges.
+     */
+    public long degree(Direction direction, String... labels) {
+        Objects.requireNonNull(direction, "direction cannot be null");
+        Objects.requireNonNull(labels, "labels cannot be null");
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
+        // transaction should be ready for io operations
+        graph.tx().readWrite();
+        // load labels in hash set (remove duplicates)
+        Set<String> set = new HashSet<>(Arrays.asList(labels));
+        // check edges are in memory
+        if (hasEdgesLoaded(direction, set)) {
+            // count edges
+            long count = 0;
+            for (Iterator<Edge> iterator = edges(direction, labels); iterator.hasNext(); iterator.next())
+                count++;
+            return count;
+        }
+        // check database state is current
+        if (!graph.hasPendingChanges())
+            return databaseDegree(direction, set, Collections.emptySet());
+        // vertices deleted in transaction (relationships are still in database)
+        Set<Object> deletedVertices = session.pendingVertexDeletes();
+        // degree in database
+        long degree = databaseDegree(direction, set, deletedVertices);
+        // edges created in transaction (not in database)
+        degree += Stream.concat(direction != Direction.IN ? outEdges.stream().filter(edge -> !deletedVertices.contains(edge.in().id())) : Stream.empty(), direction != Direction.OUT ? inEdges.stream().filter(edge -> !deletedVertices.contains(edge.out().id())) : Stream.empty())
+            .filter(edge -> edge.isTransient() && (set.isEmpty() || set.contains(edge.label())))
+            .count();
+        // edges deleted in transaction (still in database unless the relationship was excluded with the adjacent vertex)
+        for (Neo4JEdge edge : session.pendingEdgeDeletes()) {
+            // check label
+            if (set.isEmpty() || set.contains(edge.label())) {
+                // out edge
+                if (direction != Direction.IN && edge.out() == this && !deletedVertices.contains(edge.in().id()))
+                    degree--;
+                // in edge
+                if (direction != Direction.OUT && edge.in() == this && !deletedVertices.contains(edge.out().id()))
+                    degree--;
+            }
+        }
+        return degree;
+    }
+
+    private long databaseDegree(Direction direction, Set<String> set, Set<Object> deletedVertices) {
+        // statement parameters
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", id);
+        // exclude relationships to deleted vertices
+        if (!deletedVertices.isEmpty())
+            parameters.put("deleted", deletedVertices);
+        // create statement
+        Statement statement = new Statement(degreeStatement(direction, set, !deletedVertices.isEmpty()), parameters);
+        // execute statement
+        StatementResult result = session.executeStatement(statement);
+        // degree
+        long degree = result.hasNext() ? result.next().get(0).asLong() : 0;
+        // process summary
+        ResultSummaryLogger.log(result.consume());
+        // return degree
+        return degree;
+    }
+
+    private String degreeStatement(Direction direction, Set<String> relationshipLabels, boolean excludeVertices) {
+        // check adjacent vertices must be excluded (relationships must be matched)
+        if (excludeVertices) {
+            // statements with the same vertex labels, direction and relationship types share the text
+            return templates.template(() -> {
+                // create string builder
+                StringBuilder builder = new StringBuilder();
+                // match clause
+                builder.append("MATCH ").append(matchPattern("n", "id")).append(direction == Direction.IN ? "<-[r" : "-[r").append(relationshipLabels.stream().sorted().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append(direction == Direction.OUT ? "]->(m" : "]-(m").append(processLabels(Collections.emptySet(), true)).append(")");
+                // vertex match predicate
+                String predicate = partition.vertexMatchPredicate("m");
+                // exclude deleted vertices
+                builder.append(" WHERE NOT m.").append(idFieldName).append(" IN {deleted}").append(predicate != null ? " AND " + predicate : "");
+                // return
+                builder.append(" RETURN count(r)");
+                // statement text
+                return builder.toString();
+            }, "pending-degree", direction, matchLabels, idFieldName, relationshipLabels, partition);
+        }
+        // check adjacent vertices must be in partition (relationships must be matched)
+        if (partition.usesMatchPattern() || partition.usesMatchPredicate())
+            return adjacencyStatement(direction, relationshipLabels, false, "count(r)");
+        // statements with the same vertex labels, direction and relationship types share the text
+        return templates.template(() -> {
+            // relationship pattern (types sorted, statement text must not depend on set order)
+            String relationship = (direction == Direction.IN ? "<-[" : "-[") + relationshipLabels.stream().sorted().map(label -> ":`" + label + "`").collect(Collectors.joining("|")) + (direction == Direction.OUT ? "]->" : "]-");
+            // statement text, degree is computed from node without expanding relationships
+            return "MATCH " + matchPattern("n", "id") + " RETURN size((n)" + relationship + "())";
+        }, "degree", direction, matchLabels, idFieldName, relationshipLabels);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -564,10 +842,15 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     public Iterator<Vertex> vertices(Direction direction, String... labels) {
         Objects.requireNonNull(direction, "direction cannot be null");
         Objects.requireNonNull(labels, "labels cannot be null");
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
         // transaction should be ready for io operations
         graph.tx().readWrite();
         // load labels in hash set (remove duplicates)
         Set<String> set = new HashSet<>(Arrays.asList(labels));
+        // check edges must be iterated in pages if the vertex has a large number of edges
+        if (pagingRequired(direction, set))
+            return IteratorUtils.map(pagedEdges(direction, set), edge -> edge.outVertex() != this ? edge.outVertex() : edge.inVertex());
         // parameters
         Map<String, Object> parameters = new HashMap<>();
         // vertex id
@@ -580,18 +863,13 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 Set<String> relationshipLabels = set.stream().filter(item -> !outEdgeLabels.contains(item)).collect(Collectors.toSet());
                 // check query is required for labels
                 if (set.isEmpty() || !relationshipLabels.isEmpty()) {
-                    // create string builder
-                    StringBuilder builder = new StringBuilder();
-                    // match clause
-                    builder.append("MATCH ").append(matchPattern("n", "id")).append("-[r").append(relationshipLabels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append("]->(m").append(processLabels(Collections.emptySet(), true)).append(")");
                     // edge ids already in memory
                     List<Object> identifiers = outEdges.stream().map(Neo4JEdge::id).collect(Collectors.toList());
-                    // process where clause
-                    processEdgesWhereClause("m", identifiers, "r", builder, parameters);
-                    // return
-                    builder.append(" RETURN m");
+                    // exclude edges already in memory
+                    if (!identifiers.isEmpty())
+                        parameters.put("ids", identifiers);
                     // create statement
-                    Statement statement = new Statement(builder.toString(), parameters);
+                    Statement statement = new Statement(adjacencyStatement(Direction.OUT, relationshipLabels, !identifiers.isEmpty(), "m"), parameters);
                     // execute statement
                     StatementResult result = session.executeStatement(statement);
                     // execute command
@@ -619,18 +897,13 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 Set<String> relationshipLabels = set.stream().filter(item -> !inEdgeLabels.contains(item)).collect(Collectors.toSet());
                 // check query is required for labels
                 if (set.isEmpty() || !relationshipLabels.isEmpty()) {
-                    // create string builder
-                    StringBuilder builder = new StringBuilder();
-                    // match clause
-                    builder.append("MATCH ").append(matchPattern("n", "id")).append("<-[r").append(relationshipLabels.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append("]-(m").append(processLabels(Collections.emptySet(), true)).append(")");
                     // edge ids already in memory
                     List<Object> identifiers = inEdges.stream().map(Neo4JEdge::id).collect(Collectors.toList());
-                    // process where clause
-                    processEdgesWhereClause("m", identifiers, "r", builder, parameters);
-                    // return
-                    builder.append(" RETURN m");
+                    // exclude edges already in memory
+                    if (!identifiers.isEmpty())
+                        parameters.put("ids", identifiers);
                     // create statement
-                    Statement statement = new Statement(builder.toString(), parameters);
+                    Statement statement = new Statement(adjacencyStatement(Direction.IN, relationshipLabels, !identifiers.isEmpty(), "m"), parameters);
                     // execute statement
                     StatementResult result = session.executeStatement(statement);
                     // execute command
@@ -654,18 +927,13 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         if (!outEdgesLoaded || !inEdgesLoaded) {
             // check we have labels already in memory
             if (set.isEmpty() || !outEdgeLabels.containsAll(set) || !inEdgeLabels.containsAll(set)) {
-                // create string builder
-                StringBuilder builder = new StringBuilder();
-                // match clause
-                builder.append("MATCH ").append(matchPattern("n", "id")).append("-[r").append(set.stream().map(label -> ":`" + label + "`").collect(Collectors.joining("|"))).append("]-(m").append(processLabels(Collections.emptySet(), true)).append(")");
                 // edge ids already in memory
                 List<Object> identifiers = Stream.concat(outEdges.stream(), inEdges.stream()).map(Neo4JEdge::id).collect(Collectors.toList());
-                // process where clause
-                processEdgesWhereClause("m", identifiers, "r", builder, parameters);
-                // return
-                builder.append(" RETURN m");
+                // exclude edges already in memory
+                if (!identifiers.isEmpty())
+                    parameters.put("ids", identifiers);
                 // create statement
-                Statement statement = new Statement(builder.toString(), parameters);
+                Statement statement = new Statement(adjacencyStatement(Direction.BOTH, set, !identifiers.isEmpty(), "m"), parameters);
                 // execute statement
                 StatementResult result = session.executeStatement(statement);
                 // execute command
@@ -701,6 +969,8 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         VertexProperty.Cardinality existingCardinality = cardinalities.get(name);
         if (existingCardinality != null && existingCardinality != cardinality)
             throw new IllegalArgumentException(String.format(Locale.getDefault(), "Property %s has been defined with %s cardinality", name, existingCardinality));
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
         // transaction should be ready for io operations
         graph.tx().readWrite();
         // vertex property
@@ -720,10 +990,12 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 }
                 // add value to list, this will always call dirty method in session
                 if (list.add(property)) {
-                    // notify session
-                    session.dirtyVertex(this);
                     // update flag
                     dirty = true;
+                    // property must be updated in database
+                    dirtyProperties.add(name);
+                    // notify session
+                    session.dirtyVertex(this);
                 }
                 break;
             case set:
@@ -741,10 +1013,12 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 if (!set.stream().filter(item -> item.value().equals(value)).findAny().isPresent()) {
                     // add property to set
                     set.add(property);
-                    // notify session
-                    session.dirtyVertex(this);
                     // update flag
                     dirty = true;
+                    // property must be updated in database
+                    dirtyProperties.add(name);
+                    // notify session
+                    session.dirtyVertex(this);
                 }
                 break;
             default:
@@ -752,10 +1026,12 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
                 properties.put(name, Collections.singletonList(property));
                 // cardinality
                 cardinalities.put(name, VertexProperty.Cardinality.single);
-                // notify session
-                session.dirtyVertex(this);
                 // update flag
                 dirty = true;
+                // property must be updated in database
+                dirtyProperties.add(name);
+                // notify session
+                session.dirtyVertex(this);
                 break;
         }
         // return property
@@ -845,6 +1121,8 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
      */
     @Override
     public void remove() {
+        // detached elements (loaded by a parallel scan) cannot access the database
+        session.checkAttached();
         // transaction should be ready for io operations
         graph.tx().readWrite();
         // remove all edges
@@ -865,26 +1143,67 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
         outEdges.add(edge);
     }
 
+    /**
+     * Checks all the edges in the given direction and labels have been loaded into memory.
+     *
+     * @param direction The edge direction.
+     * @param labels    The edge labels, empty for all labels.
+     * @return <code>true</code> if the edges can be found in memory without executing a statement.
+     */
+    boolean hasEdgesLoaded(Direction direction, Set<String> labels) {
+        // out edges
+        boolean out = outEdgesLoaded || (!labels.isEmpty() && outEdgeLabels.containsAll(labels));
+        // in edges
+        boolean in = inEdgesLoaded || (!labels.isEmpty() && inEdgeLabels.containsAll(labels));
+        // check direction
+        return direction == Direction.OUT ? out : direction == Direction.IN ? in : out && in;
+    }
+
+    /**
+     * Marks the edges in the given direction and labels as loaded into memory, edges loaded from the database must be
+     * registered with the vertex (see {@link #addOutEdge(Neo4JEdge)} and {@link #addInEdge(Neo4JEdge)}) before calling
+     * this method.
+     *
+     * @param direction The edge direction.
+     * @param labels    The edge labels, empty for all labels.
+     */
+    void edgesLoaded(Direction direction, Set<String> labels) {
+        // out edges
+        if (direction != Direction.IN) {
+            // update loaded flag and labels in memory
+            outEdgesLoaded = outEdgesLoaded || labels.isEmpty();
+            outEdgeLabels.addAll(labels);
+        }
+        // in edges
+        if (direction != Direction.OUT) {
+            // update loaded flag and labels in memory
+            inEdgesLoaded = inEdgesLoaded || labels.isEmpty();
+            inEdgeLabels.addAll(labels);
+        }
+    }
+
+    private Object statementValue(String key, Collection<VertexProperty> list) {
+        // check cardinality
+        if (cardinalities.get(key) == VertexProperty.Cardinality.single) {
+            // iterator
+            Iterator<VertexProperty> iterator = list.iterator();
+            // single value
+            return iterator.hasNext() ? iterator.next().value() : null;
+        }
+        // list of values
+        return list.stream().map(Property::value).collect(Collectors.toList());
+    }
+
     private Map<String, Object> statementParameters() {
         // define collector
         Collector<Map.Entry<String, Collection<VertexProperty>>, Map<String, Object>, Map<String, Object>> collector = Collector.of(
             HashMap::new,
             (map, entry) -> {
-                // key & value
-                String key = entry.getKey();
-                Collection<VertexProperty> list = entry.getValue();
-                // check cardinality
-                if (cardinalities.get(key) == VertexProperty.Cardinality.single) {
-                    // iterator
-                    Iterator<VertexProperty> iterator = list.iterator();
-                    // add single value to map
-                    if (iterator.hasNext())
-                        map.put(key, iterator.next().value());
-                }
-                else {
-                    // add list of values
-                    map.put(key, list.stream().map(Property::value).collect(Collectors.toList()));
-                }
+                // value
+                Object value = statementValue(entry.getKey(), entry.getValue());
+                // add value to map
+                if (value != null)
+                    map.put(entry.getKey(), value);
             },
             (map1, map2) -> map1,
             (map) -> map
@@ -899,73 +1218,135 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
 
     @Override
     public Statement insertStatement() {
+        // create batch for a single vertex
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(1);
+        // append insert statement
+        insertStatement(batch);
+        // command statement
+        return batch.statements().get(0);
+    }
+
+    @Override
+    void insertStatement(Neo4JStatementBatch batch) {
         // concat labels with additional labels on insertion
-        SortedSet<String> labels = Stream.concat(this.labels.stream(), additionalLabels.stream()).collect(Collectors.toCollection(TreeSet::new));
-        try {
-            // create statement
-            String statement = String.format(Locale.US, "CREATE (%s{vp})", processLabels(labels, false));
-            // parameters
-            Value parameters = Values.parameters("vp", statementParameters());
-            // command statement
-            return new Statement(statement, parameters);
-        }
-        finally {
-            // to find vertex in database (labels + additional labels)
-            matchLabels = labels;
-        }
+        SortedSet<String> labels = Collections.unmodifiableSortedSet(Stream.concat(this.labels.stream(), additionalLabels.stream()).collect(Collectors.toCollection(TreeSet::new)));
+        // vertices with the same set of labels share the statement
+        batch.add(templates.template(() -> "UNWIND {" + Neo4JStatementBatch.RowsParameterName + "} AS row CREATE (n" + processLabels(labels, false) + ") SET n = row", "insert", labels), statementParameters());
+        // to find vertex in database (labels + additional labels)
+        matchLabels = labels;
     }
 
     @Override
     public Statement updateStatement() {
+        // create batch for a single vertex
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(1);
+        // append update statement
+        updateStatement(batch);
         // check we need to issue statement (adding a label and then removing it will set the vertex as dirty in session but nothing to do)
-        if (dirty || !labelsAdded.isEmpty() || !labelsRemoved.isEmpty()) {
-            // create builder
-            StringBuilder builder = new StringBuilder();
-            // parameters
-            Map<String, Object> parameters = new HashMap<>();
-            // merge statement
-            builder.append("MERGE ").append(matchPattern("v", "id"));
-            // id parameter
-            parameters.put("id", id);
-            // check vertex is dirty
-            if (dirty) {
-                // set properties
-                builder.append(" ON MATCH SET v = {vp}");
-                // update parameters
-                parameters.put("vp", statementParameters());
-            }
-            // check labels were added
-            if (!labelsAdded.isEmpty()) {
-                // add labels
-                builder.append(!dirty ? " ON MATCH SET v" : ", v").append(processLabels(labelsAdded, false));
+        return !batch.isEmpty() ? batch.statements().get(0) : null;
+    }
+
+    @Override
+    void updateStatement(Neo4JStatementBatch batch) {
+        // property values added or changed in session
+        Map<String, Object> values = new HashMap<>();
+        // property keys to be removed from node (sorted, they are part of the statement text)
+        SortedSet<String> removedProperties = new TreeSet<>();
+        // process dirty properties
+        for (String key : dirtyProperties) {
+            // current value
+            Collection<VertexProperty> collection = properties.get(key);
+            if (collection != null) {
+                // value
+                Object value = statementValue(key, collection);
+                if (value != null)
+                    values.put(key, value);
             }
-            // check labels were removed
-            if (!labelsRemoved.isEmpty()) {
-                // remove labels
-                builder.append("REMOVE v").append(processLabels(labelsRemoved, false));
+            else if (originalProperties.containsKey(key)) {
+                // property exists in database
+                removedProperties.add(key);
             }
-            // command statement
-            return new Statement(builder.toString(), parameters);
         }
-        return null;
+        // check we need to issue statement (adding a label and then removing it will set the vertex as dirty in session but nothing to do)
+        if (!values.isEmpty() || !removedProperties.isEmpty() || !labelsAdded.isEmpty() || !labelsRemoved.isEmpty()) {
+            // vertices with the same labels and the same set of removed properties & labels share the statement
+            String statement = templates.template(() -> {
+                // create builder
+                StringBuilder builder = new StringBuilder();
+                // match statement
+                builder.append("UNWIND {").append(Neo4JStatementBatch.RowsParameterName).append("} AS row MATCH ").append(rowMatchPattern("v", "id"));
+                // set clause
+                List<String> set = new ArrayList<>();
+                if (!values.isEmpty())
+                    set.add("v += row.vp");
+                if (!labelsAdded.isEmpty())
+                    set.add("v" + processLabels(labelsAdded, false));
+                if (!set.isEmpty())
+                    builder.append(" SET ").append(String.join(", ", set));
+                // remove clause
+                List<String> remove = removedProperties.stream().map(key -> "v.`" + key + "`").collect(Collectors.toList());
+                if (!labelsRemoved.isEmpty())
+                    remove.add("v" + processLabels(labelsRemoved, false));
+                if (!remove.isEmpty())
+                    builder.append(" REMOVE ").append(String.join(", ", remove));
+                // statement text
+                return builder.toString();
+            }, "update", matchLabels, idFieldName, !values.isEmpty(), removedProperties, Neo4JStatementTemplateCache.labels(labelsAdded), Neo4JStatementTemplateCache.labels(labelsRemoved));
+            // row
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("vp", values);
+            // append row
+            batch.add(statement, row);
+        }
     }
 
     @Override
     public Statement deleteStatement() {
-        // create statement
-        String statement = "MATCH " + matchPattern("v", "id") + " DETACH DELETE v";
-        // parameters
-        Value parameters = Values.parameters("id", id);
+        // create batch for a single vertex
+        Neo4JStatementBatch batch = new Neo4JStatementBatch(1);
+        // append delete statement
+        deleteStatement(batch);
         // command statement
-        return new Statement(statement, parameters);
+        return batch.statements().get(0);
+    }
+
+    @Override
+    void deleteStatement(Neo4JStatementBatch batch) {
+        // vertices with the same labels share the statement (relationships are deleted by the server)
+        batch.add(templates.template(() -> "UNWIND {" + Neo4JStatementBatch.RowsParameterName + "} AS row MATCH " + rowMatchPattern("v", "id") + " DETACH DELETE v", "delete", matchLabels, idFieldName), Collections.singletonMap("id", id));
+    }
+
+    void flush() {
+        // keep state at the beginning of the transaction (restored on rollback)
+        if (transactionLabels == null) {
+            transactionLabels = originalLabels;
+            transactionProperties = originalProperties;
+            transactionCardinalities = originalCardinalities;
+        }
+        // state in database is the flushed one (changes after flush are relative to it)
+        labelsAdded.clear();
+        labelsRemoved.clear();
+        dirtyProperties.clear();
+        originalLabels = new TreeSet<>(labels);
+        matchLabels = Collections.unmodifiableSortedSet(Stream.concat(originalLabels.stream(), graphLabels.stream()).collect(Collectors.toCollection(TreeSet::new)));
+        originalProperties = new HashMap<>(properties);
+        originalCardinalities = new HashMap<>(cardinalities);
+        // reset flags
+        dirty = false;
     }
 
     void commit() {
+        // flushed state is committed
+        transactionLabels = null;
+        transactionProperties = null;
+        transactionCardinalities = null;
         // commit labels
         labelsAdded.clear();
         labelsRemoved.clear();
+        dirtyProperties.clear();
         originalLabels = new TreeSet<>(labels);
-        matchLabels = Stream.concat(originalLabels.stream(), graphLabels.stream()).collect(Collectors.toCollection(TreeSet::new));
+        matchLabels = Collections.unmodifiableSortedSet(Stream.concat(originalLabels.stream(), graphLabels.stream()).collect(Collectors.toCollection(TreeSet::new)));
         // update property values
         originalProperties = new HashMap<>(properties);
         originalCardinalities = new HashMap<>(cardinalities);
@@ -974,12 +1355,33 @@ public class Neo4JVertex extends Neo4JElement implements Vertex {
     }
 
     void rollback() {
+        // check changes were flushed in transaction
+        if (transactionLabels != null) {
+            // restore state at the beginning of the transaction
+            originalLabels = transactionLabels;
+            originalProperties = transactionProperties;
+            originalCardinalities = transactionCardinalities;
+            transactionLabels = null;
+            transactionProperties = null;
+            transactionCardinalities = null;
+        }
+        // check vertex was created in transaction (it is transient, keep its state)
+        if (isTransient()) {
+            // reset flags
+            labelsAdded.clear();
+            labelsRemoved.clear();
+            dirtyProperties.clear();
+            matchLabels = Collections.emptySortedSet();
+            dirty = false;
+            return;
+        }
         // restore labels
         labelsAdded.clear();
         labelsRemoved.clear();
+        dirtyProperties.clear();
         labels.clear();
         labels.addAll(originalLabels);
-        matchLabels = Stream.concat(originalLabels.stream(), graphLabels.stream()).collect(Collectors.toCollection(TreeSet::new));
+        matchLabels = Collections.unmodifiableSortedSet(Stream.concat(originalLabels.stream(), graphLabels.stream()).collect(Collectors.toCollection(TreeSet::new)));
         // restore property values
         properties.clear();
         cardinalities.clear();
@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maps element identifiers to element instances without retaining them, entries are removed once the instances are
+ * no longer referenced by the application (or by other elements in memory). The session uses it to keep a single
+ * instance per identifier for the elements it does not track (flushed or scanned elements) while the instances are in
+ * use, its size is bounded by the number of instances held by the application.
+ * <p>
+ * Instances are not thread safe, they are confined to the thread owning the session.
+ * </p>
+ *
+ * @param <T> The element type.
+ * @author Rogelio J. Baucells
+ */
+class Neo4JWeakElementMap<T> {
+
+    private static class ElementReference<T> extends WeakReference<T> {
+
+        private final Object id;
+
+        ElementReference(Object id, T element, ReferenceQueue<? super T> queue) {
+            super(element, queue);
+            // store fields
+            this.id = id;
+        }
+    }
+
+    private final Map<Object, ElementReference<T>> references = new HashMap<>();
+    private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+    /**
+     * Gets the element instance with the given identifier.
+     *
+     * @param id The element identifier.
+     * @return The element, <code>null</code> if it is not in the map or it is no longer referenced.
+     */
+    T get(Object id) {
+        // remove entries of collected instances
+        purge();
+        // find reference
+        ElementReference<T> reference = references.get(id);
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Stores the element instance with the given identifier, the instance is not retained by the map.
+     *
+     * @param id      The element identifier.
+     * @param element The element.
+     */
+    void put(Object id, T element) {
+        Objects.requireNonNull(id, "id cannot be null");
+        Objects.requireNonNull(element, "element cannot be null");
+        // remove entries of collected instances
+        purge();
+        // store reference
+        references.put(id, new ElementReference<>(id, element, queue));
+    }
+
+    /**
+     * Removes the element with the given identifier.
+     *
+     * @param id The element identifier.
+     */
+    void remove(Object id) {
+        references.remove(id);
+    }
+
+    /**
+     * Gets the element instances still referenced by the application.
+     *
+     * @return The elements (copy).
+     */
+    List<T> elements() {
+        // remove entries of collected instances
+        purge();
+        // collect instances
+        List<T> elements = new ArrayList<>(references.size());
+        for (ElementReference<T> reference : references.values()) {
+            // check instance is still referenced
+            T element = reference.get();
+            if (element != null)
+                elements.add(element);
+        }
+        return elements;
+    }
+
+    /**
+     * Gets the number of entries in the map (including instances collected and not purged yet).
+     *
+     * @return The number of entries.
+     */
+    int size() {
+        return references.size();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        // remove entries
+        references.clear();
+        // discard collected references
+        purge();
+    }
+
+    private void purge() {
+        // process collected instances
+        for (Reference<? extends T> reference = queue.poll(); reference != null; reference = queue.poll()) {
+            // entry id
+            Object id = ((ElementReference<?>)reference).id;
+            // remove entry only if it was not replaced
+            references.remove(id, reference);
+        }
+    }
+}
@@ -115,4 +115,24 @@ public class AllLabelReadPartition implements Neo4JReadPartition {
     public String vertexMatchPredicate(String alias) {
         return null;
     }
+
+    /**
+     * Checks the given object is a partition of the same type with the same labels (partitions generating the same
+     * Cypher text are equal).
+     *
+     * @param object The object to compare.
+     * @return <code>true</code> if the object is an equivalent partition, otherwise <code>false</code>.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        return object instanceof AllLabelReadPartition && labels.equals(((AllLabelReadPartition)object).labels);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return labels.hashCode();
+    }
 }
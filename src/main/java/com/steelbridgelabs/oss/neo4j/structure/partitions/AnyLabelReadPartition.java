@@ -121,4 +121,24 @@ public class AnyLabelReadPartition implements Neo4JReadPartition {
         }
         return null;
     }
+
+    /**
+     * Checks the given object is a partition of the same type with the same labels (partitions generating the same
+     * Cypher text are equal).
+     *
+     * @param object The object to compare.
+     * @return <code>true</code> if the object is an equivalent partition, otherwise <code>false</code>.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        return object instanceof AnyLabelReadPartition && labels.equals(((AnyLabelReadPartition)object).labels);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return labels.hashCode();
+    }
 }
@@ -99,4 +99,23 @@ public class NoReadPartition implements Neo4JReadPartition {
     public String vertexMatchPredicate(String alias) {
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks the given object is a partition of the same type (all instances are equivalent).
+     *
+     * @param object The object to compare.
+     * @return <code>true</code> if the object is a {@link NoReadPartition}, otherwise <code>false</code>.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        return object instanceof NoReadPartition;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return NoReadPartition.class.hashCode();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JCypherBuilderWhileCompilingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    private void arrange() {
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getVertexIdProvider()).thenAnswer(invocation -> provider);
+        Mockito.when(graph.getEdgeIdProvider()).thenAnswer(invocation -> provider);
+        Mockito.when(graph.vertexLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+    }
+
+    @Test
+    public void givenLabelAndPropertyContainersShouldCompileVertexStatement() {
+        // arrange
+        arrange();
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Vertex.class);
+        // act
+        builder.addHasContainer(new HasContainer(T.label.getAccessor(), P.eq("Person")));
+        builder.addHasContainer(new HasContainer("name", P.eq("John")));
+        Statement statement = builder.statement(builder.elements());
+        // assert
+        Assert.assertTrue("Failed to compile all containers", builder.isExact());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE size(labels(n)) = 1 AND ANY(item IN [] + n.`name` WHERE item = {p0}) RETURN n", statement.text());
+        Assert.assertEquals("Invalid parameter value", "John", statement.parameters().get("p0").asString());
+    }
+
+    @Test
+    public void givenGraphLabelsShouldExcludeThemFromLabelCount() {
+        // arrange
+        arrange();
+        Mockito.when(graph.vertexLabels()).thenAnswer(invocation -> Collections.singleton("graph"));
+        Mockito.when(partition.validateLabel(Mockito.eq("graph"))).thenAnswer(invocation -> false);
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Vertex.class);
+        // act
+        builder.addHasContainer(new HasContainer(T.label.getAccessor(), P.eq("Person::Admin")));
+        Statement statement = builder.statement(builder.elements());
+        // assert
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`:`Admin`) WHERE size([l IN labels(n) WHERE NOT l IN {graphLabels}]) = 2 RETURN n", statement.text());
+    }
+
+    @Test
+    public void givenLabelsWithinShouldCompileLabelPredicates() {
+        // arrange
+        arrange();
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Vertex.class);
+        // act
+        builder.addHasContainer(new HasContainer(T.label.getAccessor(), P.within(Arrays.asList("Person", "Company"))));
+        Statement statement = builder.statement(builder.elements());
+        // assert
+        Assert.assertEquals("Invalid statement", "MATCH (n) WHERE ((n:`Person` AND size(labels(n)) = 1) OR (n:`Company` AND size(labels(n)) = 1)) RETURN n", statement.text());
+    }
+
+    @Test
+    public void givenRangeShouldCompileSkipAndLimit() {
+        // arrange
+        arrange();
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Vertex.class);
+        // act
+        Statement statement = builder.statement(builder.elements() + builder.range(5, 15));
+        // assert
+        Assert.assertEquals("Invalid statement", "MATCH (n) RETURN n SKIP {p0} LIMIT {p1}", statement.text());
+        Assert.assertEquals("Invalid skip value", 5L, statement.parameters().get("p0").asLong());
+        Assert.assertEquals("Invalid limit value", 10L, statement.parameters().get("p1").asLong());
+    }
+
+    @Test
+    public void givenEdgeLabelsShouldCompileRelationshipTypesInPattern() {
+        // arrange
+        arrange();
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Edge.class);
+        // act
+        builder.addHasContainer(new HasContainer(T.label.getAccessor(), P.within(Arrays.asList("KNOWS", "LIKES"))));
+        builder.addHasContainer(new HasContainer("since", P.between(2000, 2010)));
+        Statement statement = builder.statement(builder.elements());
+        // assert
+        Assert.assertTrue("Failed to compile all containers", builder.isExact());
+        Assert.assertEquals("Invalid statement", "MATCH (n)-[r:`KNOWS`|`LIKES`]->(m) WHERE (r.`since` >= {p0} AND r.`since` < {p1}) RETURN n, r, m", statement.text());
+    }
+
+    @Test
+    public void givenTextPredicateShouldCompileStringOperator() {
+        // arrange
+        arrange();
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Vertex.class);
+        // act
+        builder.addHasContainer(new HasContainer("name", Neo4JTextPredicate.startingWith("Jo")));
+        Statement statement = builder.statement(builder.elements());
+        // assert
+        Assert.assertEquals("Invalid statement", "MATCH (n) WHERE ANY(item IN [] + n.`name` WHERE item STARTS WITH {p0}) RETURN n", statement.text());
+    }
+
+    @Test
+    public void givenConnectivePredicateShouldMatchAnyVertexPropertyValue() {
+        // arrange
+        arrange();
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Vertex.class);
+        // act
+        builder.addHasContainer(new HasContainer("score", P.between(1, 5)));
+        Statement statement = builder.statement(builder.elements());
+        // assert
+        Assert.assertTrue("Failed to compile all containers", builder.isExact());
+        Assert.assertEquals("Invalid statement", "MATCH (n) WHERE ANY(item IN [] + n.`score` WHERE (item >= {p0} AND item < {p1})) RETURN n", statement.text());
+    }
+
+    @Test
+    public void givenIdentifiersShouldProcessValuesWithProvider() {
+        // arrange
+        arrange();
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> Long.valueOf(invocation.getArguments()[0].toString()));
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Vertex.class);
+        // act
+        builder.addHasContainer(new HasContainer(T.id.getAccessor(), P.within(Arrays.asList("1", "2"))));
+        Statement statement = builder.statement(builder.elements());
+        // assert
+        Assert.assertEquals("Invalid statement", "MATCH (n) WHERE n.id IN {p0} RETURN n", statement.text());
+        Assert.assertEquals("Invalid parameter value", Arrays.asList(1L, 2L), statement.parameters().get("p0").asList());
+    }
+
+    @Test
+    public void givenUnsupportedPredicateShouldNotCompileContainer() {
+        // arrange
+        arrange();
+        Neo4JCypherBuilder builder = new Neo4JCypherBuilder(graph, Vertex.class);
+        // act
+        boolean result = builder.addHasContainer(new HasContainer("name", new P<>((value, other) -> value.equals(other), "John")));
+        Statement statement = builder.statement(builder.elements());
+        // assert
+        Assert.assertFalse("Container should not be compiled", result);
+        Assert.assertFalse("Statement should not be exact", builder.isExact());
+        Assert.assertEquals("Invalid statement", "MATCH (n) RETURN n", statement.text());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.InjectStep;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JAdjacencyBatchStepWhileExpandingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JVertex vertex1;
+
+    @Mock
+    private Neo4JVertex vertex2;
+
+    @Mock
+    private Neo4JVertex vertex3;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenBatchSizeShouldLoadEdgesOncePerBatch() {
+        // arrange
+        Mockito.when(graph.getExpansionBatchSize()).thenAnswer(invocation -> 2);
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex1, vertex2, vertex3));
+        traversal.addStep(new Neo4JAdjacencyBatchStep(traversal, Direction.OUT, "knows"));
+        ArgumentCaptor<Collection> argument = ArgumentCaptor.forClass(Collection.class);
+        // act
+        List<Vertex> result = traversal.toList();
+        // assert
+        Assert.assertEquals("Invalid result", Arrays.asList(vertex1, vertex2, vertex3), result);
+        Mockito.verify(graph, Mockito.times(2)).loadEdges(argument.capture(), Mockito.eq(Direction.OUT), Mockito.<String>anyVararg());
+        Assert.assertEquals("Invalid first batch", Arrays.asList(vertex1, vertex2), argument.getAllValues().get(0));
+        Assert.assertEquals("Invalid second batch", Arrays.asList(vertex3), argument.getAllValues().get(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenZeroBatchSizeShouldNotLoadEdges() {
+        // arrange
+        Mockito.when(graph.getExpansionBatchSize()).thenAnswer(invocation -> 0);
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex1, vertex2));
+        traversal.addStep(new Neo4JAdjacencyBatchStep(traversal, Direction.OUT, "knows"));
+        // act
+        List<Vertex> result = traversal.toList();
+        // assert
+        Assert.assertEquals("Invalid result", Arrays.asList(vertex1, vertex2), result);
+        Mockito.verify(graph, Mockito.never()).loadEdges(Mockito.any(), Mockito.any(), Mockito.<String>anyVararg());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenClonedTraversalShouldNotShareBatch() {
+        // arrange
+        Mockito.when(graph.getExpansionBatchSize()).thenAnswer(invocation -> 2);
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex1, vertex2, vertex3));
+        traversal.addStep(new Neo4JAdjacencyBatchStep(traversal, Direction.OUT, "knows"));
+        Vertex first = traversal.next();
+        // act
+        DefaultGraphTraversal<Vertex, Vertex> clone = traversal.clone();
+        // assert
+        Assert.assertEquals("Invalid first vertex", vertex1, first);
+        Assert.assertEquals("Invalid clone result", Arrays.asList(vertex1, vertex2, vertex3), clone.toList());
+        Assert.assertEquals("Invalid result", Arrays.asList(vertex2, vertex3), traversal.toList());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JGraphStepStrategy;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ElementValueTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GroupCountStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.SumGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.PropertyType;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JGraphAggregateStepWhileAggregatingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Record record1;
+
+    @Mock
+    private Record record2;
+
+    @Mock
+    private Value key1;
+
+    @Mock
+    private Value key2;
+
+    @Mock
+    private Value value1;
+
+    @Mock
+    private Value value2;
+
+    @Mock
+    private Vertex vertex1;
+
+    @Mock
+    private Vertex vertex2;
+
+    @Mock
+    private Vertex vertex3;
+
+    private void arrange() {
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getVertexIdProvider()).thenAnswer(invocation -> provider);
+        Mockito.when(graph.vertexLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(record1.get(Mockito.eq(0))).thenAnswer(invocation -> key1);
+        Mockito.when(record1.get(Mockito.eq(1))).thenAnswer(invocation -> value1);
+        Mockito.when(record2.get(Mockito.eq(0))).thenAnswer(invocation -> key2);
+        Mockito.when(record2.get(Mockito.eq(1))).thenAnswer(invocation -> value2);
+        Mockito.when(key1.asObject()).thenAnswer(invocation -> "open");
+        Mockito.when(key2.asObject()).thenAnswer(invocation -> "closed");
+        Mockito.when(value1.asObject()).thenAnswer(invocation -> 2L);
+        Mockito.when(value2.asObject()).thenAnswer(invocation -> 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> DefaultGraphTraversal<Vertex, E> traversal() {
+        DefaultGraphTraversal<Vertex, E> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer(T.label.getAccessor(), P.eq("Order"))));
+        return traversal;
+    }
+
+    private <E> DefaultGraphTraversal<Vertex, E> groupCountTraversal() {
+        DefaultGraphTraversal<Vertex, E> traversal = traversal();
+        GroupCountStep<?, ?> step = new GroupCountStep<>(traversal);
+        step.modulateBy(new ElementValueTraversal<>("status"));
+        traversal.addStep(step);
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        return traversal;
+    }
+
+    @Test
+    public void givenGroupCountShouldGroupInDatabase() {
+        // arrange
+        arrange();
+        Mockito.when(graph.records(Mockito.any(Statement.class))).thenAnswer(invocation -> Stream.of(record1, record2));
+        DefaultGraphTraversal<Vertex, Map<Object, Long>> traversal = groupCountTraversal();
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        Map<Object, Long> result = traversal.next();
+        // assert
+        Assert.assertTrue("Invalid step", traversal.getStartStep() instanceof Neo4JGraphAggregateStep);
+        Mockito.verify(graph).records(argument.capture());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Order`) WHERE size(labels(n)) = 1 RETURN n.`status`, count(*)", argument.getValue().text());
+        Assert.assertEquals("Invalid open count", Long.valueOf(2), result.get("open"));
+        Assert.assertEquals("Invalid closed count", Long.valueOf(1), result.get("closed"));
+    }
+
+    @Test
+    public void givenPendingChangesShouldGroupInMemory() {
+        // arrange
+        arrange();
+        Mockito.when(graph.hasPendingChanges()).thenAnswer(invocation -> true);
+        Mockito.when(graph.vertices(Mockito.any(Statement.class), Mockito.any())).thenAnswer(invocation -> Arrays.asList(vertex1, vertex2, vertex3).iterator());
+        Mockito.when(vertex1.value(Mockito.eq("status"))).thenAnswer(invocation -> "open");
+        Mockito.when(vertex2.value(Mockito.eq("status"))).thenAnswer(invocation -> "closed");
+        Mockito.when(vertex3.value(Mockito.eq("status"))).thenAnswer(invocation -> "open");
+        DefaultGraphTraversal<Vertex, Map<Object, Long>> traversal = groupCountTraversal();
+        // act
+        Map<Object, Long> result = traversal.next();
+        // assert
+        Mockito.verify(graph, Mockito.never()).records(Mockito.any(Statement.class));
+        Assert.assertEquals("Invalid open count", Long.valueOf(2), result.get("open"));
+        Assert.assertEquals("Invalid closed count", Long.valueOf(1), result.get("closed"));
+    }
+
+    @Test
+    public void givenSumShouldAggregateInDatabase() {
+        // arrange
+        arrange();
+        Mockito.when(graph.records(Mockito.any(Statement.class))).thenAnswer(invocation -> Stream.of(record1));
+        Mockito.when(record1.get(Mockito.eq(0))).thenAnswer(invocation -> value1);
+        DefaultGraphTraversal<Vertex, Number> traversal = traversal();
+        traversal.addStep(new PropertiesStep<>(traversal, PropertyType.VALUE, "total"));
+        traversal.addStep(new SumGlobalStep<>(traversal));
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        Number result = traversal.next();
+        // assert
+        Mockito.verify(graph).records(argument.capture());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Order`) WHERE size(labels(n)) = 1 RETURN sum(n.`total`)", argument.getValue().text());
+        Assert.assertEquals("Invalid sum", 2L, result);
+    }
+
+    @Test
+    public void givenAggregationShouldCloseRecords() {
+        // arrange
+        arrange();
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Mockito.when(graph.records(Mockito.any(Statement.class))).thenAnswer(invocation -> Stream.of(record1, record2).onClose(() -> closed.set(true)));
+        DefaultGraphTraversal<Vertex, Map<Object, Long>> traversal = groupCountTraversal();
+        // act
+        traversal.next();
+        // assert
+        Assert.assertTrue("Records were not closed", closed.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenClonedTraversalShouldNotShareSteps() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Map<Object, Long>> traversal = groupCountTraversal();
+        // act
+        DefaultGraphTraversal<Vertex, Map<Object, Long>> clone = (DefaultGraphTraversal<Vertex, Map<Object, Long>>)traversal.clone();
+        // assert
+        Neo4JGraphAggregateStep<?, ?> step = (Neo4JGraphAggregateStep<?, ?>)traversal.getStartStep();
+        Neo4JGraphAggregateStep<?, ?> cloneStep = (Neo4JGraphAggregateStep<?, ?>)clone.getStartStep();
+        Assert.assertNotSame("Graph step is shared", step.getGraphStep(), cloneStep.getGraphStep());
+        Assert.assertNotSame("Reducing steps are shared", step.getLocalChildren().get(0), cloneStep.getLocalChildren().get(0));
+        Assert.assertSame("Invalid reducing steps parent", cloneStep, cloneStep.getLocalChildren().get(0).getParent());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JGraphStepStrategy;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JGraphCountStepWhileCountingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Value value;
+
+    @Mock
+    private Vertex vertex1;
+
+    @Mock
+    private Vertex vertex2;
+
+    private void arrange() {
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getVertexIdProvider()).thenAnswer(invocation -> provider);
+        Mockito.when(graph.vertexLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(graph.records(Mockito.any(Statement.class))).thenAnswer(invocation -> Stream.of(record));
+        Mockito.when(record.get(Mockito.eq(0))).thenAnswer(invocation -> value);
+        Mockito.when(value.asLong()).thenAnswer(invocation -> 10L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DefaultGraphTraversal<Vertex, Long> traversal(long low, long high) {
+        DefaultGraphTraversal<Vertex, Long> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer(T.label.getAccessor(), P.eq("Person"))));
+        if (high >= 0)
+            traversal.addStep(new RangeGlobalStep<>(traversal, low, high));
+        traversal.addStep(new CountGlobalStep<>(traversal));
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        return traversal;
+    }
+
+    @Test
+    public void givenCompiledStepShouldCountInDatabase() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Long> traversal = traversal(0, -1);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        Long result = traversal.next();
+        // assert
+        Assert.assertEquals("Invalid count", Long.valueOf(10), result);
+        Mockito.verify(graph).records(argument.capture());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE size(labels(n)) = 1 RETURN count(n)", argument.getValue().text());
+        Mockito.verify(graph, Mockito.never()).vertices(Mockito.any(Statement.class), Mockito.any());
+    }
+
+    @Test
+    public void givenRangeShouldCountRangeInDatabase() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Long> traversal = traversal(0, 5);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        traversal.next();
+        // assert
+        Mockito.verify(graph).records(argument.capture());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE size(labels(n)) = 1 WITH n LIMIT {p0} RETURN count(n)", argument.getValue().text());
+    }
+
+    @Test
+    public void givenPendingChangesShouldCountInMemory() {
+        // arrange
+        arrange();
+        Mockito.when(graph.hasPendingChanges()).thenAnswer(invocation -> true);
+        Mockito.when(graph.vertices(Mockito.any(Statement.class), Mockito.any())).thenAnswer(invocation -> Arrays.asList(vertex1, vertex2).iterator());
+        DefaultGraphTraversal<Vertex, Long> traversal = traversal(0, -1);
+        // act
+        Long result = traversal.next();
+        // assert
+        Assert.assertEquals("Invalid count", Long.valueOf(2), result);
+        Mockito.verify(graph, Mockito.never()).records(Mockito.any(Statement.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenClonedTraversalShouldNotShareGraphStep() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Long> traversal = traversal(0, -1);
+        // act
+        DefaultGraphTraversal<Vertex, Long> clone = (DefaultGraphTraversal<Vertex, Long>)traversal.clone();
+        // assert
+        Assert.assertNotSame("Graph step is shared", ((Neo4JGraphCountStep<?>)traversal.getStartStep()).getGraphStep(), ((Neo4JGraphCountStep<?>)clone.getStartStep()).getGraphStep());
+        Assert.assertSame("Invalid graph step traversal", clone, ((Neo4JGraphCountStep<?>)clone.getStartStep()).getGraphStep().getTraversal());
+        Assert.assertEquals("Invalid count", Long.valueOf(10), clone.next());
+    }
+}
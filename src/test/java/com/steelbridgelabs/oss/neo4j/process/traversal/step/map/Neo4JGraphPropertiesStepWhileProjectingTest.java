@@ -0,0 +1,198 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JGraphStepStrategy;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertyMapStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.PropertyType;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JGraphPropertiesStepWhileProjectingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Record record1;
+
+    @Mock
+    private Record record2;
+
+    @Mock
+    private Value value1;
+
+    @Mock
+    private Value value2;
+
+    @Mock
+    private Value value3;
+
+    @Mock
+    private Vertex vertex1;
+
+    private void arrange() {
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getVertexIdProvider()).thenAnswer(invocation -> provider);
+        Mockito.when(graph.vertexLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(graph.records(Mockito.any(Statement.class))).thenAnswer(invocation -> Stream.of(record1, record2));
+        Mockito.when(record1.get(Mockito.eq(0))).thenAnswer(invocation -> value1);
+        Mockito.when(record1.get(Mockito.eq(1))).thenAnswer(invocation -> value2);
+        Mockito.when(record2.get(Mockito.eq(0))).thenAnswer(invocation -> value3);
+        Mockito.when(record2.get(Mockito.eq(1))).thenAnswer(invocation -> value3);
+        Mockito.when(value1.asObject()).thenAnswer(invocation -> "John");
+        Mockito.when(value2.asObject()).thenAnswer(invocation -> Arrays.asList("a", "b"));
+        Mockito.when(value3.asObject()).thenAnswer(invocation -> null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> DefaultGraphTraversal<Vertex, E> traversal() {
+        DefaultGraphTraversal<Vertex, E> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer(T.label.getAccessor(), P.eq("Person"))));
+        return traversal;
+    }
+
+    @Test
+    public void givenValuesShouldReturnPropertiesFromDatabase() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Object> traversal = traversal();
+        traversal.addStep(new PropertiesStep<>(traversal, PropertyType.VALUE, "name", "tags"));
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        List<Object> result = traversal.toList();
+        // assert
+        Assert.assertTrue("Invalid step", traversal.getStartStep() instanceof Neo4JGraphPropertiesStep);
+        Mockito.verify(graph).records(argument.capture());
+        Mockito.verify(graph, Mockito.never()).vertices(Mockito.any(Statement.class), Mockito.any());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE size(labels(n)) = 1 RETURN n.`name`, n.`tags`", argument.getValue().text());
+        Assert.assertEquals("Invalid values", Arrays.asList("John", "a", "b"), result);
+    }
+
+    @Test
+    public void givenValueMapShouldReturnPropertyMapsFromDatabase() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Map<String, Object>> traversal = traversal();
+        traversal.addStep(new PropertyMapStep<>(traversal, false, PropertyType.VALUE, "name", "tags"));
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        // act
+        List<Map<String, Object>> result = traversal.toList();
+        // assert
+        Assert.assertTrue("Invalid step", traversal.getStartStep() instanceof Neo4JGraphPropertiesStep);
+        Assert.assertEquals("Invalid number of maps", 2, result.size());
+        Assert.assertEquals("Invalid name", Collections.singletonList("John"), result.get(0).get("name"));
+        Assert.assertEquals("Invalid tags", Arrays.asList("a", "b"), result.get(0).get("tags"));
+        Assert.assertTrue("Invalid map", result.get(1).isEmpty());
+    }
+
+    @Test
+    public void givenPendingChangesShouldReturnPropertiesFromMemory() {
+        // arrange
+        arrange();
+        Mockito.when(graph.hasPendingChanges()).thenAnswer(invocation -> true);
+        Mockito.when(graph.vertices(Mockito.any(Statement.class), Mockito.any())).thenAnswer(invocation -> Collections.singletonList(vertex1).iterator());
+        Mockito.when(vertex1.values(Mockito.<String>anyVararg())).thenAnswer(invocation -> Collections.singletonList("John").iterator());
+        DefaultGraphTraversal<Vertex, Object> traversal = traversal();
+        traversal.addStep(new PropertiesStep<>(traversal, PropertyType.VALUE, "name"));
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        // act
+        List<Object> result = traversal.toList();
+        // assert
+        Mockito.verify(graph, Mockito.never()).records(Mockito.any(Statement.class));
+        Assert.assertEquals("Invalid values", Collections.singletonList("John"), result);
+    }
+
+    @Test
+    public void givenClonedTraversalShouldNotShareSteps() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Object> traversal = traversal();
+        traversal.addStep(new PropertiesStep<>(traversal, PropertyType.VALUE, "name"));
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        Neo4JGraphPropertiesStep<?, ?> step = (Neo4JGraphPropertiesStep<?, ?>)traversal.getStartStep();
+        // act
+        DefaultGraphTraversal<Vertex, Object> clone = traversal.clone();
+        // assert
+        Neo4JGraphPropertiesStep<?, ?> cloneStep = (Neo4JGraphPropertiesStep<?, ?>)clone.getStartStep();
+        Assert.assertNotSame("Graph step was not cloned", step.getGraphStep(), cloneStep.getGraphStep());
+        Assert.assertSame("Invalid graph step traversal", clone, cloneStep.getGraphStep().getTraversal());
+        Assert.assertNotSame("Projection was not cloned", step.getLocalChildren().get(0), cloneStep.getLocalChildren().get(0));
+        Assert.assertSame("Invalid projection parent", cloneStep, cloneStep.getLocalChildren().get(0).getParent());
+    }
+
+    @Test
+    public void givenClonedTraversalShouldNotCloseRecords() {
+        // arrange
+        arrange();
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Mockito.when(graph.records(Mockito.any(Statement.class))).thenAnswer(invocation -> Stream.of(record1, record2).onClose(() -> closed.set(true)));
+        DefaultGraphTraversal<Vertex, Object> traversal = traversal();
+        traversal.addStep(new PropertiesStep<>(traversal, PropertyType.VALUE, "name", "tags"));
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        Object first = traversal.next();
+        // act
+        traversal.clone();
+        // assert
+        Assert.assertFalse("Records were closed", closed.get());
+        Assert.assertEquals("Invalid first value", "John", first);
+        Assert.assertEquals("Invalid values", Arrays.asList("a", "b"), traversal.toList());
+        Assert.assertTrue("Records were not closed", closed.get());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JGraphStepStrategy;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ElementValueTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.TokenTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JGraphStepWhileFindingElementsTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Vertex vertex1;
+
+    @Mock
+    private Vertex vertex2;
+
+    @Mock
+    private Vertex vertex3;
+
+    private void arrange() {
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getVertexIdProvider()).thenAnswer(invocation -> provider);
+        Mockito.when(graph.vertexLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertex1.id()).thenAnswer(invocation -> 1L);
+        Mockito.when(vertex2.id()).thenAnswer(invocation -> 2L);
+        Mockito.when(vertex3.id()).thenAnswer(invocation -> 3L);
+        Mockito.when(graph.vertices(Mockito.any(Statement.class), Mockito.any())).thenAnswer(invocation -> Arrays.asList(vertex2, vertex3, vertex1).iterator());
+    }
+
+    @SuppressWarnings("unchecked")
+    private DefaultGraphTraversal<Vertex, Vertex> traversal(Traversal.Admin<?, ?> orderTraversal, Order order) {
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer(T.label.getAccessor(), P.eq("Person"))));
+        OrderGlobalStep orderStep = new OrderGlobalStep<>(traversal);
+        orderStep.addComparator(orderTraversal, order);
+        traversal.addStep(orderStep);
+        traversal.addStep(new RangeGlobalStep<>(traversal, 0, 2));
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        return traversal;
+    }
+
+    @Test
+    public void givenOrderAndLimitShouldCompileTopN() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Vertex> traversal = traversal(new ElementValueTraversal<>("age"), Order.decr);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        traversal.toList();
+        // assert
+        Assert.assertEquals("Invalid number of steps", 1, traversal.getSteps().size());
+        Mockito.verify(graph).vertices(argument.capture(), Mockito.any());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE size(labels(n)) = 1 RETURN n ORDER BY n.`age` DESC LIMIT {p0}", argument.getValue().text());
+    }
+
+    @Test
+    public void givenPendingChangesShouldSortInMemory() {
+        // arrange
+        arrange();
+        Mockito.when(graph.hasPendingChanges()).thenAnswer(invocation -> true);
+        DefaultGraphTraversal<Vertex, Vertex> traversal = traversal(new TokenTraversal<>(T.id), Order.incr);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        List<Vertex> result = traversal.toList();
+        // assert
+        Assert.assertEquals("Invalid result", Arrays.asList(vertex1, vertex2), result);
+        Mockito.verify(graph).vertices(argument.capture(), Mockito.any());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE size(labels(n)) = 1 RETURN n", argument.getValue().text());
+    }
+}
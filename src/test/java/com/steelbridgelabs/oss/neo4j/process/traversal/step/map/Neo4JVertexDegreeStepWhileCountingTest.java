@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JVertexStepStrategy;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.InjectStep;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JVertexDegreeStepWhileCountingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JVertex vertex1;
+
+    @Mock
+    private Neo4JVertex vertex2;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenVerticesShouldCountEdgesFromDegree() {
+        // arrange
+        Mockito.when(vertex1.degree(Mockito.eq(Direction.OUT), Mockito.<String>anyVararg())).thenAnswer(invocation -> 3L);
+        Mockito.when(vertex2.degree(Mockito.eq(Direction.OUT), Mockito.<String>anyVararg())).thenAnswer(invocation -> 0L);
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex1, vertex2, vertex1));
+        DefaultGraphTraversal<Vertex, Long> count = (DefaultGraphTraversal<Vertex, Long>)traversal.out("knows").count();
+        Neo4JVertexStepStrategy.instance().apply(count);
+        // act
+        long result = count.next();
+        // assert
+        Assert.assertEquals("Invalid count", 6L, result);
+        Mockito.verify(vertex1, Mockito.never()).vertices(Mockito.any(Direction.class), Mockito.<String>anyVararg());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenPendingChangesShouldCountEdgesFromDegree() {
+        // arrange
+        Mockito.when(graph.hasPendingChanges()).thenAnswer(invocation -> true);
+        Mockito.when(vertex1.degree(Mockito.eq(Direction.OUT), Mockito.<String>anyVararg())).thenAnswer(invocation -> 2L);
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex1));
+        DefaultGraphTraversal<Vertex, Long> count = (DefaultGraphTraversal<Vertex, Long>)traversal.out("knows").count();
+        Neo4JVertexStepStrategy.instance().apply(count);
+        // act
+        long result = count.next();
+        // assert
+        Assert.assertEquals("Invalid count", 2L, result);
+        Mockito.verify(vertex1, Mockito.never()).edges(Mockito.any(Direction.class), Mockito.<String>anyVararg());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JVertexStepStrategy;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.InjectStep;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JVertexEdgeStepWhileExpandingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Neo4JVertex vertex;
+
+    @Mock
+    private Edge edge;
+
+    @Mock
+    private Property<Object> property;
+
+    private void arrange() {
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getEdgeIdProvider()).thenAnswer(invocation -> provider);
+        Mockito.when(graph.vertexLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertex.id()).thenAnswer(invocation -> 1L);
+        Mockito.when(vertex.matchPattern(Mockito.eq("n"), Mockito.eq("id"))).thenAnswer(invocation -> "(n:`Person`{id: {id}})");
+        Mockito.when(edge.properties(Mockito.<String>anyVararg())).thenAnswer(invocation -> Collections.singletonList(property).iterator());
+        Mockito.when(edge.property(Mockito.anyString())).thenAnswer(invocation -> property);
+        Mockito.when(property.isPresent()).thenAnswer(invocation -> true);
+        Mockito.when(property.value()).thenAnswer(invocation -> 5);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DefaultGraphTraversal<Vertex, Edge> traversal() {
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex));
+        DefaultGraphTraversal<Vertex, Edge> result = (DefaultGraphTraversal<Vertex, Edge>)traversal.outE("rated").has("score", P.gt(4)).order().by("ts", Order.decr).limit(20);
+        Neo4JVertexStepStrategy.instance().apply(result);
+        return result;
+    }
+
+    @Test
+    public void givenEdgePredicatesAndTopNShouldFindEdgesWithSingleStatement() {
+        // arrange
+        arrange();
+        Mockito.when(vertex.edges(Mockito.any(Statement.class))).thenAnswer(invocation -> Collections.singletonList(edge).iterator());
+        DefaultGraphTraversal<Vertex, Edge> traversal = traversal();
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        List<Edge> result = traversal.toList();
+        // assert
+        Mockito.verify(vertex).edges(argument.capture());
+        Mockito.verify(vertex, Mockito.never()).edges(Mockito.any(Direction.class), Mockito.<String>anyVararg());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`{id: {id}}) MATCH (n)-[r:`rated`]->(m) WHERE r.`score` > {p0} RETURN r, m ORDER BY r.`ts` DESC LIMIT {p2}", argument.getValue().text());
+        Assert.assertEquals("Invalid limit", 20L, argument.getValue().parameters().get("p2").asLong());
+        Assert.assertEquals("Invalid result", Collections.singletonList(edge), result);
+    }
+
+    @Test
+    public void givenPendingChangesShouldEvaluatePredicatesInMemory() {
+        // arrange
+        arrange();
+        Mockito.when(graph.hasPendingChanges()).thenAnswer(invocation -> true);
+        Mockito.when(vertex.edges(Mockito.eq(Direction.OUT), Mockito.<String>anyVararg())).thenAnswer(invocation -> Collections.singletonList(edge).iterator());
+        DefaultGraphTraversal<Vertex, Edge> traversal = traversal();
+        // act
+        List<Edge> result = traversal.toList();
+        // assert
+        Mockito.verify(vertex, Mockito.never()).edges(Mockito.any(Statement.class));
+        Assert.assertEquals("Invalid result", Collections.singletonList(edge), result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenSupernodeDegreeThresholdShouldFindEdgesInPages() {
+        // arrange
+        arrange();
+        Mockito.when(graph.getSupernodeDegreeThreshold()).thenAnswer(invocation -> 100);
+        Mockito.when(vertex.edges(Mockito.any(Function.class))).thenAnswer(invocation -> Collections.singletonList(edge).iterator());
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex));
+        DefaultGraphTraversal<Vertex, Edge> edges = (DefaultGraphTraversal<Vertex, Edge>)traversal.outE("rated").has("score", P.gt(4));
+        Neo4JVertexStepStrategy.instance().apply(edges);
+        ArgumentCaptor<Function> argument = ArgumentCaptor.forClass(Function.class);
+        // act
+        List<Edge> result = edges.toList();
+        // assert
+        Mockito.verify(vertex).edges(argument.capture());
+        Mockito.verify(vertex, Mockito.never()).edges(Mockito.any(Statement.class));
+        Statement first = (Statement)argument.getValue().apply(null);
+        Statement next = (Statement)argument.getValue().apply(7L);
+        Assert.assertEquals("Invalid first page statement", "MATCH (n:`Person`{id: {id}}) MATCH (n)-[r:`rated`]->(m) WHERE r.`score` > {p0} RETURN r, m ORDER BY r.id LIMIT {p2}", first.text());
+        Assert.assertEquals("Invalid page statement", "MATCH (n:`Person`{id: {id}}) MATCH (n)-[r:`rated`]->(m) WHERE r.`score` > {p0} WITH r, m WHERE r.id > {last} RETURN r, m ORDER BY r.id LIMIT {p2}", next.text());
+        Assert.assertEquals("Invalid page size", 101L, first.parameters().get("p2").asLong());
+        Mockito.verify(vertex, Mockito.never()).isSupernode(Mockito.any(Direction.class), Mockito.<String>anyVararg());
+        Assert.assertEquals("Invalid last identifier", 7L, next.parameters().get("last").asLong());
+        Assert.assertEquals("Invalid result", Collections.singletonList(edge), result);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.step.map;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization.Neo4JVertexStepStrategy;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JElementIdProvider;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JGraph;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JReadPartition;
+import com.steelbridgelabs.oss.neo4j.structure.Neo4JVertex;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.InjectStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Statement;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JVertexPathStepWhileTraversingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Neo4JVertex vertex;
+
+    @Mock
+    private Neo4JVertex company;
+
+    @Mock
+    private Neo4JVertex other;
+
+    @Mock
+    private Vertex friend;
+
+    private void arrange() {
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getVertexIdProvider()).thenAnswer(invocation -> provider);
+        Mockito.when(graph.vertexLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(vertex.id()).thenAnswer(invocation -> 1L);
+        Mockito.when(vertex.matchPattern(Mockito.eq("n"))).thenAnswer(invocation -> "(n:`Person`)");
+    }
+
+    @SuppressWarnings("unchecked")
+    private DefaultGraphTraversal<Vertex, Vertex> traversal() {
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex));
+        traversal.addStep(new VertexStep<>(traversal, Vertex.class, Direction.OUT, "knows"));
+        traversal.addStep(new VertexStep<>(traversal, Vertex.class, Direction.OUT, "worksAt"));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer(T.label.getAccessor(), P.eq("Company"))));
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        return traversal;
+    }
+
+    @Test
+    public void givenVertexStepsShouldFindVerticesWithSingleStatement() {
+        // arrange
+        arrange();
+        Mockito.when(graph.keyedVertices(Mockito.any(Statement.class))).thenAnswer(invocation -> Collections.singletonList(entry(1L, company)).iterator());
+        Mockito.when(company.label()).thenAnswer(invocation -> "Company");
+        DefaultGraphTraversal<Vertex, Vertex> traversal = traversal();
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        List<Vertex> result = traversal.toList();
+        // assert
+        Mockito.verify(graph).keyedVertices(argument.capture());
+        Mockito.verify(vertex, Mockito.never()).vertices(Mockito.any(Direction.class), Mockito.<String>anyVararg());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE n.id IN {ids} MATCH (n)-[:`knows`]->(v1) MATCH (v1)-[:`worksAt`]->(v2:`Company`) WHERE size(labels(v2)) = 1 RETURN n.id AS s, v2 AS v", argument.getValue().text());
+        Assert.assertEquals("Invalid vertex ids", Collections.singletonList(1L), argument.getValue().parameters().get("ids").asList());
+        Assert.assertEquals("Invalid result", Collections.singletonList(company), result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenBatchSizeShouldFindVerticesOfAllTraversersWithSingleStatement() {
+        // arrange
+        arrange();
+        Mockito.when(graph.getExpansionBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(other.id()).thenAnswer(invocation -> 2L);
+        Mockito.when(other.matchPattern(Mockito.eq("n"))).thenAnswer(invocation -> "(n:`Person`)");
+        Mockito.when(graph.keyedVertices(Mockito.any(Statement.class))).thenAnswer(invocation -> Arrays.asList(entry(2L, company), entry(1L, company)).iterator());
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex, other));
+        traversal.out("parent").out("parent");
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        List<Vertex> result = traversal.toList();
+        // assert
+        Mockito.verify(graph, Mockito.times(1)).keyedVertices(argument.capture());
+        Assert.assertEquals("Invalid vertex ids", 2, argument.getValue().parameters().get("ids").size());
+        Assert.assertEquals("Invalid result", Arrays.asList(company, company), result);
+    }
+
+    @Test
+    public void givenPendingChangesShouldEvaluateStepsInMemory() {
+        // arrange
+        arrange();
+        Mockito.when(graph.hasPendingChanges()).thenAnswer(invocation -> true);
+        Mockito.when(vertex.vertices(Mockito.eq(Direction.OUT), Mockito.<String>anyVararg())).thenAnswer(invocation -> Collections.singletonList(friend).iterator());
+        Mockito.when(friend.vertices(Mockito.eq(Direction.OUT), Mockito.<String>anyVararg())).thenAnswer(invocation -> Collections.singletonList(company).iterator());
+        Mockito.when(company.label()).thenAnswer(invocation -> "Company");
+        DefaultGraphTraversal<Vertex, Vertex> traversal = traversal();
+        // act
+        List<Vertex> result = traversal.toList();
+        // assert
+        Mockito.verify(graph, Mockito.never()).keyedVertices(Mockito.any(Statement.class));
+        Assert.assertEquals("Invalid result", Collections.singletonList(company), result);
+    }
+
+    @Test
+    public void givenRepeatTimesShouldUnrollPath() {
+        // arrange
+        arrange();
+        Mockito.when(graph.keyedVertices(Mockito.any(Statement.class))).thenAnswer(invocation -> Collections.singletonList(entry(1L, company)).iterator());
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex));
+        traversal.repeat(__.out("parent")).times(3);
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        List<Vertex> result = traversal.toList();
+        // assert
+        Mockito.verify(graph).keyedVertices(argument.capture());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE n.id IN {ids} MATCH (n)-[:`parent`]->(v1) MATCH (v1)-[:`parent`]->(v2) MATCH (v2)-[:`parent`]->(v3) RETURN n.id AS s, v3 AS v", argument.getValue().text());
+        Assert.assertEquals("Invalid result", Collections.singletonList(company), result);
+    }
+
+    @Test
+    public void givenRepeatEmitShouldReturnVerticesInEveryDepth() {
+        // arrange
+        arrange();
+        Mockito.when(graph.keyedVertices(Mockito.any(Statement.class))).thenAnswer(invocation -> Collections.singletonList(entry(1L, company)).iterator());
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(graph);
+        traversal.addStep(new InjectStep<>(traversal, vertex));
+        traversal.emit().repeat(__.out("parent")).times(2);
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        // act
+        List<Vertex> result = traversal.toList();
+        // assert
+        Mockito.verify(graph).keyedVertices(argument.capture());
+        Assert.assertEquals("Invalid statement", "MATCH (n:`Person`) WHERE n.id IN {ids} MATCH (n)-[:`parent`]->(v1) RETURN n.id AS s, v1 AS v UNION ALL MATCH (n:`Person`) WHERE n.id IN {ids} MATCH (n)-[:`parent`]->(v1) MATCH (v1)-[:`parent`]->(v2) RETURN n.id AS s, v2 AS v", argument.getValue().text());
+        Assert.assertEquals("Invalid result", Arrays.asList(vertex, company), result);
+    }
+
+    @Test
+    public void givenClonedTraversalShouldNotSharePath() {
+        // arrange
+        arrange();
+        DefaultGraphTraversal<Vertex, Vertex> traversal = traversal();
+        Neo4JVertexPathStep step = (Neo4JVertexPathStep)traversal.getSteps().get(1);
+        // act
+        Neo4JVertexPathStep clone = (Neo4JVertexPathStep)traversal.clone().getSteps().get(1);
+        // assert
+        Assert.assertNotSame("Path was not cloned", step.getPath(), clone.getPath());
+        Assert.assertSame("Invalid path parent", clone, clone.getPath().getParent());
+        Assert.assertEquals("Invalid local children", Collections.singletonList(clone.getPath()), clone.getLocalChildren());
+    }
+
+    private static Map.Entry<Object, Vertex> entry(Object id, Vertex vertex) {
+        return new AbstractMap.SimpleImmutableEntry<>(id, vertex);
+    }
+}
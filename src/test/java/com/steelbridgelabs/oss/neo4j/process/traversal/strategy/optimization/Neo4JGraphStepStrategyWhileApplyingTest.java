@@ -0,0 +1,122 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JGraphCountStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JGraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.empty.EmptyGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JGraphStepStrategyWhileApplyingTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenHasStepsShouldFoldContainersIntoGraphStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer(T.label.getAccessor(), P.eq("Person"))));
+        HasStep<Vertex> hasStep = new HasStep<>(traversal, new HasContainer("name", P.eq("John")));
+        hasStep.addLabel("a");
+        traversal.addStep(hasStep);
+        // act
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 1, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getStartStep() instanceof Neo4JGraphStep);
+        Neo4JGraphStep<?, ?> step = (Neo4JGraphStep<?, ?>)traversal.getStartStep();
+        Assert.assertEquals("Invalid number of containers", 2, step.getHasContainers().size());
+        Assert.assertTrue("Failed to copy step labels", step.getLabels().contains("a"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenIdentifierContainerShouldFoldIdentifiersIntoGraphStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer(T.id.getAccessor(), P.eq(1L))));
+        // act
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        // assert
+        Neo4JGraphStep<?, ?> step = (Neo4JGraphStep<?, ?>)traversal.getStartStep();
+        Assert.assertArrayEquals("Invalid identifiers", new Object[]{1L}, step.getIds());
+        Assert.assertTrue("Identifier container should not be evaluated", step.getHasContainers().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRangeStepShouldFoldRangeIntoGraphStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer("name", P.eq("John"))));
+        traversal.addStep(new RangeGlobalStep<>(traversal, 5, 10));
+        // act
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 1, traversal.getSteps().size());
+        Neo4JGraphStep<?, ?> step = (Neo4JGraphStep<?, ?>)traversal.getStartStep();
+        Assert.assertEquals("Invalid low range", 5, step.getLowRange());
+        Assert.assertEquals("Invalid high range", 10, step.getHighRange());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenCountStepShouldReplaceGraphStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Long> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer(T.label.getAccessor(), P.eq("Person"))));
+        traversal.addStep(new CountGlobalStep<>(traversal));
+        // act
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 1, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getStartStep() instanceof Neo4JGraphCountStep);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenMidTraversalGraphStepShouldNotFoldCount() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Long> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true));
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, false));
+        traversal.addStep(new CountGlobalStep<>(traversal));
+        // act
+        Neo4JGraphStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 3, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getEndStep() instanceof CountGlobalStep);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.process.traversal.strategy.optimization;
+
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JAdjacencyBatchStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JVertexDegreeStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JVertexEdgeStep;
+import com.steelbridgelabs.oss.neo4j.process.traversal.step.map.Neo4JVertexPathStep;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.step.branch.RepeatStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PathStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.empty.EmptyGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JVertexStepStrategyWhileApplyingTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenConsecutiveVertexStepsShouldFoldStepsIntoPathStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true, 1L));
+        traversal.addStep(new VertexStep<>(traversal, Vertex.class, Direction.OUT, "knows"));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer("age", P.gt(30))));
+        traversal.addStep(new VertexStep<>(traversal, Vertex.class, Direction.OUT, "worksAt"));
+        // act
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 2, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getEndStep() instanceof Neo4JVertexPathStep);
+        Assert.assertEquals("Invalid number of steps in path", 3, ((Neo4JVertexPathStep)traversal.getEndStep()).getPath().getSteps().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenSingleVertexStepShouldNotFoldStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true, 1L));
+        traversal.addStep(new VertexStep<>(traversal, Vertex.class, Direction.OUT, "knows"));
+        traversal.addStep(new HasStep<>(traversal, new HasContainer("age", P.gt(30))));
+        // act
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 4, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getSteps().get(2) instanceof VertexStep);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenVertexStepShouldInsertAdjacencyBatchStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true, 1L));
+        traversal.addStep(new VertexStep<>(traversal, Edge.class, Direction.IN, "knows"));
+        // act
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 3, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getSteps().get(1) instanceof Neo4JAdjacencyBatchStep);
+        Assert.assertEquals("Invalid direction", Direction.IN, ((Neo4JAdjacencyBatchStep)traversal.getSteps().get(1)).getDirection());
+        Assert.assertArrayEquals("Invalid labels", new String[]{"knows"}, ((Neo4JAdjacencyBatchStep)traversal.getSteps().get(1)).getEdgeLabels());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEdgeStepWithFiltersAndTopNShouldFoldStepsIntoEdgeStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true, 1L));
+        traversal.outE("rated").has("score", P.gt(4)).order().by("ts", Order.decr).limit(20);
+        // act
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 4, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getSteps().get(1) instanceof Neo4JVertexEdgeStep);
+        Assert.assertEquals("Invalid number of containers", 1, ((Neo4JVertexEdgeStep)traversal.getSteps().get(1)).getHasContainers().size());
+        Assert.assertEquals("Invalid limit", 20L, ((Neo4JVertexEdgeStep)traversal.getSteps().get(1)).getLimit());
+        Assert.assertTrue("Invalid step", traversal.getSteps().get(2) instanceof OrderGlobalStep);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEdgeStepFollowedByCountShouldFoldStepIntoDegreeStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true, 1L));
+        traversal.outE("knows").count();
+        // act
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 3, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getSteps().get(1) instanceof Neo4JVertexDegreeStep);
+        Assert.assertEquals("Invalid direction", Direction.OUT, ((Neo4JVertexDegreeStep)traversal.getSteps().get(1)).getDirection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenPathStepShouldNotFoldVertexSteps() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true, 1L));
+        traversal.addStep(new VertexStep<>(traversal, Vertex.class, Direction.OUT, "knows"));
+        traversal.addStep(new VertexStep<>(traversal, Vertex.class, Direction.OUT, "worksAt"));
+        traversal.addStep(new PathStep<>(traversal));
+        // act
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 6, traversal.getSteps().size());
+        Assert.assertFalse("Invalid step", traversal.getSteps().stream().anyMatch(step -> step instanceof Neo4JVertexPathStep));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRepeatTimesShouldFoldRepeatStepIntoPathStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true, 1L));
+        traversal.repeat(__.out("parent")).times(5);
+        // act
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertEquals("Invalid number of steps", 2, traversal.getSteps().size());
+        Assert.assertTrue("Invalid step", traversal.getEndStep() instanceof Neo4JVertexPathStep);
+        Assert.assertTrue("Invalid path", ((Neo4JVertexPathStep)traversal.getEndStep()).getPath().getStartStep() instanceof RepeatStep);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRepeatUntilShouldNotFoldRepeatStep() {
+        // arrange
+        DefaultGraphTraversal<Vertex, Vertex> traversal = new DefaultGraphTraversal<>(EmptyGraph.instance());
+        traversal.addStep(new GraphStep<>(traversal, Vertex.class, true, 1L));
+        traversal.repeat(__.out("parent")).until(__.hasId(2L));
+        // act
+        Neo4JVertexStepStrategy.instance().apply(traversal);
+        // assert
+        Assert.assertTrue("Invalid step", traversal.getEndStep() instanceof RepeatStep);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.summary.ResultSummary;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JBulkLoaderWhileLoadingTest {
+
+    @Mock
+    private Driver driver;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Test
+    public void givenVerticesShouldCommitEveryCommitSizeElements() {
+        // arrange
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            try (Neo4JBulkLoader loader = graph.bulkLoader(2)) {
+                // act
+                long count = loader.addVertices(Stream.of(new Neo4JBulkLoader.VertexDescriptor("l1", "name", "a"), new Neo4JBulkLoader.VertexDescriptor("l1", "name", "b"), new Neo4JBulkLoader.VertexDescriptor("l1", "name", "c")));
+                // assert
+                Assert.assertEquals("Invalid number of vertices", 3, count);
+                Mockito.verify(transaction, Mockito.times(1)).success();
+                Mockito.verify(transaction, Mockito.times(1)).close();
+            }
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).success();
+            Mockito.verify(transaction, Mockito.times(2)).run(argument.capture());
+            List<Statement> statements = argument.getAllValues();
+            Assert.assertEquals("Invalid CREATE statement", "UNWIND {rows} AS row CREATE (n:`l1`) SET n = row", statements.get(0).text());
+            Assert.assertEquals("Invalid number of rows in batch", 2, statements.get(0).parameters().get("rows").size());
+            Assert.assertEquals("Invalid number of rows in batch", 1, statements.get(1).parameters().get("rows").size());
+            Mockito.verify(session, Mockito.times(1)).close();
+        }
+    }
+
+    @Test
+    public void givenVerticesAndEdgesShouldCreateVerticesBeforeEdges() {
+        // arrange
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L, 4L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            try (Neo4JBulkLoader loader = graph.bulkLoader()) {
+                // act
+                Object out = loader.addVertex("l1");
+                loader.addEdge("knows", "l1", out, null, 10L);
+                Object in = loader.addVertex("l2");
+                loader.addEdge("knows", "l1", out, "l2", in, "since", 2000);
+            }
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).success();
+            Mockito.verify(transaction, Mockito.times(4)).run(argument.capture());
+            List<Statement> statements = argument.getAllValues();
+            Assert.assertEquals("Invalid CREATE statement", "UNWIND {rows} AS row CREATE (n:`l1`) SET n = row", statements.get(0).text());
+            Assert.assertEquals("Invalid CREATE statement", "UNWIND {rows} AS row CREATE (n:`l2`) SET n = row", statements.get(1).text());
+            Assert.assertEquals("Invalid CREATE statement", "UNWIND {rows} AS row MATCH (o:`l1`{id: row.oid}), (i{id: row.iid}) CREATE (o)-[r:`knows`]->(i) SET r = row.ep", statements.get(2).text());
+            Assert.assertEquals("Invalid CREATE statement", "UNWIND {rows} AS row MATCH (o:`l1`{id: row.oid}), (i:`l2`{id: row.iid}) CREATE (o)-[r:`knows`]->(i) SET r = row.ep", statements.get(3).text());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenVertexLabelWithBacktickShouldThrowException() {
+        // arrange
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            try (Neo4JBulkLoader loader = graph.bulkLoader()) {
+                // act
+                loader.addVertex("l1::l`2");
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenVertexLabelWithEmptyLabelShouldThrowException() {
+        // arrange
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            try (Neo4JBulkLoader loader = graph.bulkLoader()) {
+                // act
+                loader.addVertex("l1::");
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenEdgeVertexLabelWithBacktickShouldThrowException() {
+        // arrange
+        Mockito.when(driver.session()).thenAnswer(invocation -> session);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        try (Neo4JGraph graph = new Neo4JGraph(driver, provider, provider)) {
+            try (Neo4JBulkLoader loader = graph.bulkLoader()) {
+                // act
+                loader.addEdge("knows", "l`1", 1L, null, 2L);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JRangeSpliteratorWhileScanningTest {
+
+    @Mock
+    private Neo4JSession session;
+
+    @Test
+    public void givenParallelStreamShouldScanAllRanges() {
+        // arrange
+        Set<Neo4JRangeSpliterator<?>> registry = ConcurrentHashMap.newKeySet();
+        Neo4JRangeSpliterator<Long> spliterator = new Neo4JRangeSpliterator<>(() -> session, (session, from, to) -> LongStream.rangeClosed(from, to).boxed().iterator(), 1, 100, 10, registry);
+        // act
+        List<Long> result = StreamSupport.stream(spliterator, true).sorted().collect(Collectors.toList());
+        // assert
+        Assert.assertEquals("Invalid number of elements", 100, result.size());
+        Assert.assertEquals("Invalid first element", Long.valueOf(1), result.get(0));
+        Assert.assertEquals("Invalid last element", Long.valueOf(100), result.get(99));
+        Assert.assertTrue("Failed to release sessions", registry.isEmpty());
+    }
+
+    @Test
+    public void givenMinimumSizeShouldNotSplitRange() {
+        // arrange
+        Neo4JRangeSpliterator<Long> spliterator = new Neo4JRangeSpliterator<>(() -> session, (session, from, to) -> LongStream.rangeClosed(from, to).boxed().iterator(), 1, 10, 10, ConcurrentHashMap.newKeySet());
+        // act
+        Object split = spliterator.trySplit();
+        // assert
+        Assert.assertNull("Range should not be split", split);
+    }
+
+    @Test
+    public void givenExhaustedRangeShouldCloseSession() {
+        // arrange
+        Set<Neo4JRangeSpliterator<?>> registry = ConcurrentHashMap.newKeySet();
+        Neo4JRangeSpliterator<Long> spliterator = new Neo4JRangeSpliterator<>(() -> session, (session, from, to) -> LongStream.rangeClosed(from, to).boxed().iterator(), 1, 2, 10, registry);
+        // act
+        spliterator.forEachRemaining(item -> {
+        });
+        // assert
+        Mockito.verify(session, Mockito.times(1)).close();
+        Assert.assertTrue("Failed to unregister spliterator", registry.isEmpty());
+    }
+
+    @Test
+    public void givenAbandonedRangeShouldCloseSessionOnClose() {
+        // arrange
+        Set<Neo4JRangeSpliterator<?>> registry = ConcurrentHashMap.newKeySet();
+        Neo4JRangeSpliterator<Long> spliterator = new Neo4JRangeSpliterator<>(() -> session, (session, from, to) -> LongStream.rangeClosed(from, to).boxed().iterator(), 1, 2, 10, registry);
+        spliterator.tryAdvance(item -> {
+        });
+        // act
+        registry.forEach(Neo4JRangeSpliterator::close);
+        // assert
+        Mockito.verify(session, Mockito.times(1)).close();
+        Assert.assertTrue("Failed to unregister spliterator", registry.isEmpty());
+    }
+
+    @Test
+    public void givenWholeIdentifierSpaceShouldSplitWithoutOverflow() {
+        // arrange
+        Neo4JRangeSpliterator<Long> spliterator = new Neo4JRangeSpliterator<>(() -> session, (session, from, to) -> LongStream.of(from, to).boxed().iterator(), Long.MIN_VALUE, Long.MAX_VALUE, 1, ConcurrentHashMap.newKeySet());
+        // act
+        Neo4JRangeSpliterator<Long> split = (Neo4JRangeSpliterator<Long>)spliterator.trySplit();
+        // assert
+        Assert.assertNotNull("Range should be split", split);
+        List<Long> first = new ArrayList<>();
+        List<Long> second = new ArrayList<>();
+        split.forEachRemaining(first::add);
+        spliterator.forEachRemaining(second::add);
+        Assert.assertEquals("Invalid first half", Arrays.asList(Long.MIN_VALUE, -1L), first);
+        Assert.assertEquals("Invalid second half", Arrays.asList(0L, Long.MAX_VALUE), second);
+    }
+
+    @Test
+    public void givenRangeLargerThanLongShouldSaturateSize() {
+        // act
+        long size = Neo4JRangeSpliterator.size(Long.MIN_VALUE, Long.MAX_VALUE);
+        // assert
+        Assert.assertEquals("Invalid size", Long.MAX_VALUE, size);
+        Assert.assertEquals("Invalid single identifier size", 1L, Neo4JRangeSpliterator.size(Long.MAX_VALUE, Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.summary.ResultSummary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JResultIteratorWhileIteratingTest {
+
+    @Mock
+    private StatementResult result;
+
+    @Mock
+    private Record record1;
+
+    @Mock
+    private Record record2;
+
+    @Mock
+    private ResultSummary summary;
+
+    @Test
+    public void givenElementsInMemoryShouldReturnThemBeforeReadingResult() {
+        // arrange
+        Mockito.when(result.hasNext()).thenReturn(true, false);
+        Mockito.when(result.next()).thenReturn(record1);
+        Mockito.when(result.consume()).thenReturn(summary);
+        Neo4JResultIterator<String> iterator = new Neo4JResultIterator<>(Collections.singletonList("memory").iterator(), result, record -> "record", null);
+        // act
+        String first = iterator.next();
+        // assert
+        Assert.assertEquals("Invalid first element", "memory", first);
+        Mockito.verify(result, Mockito.never()).next();
+        Assert.assertEquals("Invalid second element", "record", iterator.next());
+        Assert.assertFalse("Iterator should be exhausted", iterator.hasNext());
+    }
+
+    @Test
+    public void givenSkippedRecordShouldReturnNextRecord() {
+        // arrange
+        Mockito.when(result.hasNext()).thenReturn(true, true, false);
+        Mockito.when(result.next()).thenReturn(record1, record2);
+        Mockito.when(result.consume()).thenReturn(summary);
+        Neo4JResultIterator<Record> iterator = new Neo4JResultIterator<>(Collections.emptyIterator(), result, record -> record == record1 ? null : record, null);
+        // act
+        Record record = iterator.next();
+        // assert
+        Assert.assertEquals("Invalid element", record2, record);
+        Assert.assertFalse("Iterator should be exhausted", iterator.hasNext());
+    }
+
+    @Test
+    public void givenBatchSizeShouldPrepareRecordsBeforeLoadingThem() {
+        // arrange
+        Mockito.when(result.hasNext()).thenReturn(true, true, true, false);
+        Mockito.when(result.next()).thenReturn(record1, record2);
+        Mockito.when(result.consume()).thenReturn(summary);
+        AtomicInteger counter = new AtomicInteger(0);
+        Neo4JResultIterator<Record> iterator = new Neo4JResultIterator<Record>(Collections.emptyIterator(), result, record -> record, null) {
+
+            @Override
+            int batchSize() {
+                return 10;
+            }
+
+            @Override
+            void prepare(List<Record> records) {
+                counter.addAndGet(records.size());
+            }
+        };
+        // act
+        Record record = iterator.next();
+        // assert
+        Assert.assertEquals("Invalid element", record1, record);
+        Assert.assertEquals("Failed to prepare records in batch", 2, counter.get());
+        Mockito.verify(result, Mockito.times(2)).next();
+    }
+
+    @Test
+    public void givenPendingRecordsShouldNotConsumeResult() {
+        // arrange
+        Mockito.when(result.hasNext()).thenReturn(true);
+        Mockito.when(result.next()).thenReturn(record1);
+        Neo4JResultIterator<Record> iterator = new Neo4JResultIterator<>(Collections.emptyIterator(), result, record -> record, null);
+        // act
+        iterator.next();
+        // assert
+        Mockito.verify(result, Mockito.times(1)).next();
+        Mockito.verify(result, Mockito.never()).consume();
+    }
+
+    @Test
+    public void givenExhaustedIteratorShouldConsumeResultAndNotifyOnce() {
+        // arrange
+        Mockito.when(result.hasNext()).thenReturn(false);
+        Mockito.when(result.consume()).thenReturn(summary);
+        AtomicInteger counter = new AtomicInteger(0);
+        Neo4JResultIterator<Record> iterator = new Neo4JResultIterator<>(Arrays.asList(record1, record2).iterator(), result, record -> record, counter::incrementAndGet);
+        // act
+        iterator.forEachRemaining(record -> {
+        });
+        iterator.hasNext();
+        // assert
+        Mockito.verify(result, Mockito.times(1)).consume();
+        Assert.assertEquals("Failed to notify iterator was exhausted", 1, counter.get());
+    }
+
+    @Test
+    public void givenClosedIteratorShouldConsumeResultWithoutNotifying() {
+        // arrange
+        Mockito.when(result.hasNext()).thenReturn(true);
+        Mockito.when(result.consume()).thenReturn(summary);
+        AtomicInteger counter = new AtomicInteger(0);
+        Neo4JResultIterator<Record> iterator = new Neo4JResultIterator<>(Collections.emptyIterator(), result, record -> record, counter::incrementAndGet);
+        // act
+        iterator.close();
+        // assert
+        Assert.assertFalse("Closed iterator should not have elements", iterator.hasNext());
+        Mockito.verify(result, Mockito.times(1)).consume();
+        Mockito.verify(result, Mockito.never()).next();
+        Assert.assertEquals("Closed iterator should not notify", 0, counter.get());
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.summary.ResultSummary;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JSessionWhileCommitTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private org.apache.tinkerpop.gremlin.structure.Transaction graphTransaction;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Test
+    public void givenTransientVerticesShouldCreateVerticesInBatches() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 2);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            session.addVertex(T.label, "l1");
+            session.addVertex(T.label, "l1");
+            session.addVertex(T.label, "l1");
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(argument.capture());
+            List<Statement> statements = argument.getAllValues();
+            Assert.assertEquals("Invalid CREATE statement", "UNWIND {rows} AS row CREATE (n:`l1`) SET n = row", statements.get(0).text());
+            Assert.assertEquals("Invalid CREATE statement", "UNWIND {rows} AS row CREATE (n:`l1`) SET n = row", statements.get(1).text());
+            Assert.assertEquals("Invalid number of rows in batch", 2, statements.get(0).parameters().get("rows").size());
+            Assert.assertEquals("Invalid number of rows in batch", 1, statements.get(1).parameters().get("rows").size());
+        }
+    }
+
+    @Test
+    public void givenTransientVerticesWithDifferentLabelsShouldCreateVerticesInSeparateStatements() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            session.addVertex(T.label, "l1");
+            session.addVertex(T.label, "l2::l1");
+            session.addVertex(T.label, "l1::l2");
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(argument.capture());
+            Assert.assertTrue("Invalid CREATE statements", argument.getAllValues().stream().anyMatch(statement -> "UNWIND {rows} AS row CREATE (n:`l1`) SET n = row".equals(statement.text()) && statement.parameters().get("rows").size() == 1));
+            Assert.assertTrue("Invalid CREATE statements", argument.getAllValues().stream().anyMatch(statement -> "UNWIND {rows} AS row CREATE (n:`l1`:`l2`) SET n = row".equals(statement.text()) && statement.parameters().get("rows").size() == 2));
+        }
+    }
+
+    @Test
+    public void givenTransientEdgesShouldCreateEdgesInBatches() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L, 4L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Neo4JVertex out = session.addVertex(T.label, "l1");
+            Neo4JVertex in = session.addVertex(T.label, "l2");
+            session.addEdge("knows", out, in);
+            session.addEdge("knows", out, in);
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(transaction, Mockito.times(3)).run(argument.capture());
+            Statement statement = argument.getAllValues().get(2);
+            Assert.assertEquals("Invalid CREATE statement", "UNWIND {rows} AS row MATCH (o:`l1`{id: row.oid}), (i:`l2`{id: row.iid}) CREATE (o)-[r:`knows`]->(i) SET r = row.ep", statement.text());
+            Assert.assertEquals("Invalid number of rows in batch", 2, statement.parameters().get("rows").size());
+        }
+    }
+
+    @Test
+    public void givenDeletedVerticesShouldDeleteVerticesInBatches() {
+        // arrange
+        Mockito.when(graph.tx()).thenAnswer(invocation -> graphTransaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Neo4JVertex vertex1 = session.addVertex(T.label, "l1");
+            Neo4JVertex vertex2 = session.addVertex(T.label, "l1");
+            Neo4JVertex vertex3 = session.addVertex(T.label, "l1");
+            Neo4JEdge edge = session.addEdge("knows", vertex1, vertex3);
+            session.commit();
+            session.beginTransaction();
+            session.removeEdge(edge, true);
+            session.removeVertex(vertex1);
+            session.removeVertex(vertex2);
+            Mockito.reset(transaction);
+            Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Statement statement = argument.getValue();
+            Assert.assertEquals("Invalid DELETE statement", "UNWIND {rows} AS row MATCH (v:`l1`{id: row.id}) DETACH DELETE v", statement.text());
+            Assert.assertEquals("Invalid number of rows in batch", 2, statement.parameters().get("rows").size());
+        }
+    }
+
+    @Test
+    public void givenDirtyVerticesShouldUpdateChangedPropertiesInBatches() {
+        // arrange
+        Mockito.when(graph.tx()).thenAnswer(invocation -> graphTransaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Neo4JVertex vertex1 = session.addVertex(T.label, "l1");
+            vertex1.property(VertexProperty.Cardinality.single, "name", "John");
+            vertex1.property(VertexProperty.Cardinality.single, "age", 50);
+            Neo4JVertex vertex2 = session.addVertex(T.label, "l1");
+            vertex2.property(VertexProperty.Cardinality.single, "name", "Mary");
+            session.commit();
+            session.beginTransaction();
+            vertex1.property(VertexProperty.Cardinality.single, "name", "Peter");
+            vertex2.property(VertexProperty.Cardinality.single, "city", "Miami");
+            Mockito.reset(transaction);
+            Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Statement statement = argument.getValue();
+            Assert.assertEquals("Invalid UPDATE statement", "UNWIND {rows} AS row MATCH (v:`l1`{id: row.id}) SET v += row.vp", statement.text());
+            Assert.assertEquals("Invalid number of rows in batch", 2, statement.parameters().get("rows").size());
+            Assert.assertEquals("Invalid changed properties", 1, statement.parameters().get("rows").get(0).get("vp").size());
+            Assert.assertEquals("Invalid changed properties", 1, statement.parameters().get("rows").get(1).get("vp").size());
+        }
+    }
+
+    @Test
+    public void givenVertexWithRemovedPropertyShouldRemovePropertyFromNode() {
+        // arrange
+        Mockito.when(graph.tx()).thenAnswer(invocation -> graphTransaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Neo4JVertex vertex = session.addVertex(T.label, "l1");
+            vertex.property(VertexProperty.Cardinality.single, "name", "John");
+            vertex.property(VertexProperty.Cardinality.single, "age", 50);
+            session.commit();
+            session.beginTransaction();
+            vertex.property("age").remove();
+            Mockito.reset(transaction);
+            Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Assert.assertEquals("Invalid UPDATE statement", "UNWIND {rows} AS row MATCH (v:`l1`{id: row.id}) REMOVE v.`age`", argument.getValue().text());
+        }
+    }
+
+    @Test
+    public void givenDirtyEdgeShouldUpdateChangedProperties() {
+        // arrange
+        Mockito.when(graph.tx()).thenAnswer(invocation -> graphTransaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Neo4JVertex out = session.addVertex(T.label, "l1");
+            Neo4JVertex in = session.addVertex(T.label, "l2");
+            Neo4JEdge edge = session.addEdge("knows", out, in, "since", 2000, "weight", 1);
+            session.commit();
+            session.beginTransaction();
+            edge.property("since", 2001);
+            edge.property("weight").remove();
+            Mockito.reset(transaction);
+            Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Statement statement = argument.getValue();
+            Assert.assertEquals("Invalid UPDATE statement", "UNWIND {rows} AS row MATCH (o:`l1`{id: row.oid})-[r:`knows`{id: row.id}]->(i:`l2`{id: row.iid}) SET r += row.rp REMOVE r.`weight`", statement.text());
+            Assert.assertEquals("Invalid changed properties", 2001, statement.parameters().get("rows").get(0).get("rp").get("since").asInt());
+        }
+    }
+
+    @Test
+    public void givenPipelinedFlushShouldProcessSummariesAfterAllStatements() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(graph.isPipelinedFlushEnabled()).thenAnswer(invocation -> true);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Neo4JVertex out = session.addVertex(T.label, "l1");
+            Neo4JVertex in = session.addVertex(T.label, "l2");
+            session.addEdge("knows", out, in);
+            // act
+            session.commit();
+            // assert
+            InOrder inOrder = Mockito.inOrder(transaction, statementResult);
+            inOrder.verify(transaction, Mockito.times(3)).run(Mockito.any(Statement.class));
+            inOrder.verify(statementResult, Mockito.times(3)).consume();
+            inOrder.verify(transaction).close();
+        }
+    }
+
+    @Test
+    public void givenFlushThresholdShouldFlushPendingElementsBeforeCommit() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(graph.getFlushThreshold()).thenAnswer(invocation -> 2);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L, 3L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            session.addVertex(T.label, "l1");
+            Neo4JVertex vertex = session.addVertex(T.label, "l1");
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Assert.assertEquals("Invalid number of rows in batch", 2, argument.getValue().parameters().get("rows").size());
+            Assert.assertFalse("Failed to commit flushed vertex state", vertex.isTransient());
+            // act
+            session.addVertex(T.label, "l1");
+            session.commit();
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(argument.capture());
+            Assert.assertEquals("Invalid number of rows in batch", 1, argument.getValue().parameters().get("rows").size());
+            Mockito.verify(transaction, Mockito.times(1)).close();
+        }
+    }
+
+    @Test
+    public void givenFlushedElementsShouldRollbackTransaction() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getBatchSize()).thenAnswer(invocation -> 10);
+        Mockito.when(graph.getFlushThreshold()).thenAnswer(invocation -> 1);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Neo4JVertex vertex = session.addVertex(T.label, "l1");
+            Assert.assertFalse("Failed to flush vertex state", vertex.isTransient());
+            // act
+            session.rollback();
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+            Mockito.verify(transaction, Mockito.never()).success();
+            Mockito.verify(transaction).failure();
+            Mockito.verify(transaction).close();
+            Assert.assertTrue("Flushed vertex created in transaction must be transient after rollback", vertex.isTransient());
+            Assert.assertEquals("Failed to keep vertex state", "l1", vertex.label());
+        }
+    }
+
+    @Test
+    public void givenOpenRecordsShouldDiscardResultOnCommit() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.hasNext()).thenAnswer(invocation -> true);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Iterator<?> records = session.records(new Statement("MATCH (n) RETURN n")).iterator();
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(statementResult).consume();
+            Mockito.verify(statementResult, Mockito.never()).next();
+            Assert.assertFalse("Failed to discard records on commit", records.hasNext());
+        }
+    }
+}
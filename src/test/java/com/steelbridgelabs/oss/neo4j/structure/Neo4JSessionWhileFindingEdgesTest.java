@@ -0,0 +1,201 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Entity;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Relationship;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JSessionWhileFindingEdgesTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private org.apache.tinkerpop.gremlin.structure.Transaction graphTransaction;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private StatementResult vertexStatementResult;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Record vertexRecord1;
+
+    @Mock
+    private Record vertexRecord2;
+
+    @Mock
+    private Value relationshipValue;
+
+    @Mock
+    private Value nodeValue1;
+
+    @Mock
+    private Value nodeValue2;
+
+    @Mock
+    private Node node1;
+
+    @Mock
+    private Node node2;
+
+    @Mock
+    private Relationship relationship;
+
+    private void arrange() {
+        mockNode(node1, 1L);
+        mockNode(node2, 2L);
+        mockRelationship(relationship, 10L);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> graphTransaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.containsVertex(Mockito.anySet())).thenAnswer(invocation -> true);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.processIdentifier(Mockito.any(Entity.class), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenReturn(statementResult, vertexStatementResult);
+        Mockito.when(statementResult.hasNext()).thenReturn(true, true, false);
+        Mockito.when(statementResult.next()).thenReturn(record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(vertexStatementResult.hasNext()).thenReturn(true, true, false);
+        Mockito.when(vertexStatementResult.next()).thenReturn(vertexRecord1, vertexRecord2);
+        Mockito.when(vertexStatementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> relationshipValue);
+        Mockito.when(record.get(1)).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(record.get(2)).thenAnswer(invocation -> Values.value(2L));
+        Mockito.when(relationshipValue.asRelationship()).thenAnswer(invocation -> relationship);
+        Mockito.when(vertexRecord1.get(0)).thenAnswer(invocation -> nodeValue1);
+        Mockito.when(vertexRecord2.get(0)).thenAnswer(invocation -> nodeValue2);
+        Mockito.when(nodeValue1.asNode()).thenAnswer(invocation -> node1);
+        Mockito.when(nodeValue2.asNode()).thenAnswer(invocation -> node2);
+    }
+
+    @Test
+    public void givenIdentifiersShouldStreamEdges() {
+        // arrange
+        arrange();
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            // act
+            Iterator<Edge> iterator = session.edges(new Object[]{10L});
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Assert.assertEquals("Invalid statement", "MATCH (n)-[r]->(m) WHERE r.id in {ids} RETURN r, n.id, m.id", argument.getValue().text());
+            Mockito.verify(statementResult, Mockito.never()).next();
+            Assert.assertTrue("Iterator must be a result iterator", iterator instanceof Neo4JResultIterator);
+            Edge edge = iterator.next();
+            Assert.assertFalse("Invalid number of edges", iterator.hasNext());
+            Assert.assertEquals("Invalid out vertex", 1L, edge.outVertex().id());
+            Assert.assertEquals("Invalid in vertex", 2L, edge.inVertex().id());
+        }
+    }
+
+    @Test
+    public void givenEndpointsNotInMemoryShouldLoadThemWithSingleStatement() {
+        // arrange
+        arrange();
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Iterator<Edge> iterator = session.edges(new Object[]{10L});
+            // act
+            iterator.next();
+            // assert
+            Mockito.verify(transaction, Mockito.times(2)).run(argument.capture());
+            Assert.assertEquals("Invalid statement", "MATCH (n) WHERE n.id in {ids} RETURN n", argument.getValue().text());
+            Assert.assertEquals("Invalid endpoint identifiers", 2, argument.getValue().parameters().get("ids").size());
+        }
+    }
+
+    @Test
+    public void givenIdentifiersAndLimitShouldLimitRecordsInServer() {
+        // arrange
+        arrange();
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            // act
+            session.edges(new Object[]{10L, 11L}, 1);
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Assert.assertEquals("Invalid statement", "MATCH (n)-[r]->(m) WHERE r.id in {ids} RETURN r, n.id, m.id LIMIT {limit}", argument.getValue().text());
+            Assert.assertEquals("Invalid limit", 1L, argument.getValue().parameters().get("limit").asLong());
+        }
+    }
+
+    private static void mockNode(Node node, long id) {
+        Mockito.when(node.id()).thenAnswer(invocation -> id);
+        Mockito.when(node.get("id")).thenAnswer(invocation -> Values.value(id));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+    }
+
+    private static void mockRelationship(Relationship relationship, long id) {
+        Mockito.when(relationship.get("id")).thenAnswer(invocation -> Values.value(id));
+        Mockito.when(relationship.type()).thenAnswer(invocation -> "knows");
+        Mockito.when(relationship.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(relationship.startNodeId()).thenAnswer(invocation -> 1L);
+        Mockito.when(relationship.endNodeId()).thenAnswer(invocation -> 2L);
+    }
+}
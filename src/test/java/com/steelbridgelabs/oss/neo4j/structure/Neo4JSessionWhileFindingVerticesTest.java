@@ -0,0 +1,252 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Entity;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JSessionWhileFindingVerticesTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private StatementResult nextStatementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record1;
+
+    @Mock
+    private Record record2;
+
+    @Mock
+    private Record record3;
+
+    @Test
+    public void givenLimitShouldSendLimitToServer() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            // act
+            session.vertices(new Object[0], 1);
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Assert.assertEquals("Invalid MATCH statement", "MATCH (n) RETURN n LIMIT {limit}", argument.getValue().text());
+            Assert.assertEquals("Invalid limit", 1L, argument.getValue().parameters().get("limit").asLong());
+        }
+    }
+
+    @Test
+    public void givenTransientVerticesWithinLimitShouldNotExecuteStatement() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.generateId()).thenReturn(1L, 2L);
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            session.addVertex(T.label, "l1");
+            session.addVertex(T.label, "l1");
+            // act
+            Iterator<Vertex> iterator = session.vertices(new Object[0], 1);
+            // assert
+            Assert.assertTrue("Failed to find vertex", iterator.hasNext());
+            iterator.next();
+            Assert.assertFalse("Invalid number of vertices", iterator.hasNext());
+            Mockito.verify(transaction, Mockito.never()).run(Mockito.any(Statement.class));
+        }
+    }
+
+    @Test
+    public void givenOpenIteratorShouldDiscardRecordsOnCommit() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.hasNext()).thenReturn(true);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Iterator<Vertex> iterator = session.vertices(new Object[0]);
+            // act
+            session.commit();
+            // assert
+            Mockito.verify(statementResult, Mockito.times(1)).consume();
+            Assert.assertFalse("Closed iterator should not return vertices", iterator.hasNext());
+            Mockito.verify(statementResult, Mockito.never()).next();
+        }
+    }
+
+    @Test
+    public void givenScanPageSizeShouldScanVerticesInPages() {
+        // arrange
+        mockRecord(record1, 1L);
+        mockRecord(record2, 2L);
+        mockRecord(record3, 3L);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getScanPageSize()).thenAnswer(invocation -> 2);
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.containsVertex(Mockito.anySet())).thenAnswer(invocation -> true);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any(Entity.class), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenReturn(statementResult, nextStatementResult);
+        Mockito.when(statementResult.hasNext()).thenReturn(true, true, false);
+        Mockito.when(statementResult.next()).thenReturn(record1, record2);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(nextStatementResult.hasNext()).thenReturn(true, false);
+        Mockito.when(nextStatementResult.next()).thenReturn(record3);
+        Mockito.when(nextStatementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            // act
+            Iterator<Vertex> iterator = session.vertices(new Object[0]);
+            // assert
+            Assert.assertEquals("Invalid vertex", 1L, iterator.next().id());
+            Assert.assertEquals("Invalid vertex", 2L, iterator.next().id());
+            Assert.assertEquals("Invalid vertex", 3L, iterator.next().id());
+            Assert.assertFalse("Invalid number of vertices", iterator.hasNext());
+            Mockito.verify(transaction, Mockito.times(2)).run(argument.capture());
+            List<Statement> statements = argument.getAllValues();
+            Assert.assertEquals("Invalid first page statement", "MATCH (n) RETURN n ORDER BY n.id LIMIT {page}", statements.get(0).text());
+            Assert.assertEquals("Invalid next page statement", "MATCH (n) WHERE n.id > {last} RETURN n ORDER BY n.id LIMIT {page}", statements.get(1).text());
+            Assert.assertEquals("Invalid last key", 2L, statements.get(1).parameters().get("last").asLong());
+            Assert.assertEquals("Invalid page size", 2L, statements.get(1).parameters().get("page").asLong());
+        }
+    }
+
+    @Test
+    public void givenScannedVertexShouldReturnSameInstanceWhenLoadedAgain() {
+        // arrange
+        mockRecord(record1, 1L);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.getScanPageSize()).thenAnswer(invocation -> 2);
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.containsVertex(Mockito.anySet())).thenAnswer(invocation -> true);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.processIdentifier(Mockito.any(Entity.class), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenReturn(statementResult, nextStatementResult);
+        Mockito.when(statementResult.hasNext()).thenReturn(true, false);
+        Mockito.when(statementResult.next()).thenReturn(record1);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(nextStatementResult.hasNext()).thenReturn(true, false);
+        Mockito.when(nextStatementResult.next()).thenReturn(record1);
+        Mockito.when(nextStatementResult.consume()).thenAnswer(invocation -> resultSummary);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            Vertex scanned = session.vertices(new Object[0]).next();
+            // act
+            Iterator<Vertex> iterator = session.vertices(new Object[]{1L});
+            // assert
+            Assert.assertSame("Vertex loaded again must be the scanned instance", scanned, iterator.next());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenDetachedElementsShouldRejectModifications() {
+        // arrange
+        mockRecord(record1, 1L);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.containsVertex(Mockito.anySet())).thenAnswer(invocation -> true);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any(Entity.class), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.hasNext()).thenReturn(true, false);
+        Mockito.when(statementResult.next()).thenReturn(record1);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            session.detachElements();
+            Vertex vertex = session.scanVertices(1L, 1L).next();
+            // act
+            vertex.property(VertexProperty.Cardinality.single, "name", "John");
+        }
+    }
+
+    private static void mockRecord(Record record, long id) {
+        // node
+        Node node = Mockito.mock(Node.class);
+        Value value = Mockito.mock(Value.class);
+        Value identifier = Mockito.mock(Value.class);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> value);
+        Mockito.when(value.asNode()).thenAnswer(invocation -> node);
+        Mockito.when(node.get("id")).thenAnswer(invocation -> identifier);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(identifier.asObject()).thenAnswer(invocation -> id);
+    }
+}
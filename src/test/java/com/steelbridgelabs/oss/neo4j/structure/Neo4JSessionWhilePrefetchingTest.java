@@ -0,0 +1,139 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Entity;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JSessionWhilePrefetchingTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private Node node;
+
+    @Mock
+    private Value nodeValue;
+
+    @Mock
+    private Value identifierValue;
+
+    @Mock
+    private Value relationshipValue;
+
+    @Test
+    public void givenDepthShouldLoadNeighborhoodWithSingleStatement() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        ArgumentCaptor<Statement> argument = ArgumentCaptor.forClass(Statement.class);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            // act
+            session.prefetch(new Object[]{1L}, 2, Collections.singleton("knows"));
+            // assert
+            Mockito.verify(transaction, Mockito.times(1)).run(argument.capture());
+            Assert.assertEquals("Invalid statement", "MATCH (s) WHERE s.id IN {ids} OPTIONAL MATCH p = (s)-[:`knows`*1..2]-() UNWIND coalesce(relationships(p), [null]) AS r WITH DISTINCT s, r RETURN coalesce(startNode(r), s) AS n, r, endNode(r) AS m", argument.getValue().text());
+        }
+    }
+
+    @Test
+    public void givenSeedWithoutRelationshipsShouldMarkEdgesAsLoaded() {
+        // arrange
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(partition.vertexMatchPatternLabels()).thenAnswer(invocation -> Collections.emptySet());
+        Mockito.when(partition.containsVertex(Mockito.anySet())).thenAnswer(invocation -> true);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[0]);
+        Mockito.when(provider.processIdentifier(Mockito.any(Entity.class), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.beginTransaction()).thenAnswer(invocation -> transaction);
+        Mockito.when(transaction.run(Mockito.any(Statement.class))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.hasNext()).thenReturn(true, false);
+        Mockito.when(statementResult.next()).thenReturn(record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> nodeValue);
+        Mockito.when(record.get(1)).thenAnswer(invocation -> relationshipValue);
+        Mockito.when(relationshipValue.isNull()).thenAnswer(invocation -> true);
+        Mockito.when(nodeValue.asNode()).thenAnswer(invocation -> node);
+        Mockito.when(node.get("id")).thenAnswer(invocation -> identifierValue);
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(identifierValue.asObject()).thenAnswer(invocation -> 1L);
+        try (Neo4JSession session = new Neo4JSession(graph, this.session, provider, provider)) {
+            session.beginTransaction();
+            // act
+            session.prefetch(new Object[]{1L}, 1, Collections.emptySet());
+            // assert
+            Iterator<Vertex> iterator = session.vertices(new Object[]{1L});
+            Assert.assertTrue("Failed to find vertex", iterator.hasNext());
+            Assert.assertTrue("Edges should be loaded", ((Neo4JVertex)iterator.next()).hasEdgesLoaded(Direction.BOTH, Collections.emptySet()));
+            Mockito.verify(transaction, Mockito.times(1)).run(Mockito.any(Statement.class));
+        }
+    }
+}
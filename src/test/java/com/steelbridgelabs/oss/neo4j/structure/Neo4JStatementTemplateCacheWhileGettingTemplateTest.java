@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import com.steelbridgelabs.oss.neo4j.structure.partitions.AnyLabelReadPartition;
+import com.steelbridgelabs.oss.neo4j.structure.partitions.NoReadPartition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JStatementTemplateCacheWhileGettingTemplateTest {
+
+    @Test
+    public void givenSameKeyShouldGenerateTemplateOnce() {
+        // arrange
+        Neo4JStatementTemplateCache cache = new Neo4JStatementTemplateCache();
+        AtomicInteger counter = new AtomicInteger(0);
+        Set<String> labels = new TreeSet<>();
+        labels.add("l1");
+        // act
+        String first = cache.template(() -> "text" + counter.incrementAndGet(), "kind", labels);
+        String second = cache.template(() -> "text" + counter.incrementAndGet(), "kind", new TreeSet<>(labels));
+        // assert
+        Assert.assertEquals("Failed to reuse template", first, second);
+        Assert.assertEquals("Template generated more than once", 1, counter.get());
+    }
+
+    @Test
+    public void givenLabelsKeyShouldNotDependOnLaterModifications() {
+        // arrange
+        Neo4JStatementTemplateCache cache = new Neo4JStatementTemplateCache();
+        Set<String> labels = new TreeSet<>();
+        labels.add("l1");
+        cache.template(() -> "l1", "kind", Neo4JStatementTemplateCache.labels(labels));
+        labels.add("l2");
+        // act
+        String template = cache.template(() -> "l1:l2", "kind", Neo4JStatementTemplateCache.labels(labels));
+        // assert
+        Assert.assertEquals("Invalid template", "l1:l2", template);
+        Assert.assertEquals("Invalid number of templates", 2, cache.size());
+    }
+
+    @Test
+    public void givenFullCacheShouldEvictTemplate() {
+        // arrange
+        Neo4JStatementTemplateCache cache = new Neo4JStatementTemplateCache(2);
+        cache.template(() -> "first", "kind", 1);
+        cache.template(() -> "second", "kind", 2);
+        // act
+        String template = cache.template(() -> "third", "kind", 3);
+        // assert
+        Assert.assertEquals("Invalid template", "third", template);
+        Assert.assertEquals("Invalid number of templates", 2, cache.size());
+        Assert.assertEquals("Stored template was evicted", "third", cache.template(() -> "other", "kind", 3));
+    }
+
+    @Test
+    public void givenEquivalentPartitionsShouldReuseTemplate() {
+        // arrange
+        Neo4JStatementTemplateCache cache = new Neo4JStatementTemplateCache();
+        AtomicInteger counter = new AtomicInteger(0);
+        // act
+        String first = cache.template(() -> "text" + counter.incrementAndGet(), "kind", new AnyLabelReadPartition("l1", "l2"));
+        String second = cache.template(() -> "text" + counter.incrementAndGet(), "kind", new AnyLabelReadPartition("l1", "l2"));
+        String third = cache.template(() -> "text" + counter.incrementAndGet(), "kind", new NoReadPartition());
+        // assert
+        Assert.assertEquals("Failed to reuse template", first, second);
+        Assert.assertEquals("Invalid template", "text2", third);
+        Assert.assertEquals("Invalid number of templates", 2, cache.size());
+    }
+}
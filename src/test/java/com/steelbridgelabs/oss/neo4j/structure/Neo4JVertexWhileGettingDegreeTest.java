@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JVertexWhileGettingDegreeTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JSession session;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Node node;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Graph.Features.VertexFeatures vertexFeatures;
+
+    @Mock
+    private Graph.Features features;
+
+    @Mock
+    private Neo4JEdge edge;
+
+    @Mock
+    private Neo4JEdge deletedEdge;
+
+    @Mock
+    private Neo4JVertex adjacentVertex;
+
+    @Mock
+    private Neo4JVertex deletedVertex;
+
+    @Mock
+    private StatementResult statementResult;
+
+    @Mock
+    private Record record;
+
+    @Mock
+    private ResultSummary resultSummary;
+
+    private void arrange() {
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+    }
+
+    @Test
+    public void givenEdgesNotLoadedShouldGetDegreeFromDatabase() {
+        // arrange
+        arrange();
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}}) RETURN size((n)-[:`knows`]->())", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.hasNext()).thenAnswer(invocation -> true);
+        Mockito.when(statementResult.next()).thenAnswer(invocation -> record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> Values.value(5L));
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
+        // act
+        long degree = vertex.degree(Direction.OUT, "knows");
+        // assert
+        Assert.assertEquals("Invalid degree", 5L, degree);
+        Mockito.verify(session, Mockito.never()).edges(Mockito.any(Neo4JVertex.class), Mockito.any(StatementResult.class));
+    }
+
+    @Test
+    public void givenEdgesLoadedShouldCountEdgesInMemory() {
+        // arrange
+        arrange();
+        Mockito.when(edge.label()).thenAnswer(invocation -> "knows");
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
+        vertex.addOutEdge(edge);
+        vertex.edgesLoaded(Direction.OUT, Collections.singleton("knows"));
+        // act
+        long degree = vertex.degree(Direction.OUT, "knows");
+        // assert
+        Assert.assertEquals("Invalid degree", 1L, degree);
+        Mockito.verify(session, Mockito.never()).executeStatement(Mockito.any(Statement.class));
+    }
+
+    @Test
+    public void givenPendingChangesShouldAdjustDatabaseDegreeInMemory() {
+        // arrange
+        arrange();
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", 1L);
+        parameters.put("deleted", Collections.singleton(3L));
+        Mockito.when(graph.hasPendingChanges()).thenAnswer(invocation -> true);
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`knows`]->(m) WHERE NOT m.id IN {deleted} RETURN count(r)", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(statementResult.hasNext()).thenAnswer(invocation -> true);
+        Mockito.when(statementResult.next()).thenAnswer(invocation -> record);
+        Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
+        Mockito.when(record.get(0)).thenAnswer(invocation -> Values.value(7L));
+        Mockito.when(adjacentVertex.id()).thenAnswer(invocation -> 2L);
+        Mockito.when(deletedVertex.id()).thenAnswer(invocation -> 3L);
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
+        Mockito.when(edge.label()).thenAnswer(invocation -> "knows");
+        Mockito.when(edge.isTransient()).thenAnswer(invocation -> true);
+        Mockito.when(edge.out()).thenAnswer(invocation -> vertex);
+        Mockito.when(edge.in()).thenAnswer(invocation -> adjacentVertex);
+        Mockito.when(deletedEdge.label()).thenAnswer(invocation -> "knows");
+        Mockito.when(deletedEdge.out()).thenAnswer(invocation -> vertex);
+        Mockito.when(deletedEdge.in()).thenAnswer(invocation -> adjacentVertex);
+        Mockito.when(session.pendingVertexDeletes()).thenAnswer(invocation -> Collections.singleton(3L));
+        Mockito.when(session.pendingEdgeDeletes()).thenAnswer(invocation -> Collections.singletonList(deletedEdge));
+        vertex.addOutEdge(edge);
+        // act
+        long degree = vertex.degree(Direction.OUT, "knows");
+        // assert
+        Assert.assertEquals("Invalid degree", 7L, degree);
+        Mockito.verify(session, Mockito.never()).edges(Mockito.any(Neo4JVertex.class), Mockito.any(StatementResult.class));
+    }
+}
@@ -26,7 +26,6 @@ import org.apache.tinkerpop.gremlin.structure.VertexProperty;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -104,10 +103,9 @@ public class Neo4JVertexWhileGettingInEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r]-(m) RETURN n, r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r]-(m) RETURN r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         // act
@@ -136,14 +134,13 @@ public class Neo4JVertexWhileGettingInEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
         Mockito.when(edge2.label()).thenAnswer(invocation -> "EL2");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addInEdge(edge2);
@@ -175,14 +172,13 @@ public class Neo4JVertexWhileGettingInEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
         Mockito.when(edge2.label()).thenAnswer(invocation -> "EL");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r:`EL`]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r:`EL`]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addInEdge(edge2);
@@ -214,14 +210,13 @@ public class Neo4JVertexWhileGettingInEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
         Mockito.when(edge2.label()).thenAnswer(invocation -> "EL2");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r:`EL2`|:`EL1`]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r:`EL2`|:`EL1`]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addInEdge(edge2);
@@ -252,14 +247,13 @@ public class Neo4JVertexWhileGettingInEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
         Mockito.when(edge2.label()).thenAnswer(invocation -> "EL2");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r:`EL1`]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r:`EL1`]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addInEdge(edge2);
@@ -290,14 +284,13 @@ public class Neo4JVertexWhileGettingInEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
         Mockito.when(edge2.label()).thenAnswer(invocation -> "EL2");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r:`EL2`]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Stream.empty());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})<-[r:`EL2`]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Stream.empty());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addInEdge(edge2);
@@ -326,10 +319,9 @@ public class Neo4JVertexWhileGettingInEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`P1`:`P2`:`l1`{id: {id}})<-[r]-(m:`P1`:`P2`) RETURN n, r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`P1`:`P2`:`l1`{id: {id}})<-[r]-(m:`P1`:`P2`) RETURN r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         // act
@@ -357,10 +349,9 @@ public class Neo4JVertexWhileGettingInEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`P1`:`l1`{id: {id}})<-[r]-(m) WHERE (m:`P1` OR m:`P2`) RETURN n, r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`P1`:`l1`{id: {id}})<-[r]-(m) WHERE (m:`P1` OR m:`P2`) RETURN r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Collections.singleton(edge1).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         // act
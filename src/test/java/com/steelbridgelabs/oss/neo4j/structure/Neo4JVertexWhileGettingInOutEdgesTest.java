@@ -26,7 +26,6 @@ import org.apache.tinkerpop.gremlin.structure.VertexProperty;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -110,10 +109,9 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r]-(m) RETURN n, r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r]-(m) RETURN r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         // act
@@ -144,8 +142,7 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
@@ -154,8 +151,8 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(edge3.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge4.id()).thenAnswer(invocation -> 400L);
         Mockito.when(edge4.label()).thenAnswer(invocation -> "EL2");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addOutEdge(edge2);
@@ -192,8 +189,7 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
@@ -202,8 +198,8 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(edge3.label()).thenAnswer(invocation -> "EL");
         Mockito.when(edge4.id()).thenAnswer(invocation -> 400L);
         Mockito.when(edge4.label()).thenAnswer(invocation -> "EL");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`EL`]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`EL`]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addOutEdge(edge2);
@@ -240,8 +236,7 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
@@ -250,8 +245,8 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(edge3.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge4.id()).thenAnswer(invocation -> 400L);
         Mockito.when(edge4.label()).thenAnswer(invocation -> "EL2");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`EL2`|:`EL1`]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`EL2`|:`EL1`]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addOutEdge(edge2);
@@ -284,8 +279,7 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
@@ -294,8 +288,8 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(edge3.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge4.id()).thenAnswer(invocation -> 400L);
         Mockito.when(edge4.label()).thenAnswer(invocation -> "EL2");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`EL1`]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`EL1`]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addOutEdge(edge2);
@@ -329,8 +323,7 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
         Mockito.when(edge1.id()).thenAnswer(invocation -> 100L);
         Mockito.when(edge1.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge2.id()).thenAnswer(invocation -> 200L);
@@ -339,8 +332,8 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(edge3.label()).thenAnswer(invocation -> "EL1");
         Mockito.when(edge4.id()).thenAnswer(invocation -> 400L);
         Mockito.when(edge4.label()).thenAnswer(invocation -> "EL2");
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`EL2`]-(m) WHERE NOT r.id IN {ids} RETURN n, r, m", parameters)))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Stream.empty());
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`l1`{id: {id}})-[r:`EL2`]-(m) WHERE NOT r.id IN {ids} RETURN r, m", parameters)))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Stream.empty());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         vertex.addOutEdge(edge2);
@@ -372,10 +365,9 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`P1`:`P2`:`l1`{id: {id}})-[r]-(m:`P1`:`P2`) RETURN n, r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`P1`:`P2`:`l1`{id: {id}})-[r]-(m:`P1`:`P2`) RETURN r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         // act
@@ -405,10 +397,9 @@ public class Neo4JVertexWhileGettingInOutEdgesTest {
         Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
         Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
         Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
-        ArgumentCaptor<Long> argument = ArgumentCaptor.forClass(Long.class);
-        Mockito.when(provider.processIdentifier(argument.capture())).thenAnswer(invocation -> argument.getValue());
-        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`P1`:`l1`{id: {id}})-[r]-(m) WHERE (m:`P1` OR m:`P2`) RETURN n, r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
-        Mockito.when(session.edges(Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.executeStatement(Mockito.eq(new Statement("MATCH (n:`P1`:`l1`{id: {id}})-[r]-(m) WHERE (m:`P1` OR m:`P2`) RETURN r, m", Collections.singletonMap("id", 1L))))).thenAnswer(invocation -> statementResult);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.eq(statementResult))).thenAnswer(invocation -> Arrays.asList(edge1, edge3).stream());
         Mockito.when(statementResult.consume()).thenAnswer(invocation -> resultSummary);
         Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
         // act
@@ -0,0 +1,139 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Neo4JVertexWhileGettingPagedEdgesTest {
+
+    @Mock
+    private Neo4JGraph graph;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Neo4JSession session;
+
+    @Mock
+    private Neo4JReadPartition partition;
+
+    @Mock
+    private Node node;
+
+    @Mock
+    private Neo4JElementIdProvider provider;
+
+    @Mock
+    private Graph.Features.VertexFeatures vertexFeatures;
+
+    @Mock
+    private Graph.Features features;
+
+    @Mock
+    private Iterator<Edge> edges;
+
+    private void arrange() {
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(partition.validateLabel(Mockito.anyString())).thenAnswer(invocation -> true);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(graph.getSupernodeDegreeThreshold()).thenAnswer(invocation -> 100);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.emptyList());
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Mockito.when(provider.processIdentifier(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        Mockito.when(session.edges(Mockito.any(Neo4JVertex.class), Mockito.any(), Mockito.any(), Mockito.anyInt(), Mockito.any())).thenAnswer(invocation -> edges);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenThresholdShouldIterateEdgesInPagesWithoutProbingDegree() {
+        // arrange
+        arrange();
+        ArgumentCaptor<Function> argument = ArgumentCaptor.forClass(Function.class);
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
+        // act
+        Iterator<Edge> result = vertex.edges(Direction.OUT, "knows");
+        // assert
+        Assert.assertSame("Invalid iterator", edges, result);
+        Mockito.verify(session, Mockito.never()).executeStatement(Mockito.any(Statement.class));
+        Mockito.verify(session, Mockito.times(1)).edges(Mockito.eq(vertex), Mockito.any(), argument.capture(), Mockito.eq(101), Mockito.any());
+        Statement first = (Statement)argument.getValue().apply(null);
+        Statement next = (Statement)argument.getValue().apply(10L);
+        Assert.assertEquals("Invalid first page statement", "MATCH (n:`l1`{id: {id}})-[r:`knows`]->(m) RETURN r, m ORDER BY r.id LIMIT {page}", first.text());
+        Assert.assertEquals("Invalid page size", 101L, first.parameters().get("page").asLong());
+        Assert.assertEquals("Invalid page statement", "MATCH (n:`l1`{id: {id}})-[r:`knows`]->(m) WHERE r.id > {last} RETURN r, m ORDER BY r.id LIMIT {page}", next.text());
+        Assert.assertEquals("Invalid last parameter", 10L, next.parameters().get("last").asLong());
+        Assert.assertFalse("Edges must not be cached in vertex", vertex.hasEdgesLoaded(Direction.OUT, Collections.singleton("knows")));
+    }
+
+    @Test
+    public void givenEdgesInFirstPageShouldCacheEdges() {
+        // arrange
+        arrange();
+        ArgumentCaptor<Runnable> argument = ArgumentCaptor.forClass(Runnable.class);
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
+        vertex.edges(Direction.OUT, "knows");
+        Mockito.verify(session, Mockito.times(1)).edges(Mockito.eq(vertex), Mockito.any(), Mockito.any(), Mockito.anyInt(), argument.capture());
+        // act
+        argument.getValue().run();
+        // assert
+        Assert.assertTrue("Edges must be cached in vertex", vertex.hasEdgesLoaded(Direction.OUT, Collections.singleton("knows")));
+    }
+
+    @Test
+    public void givenEdgesLoadedShouldNotQueryDatabase() {
+        // arrange
+        arrange();
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
+        vertex.edgesLoaded(Direction.OUT, Collections.singleton("knows"));
+        // act
+        Iterator<Edge> result = vertex.edges(Direction.OUT, "knows");
+        // assert
+        Assert.assertFalse("Invalid number of edges", result.hasNext());
+        Mockito.verify(session, Mockito.never()).edges(Mockito.any(Neo4JVertex.class), Mockito.any(), Mockito.any(), Mockito.anyInt(), Mockito.any());
+        Mockito.verify(session, Mockito.never()).executeStatement(Mockito.any(Statement.class));
+    }
+}
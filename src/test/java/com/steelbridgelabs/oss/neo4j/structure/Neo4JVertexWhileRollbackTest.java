@@ -108,4 +108,30 @@ public class Neo4JVertexWhileRollbackTest {
         // assert
         Assert.assertFalse("Failed to rollback vertex state", vertex.isDirty());
     }
+
+    @Test
+    public void givenFlushedPropertyShouldRollbackToOriginalValue() {
+        // arrange
+        Mockito.when(vertexFeatures.getCardinality(Mockito.anyString())).thenAnswer(invocation -> VertexProperty.Cardinality.single);
+        Mockito.when(features.vertex()).thenAnswer(invocation -> vertexFeatures);
+        Mockito.when(graph.tx()).thenAnswer(invocation -> transaction);
+        Mockito.when(graph.getPartition()).thenAnswer(invocation -> partition);
+        Mockito.when(graph.features()).thenAnswer(invocation -> features);
+        Mockito.when(node.get(Mockito.eq("id"))).thenAnswer(invocation -> Values.value(1L));
+        Mockito.when(node.labels()).thenAnswer(invocation -> Collections.singletonList("l1"));
+        Mockito.when(node.keys()).thenAnswer(invocation -> Collections.singleton("key1"));
+        Mockito.when(node.get(Mockito.eq("key1"))).thenAnswer(invocation -> Values.value("value1"));
+        Mockito.when(provider.generateId()).thenAnswer(invocation -> 2L);
+        Mockito.when(provider.idFieldName()).thenAnswer(invocation -> "id");
+        Neo4JVertex vertex = new Neo4JVertex(graph, session, provider, node);
+        vertex.property("key1", "value2");
+        vertex.flush();
+        // act
+        vertex.rollback();
+        // assert
+        Assert.assertNotNull(vertex.property("key1"));
+        Property<String> property = vertex.property("key1");
+        Assert.assertEquals("Failed to rollback flushed property value", "value1", property.value());
+        Assert.assertFalse("Failed to rollback vertex state", vertex.isDirty());
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2016 SteelBridge Laboratories, LLC.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  For more information: http://steelbridgelabs.com
+ */
+
+package com.steelbridgelabs.oss.neo4j.structure;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * @author Rogelio J. Baucells
+ */
+public class Neo4JWeakElementMapWhileGettingElementTest {
+
+    @Test
+    public void givenReferencedElementShouldReturnSameInstance() {
+        // arrange
+        Neo4JWeakElementMap<Object> map = new Neo4JWeakElementMap<>();
+        Object element = new Object();
+        map.put(1L, element);
+        // act
+        Object result = map.get(1L);
+        // assert
+        Assert.assertSame("Failed to get element instance", element, result);
+        Assert.assertEquals("Invalid elements", Collections.singletonList(element), map.elements());
+    }
+
+    @Test
+    public void givenRemovedElementShouldReturnNull() {
+        // arrange
+        Neo4JWeakElementMap<Object> map = new Neo4JWeakElementMap<>();
+        Object element = new Object();
+        map.put(1L, element);
+        // act
+        map.remove(1L);
+        // assert
+        Assert.assertNull("Failed to remove element", map.get(1L));
+        Assert.assertTrue("Invalid elements", map.elements().isEmpty());
+    }
+
+    @Test
+    public void givenUnreferencedElementShouldRemoveEntry() throws InterruptedException {
+        // arrange
+        Neo4JWeakElementMap<Object> map = new Neo4JWeakElementMap<>();
+        map.put(1L, new Object());
+        // act
+        for (int attempt = 0; attempt < 50 && map.get(1L) != null; attempt++) {
+            // request collection
+            System.gc();
+            Thread.sleep(10);
+        }
+        map.get(1L);
+        // assert
+        Assert.assertEquals("Failed to remove entry of collected element", 0, map.size());
+    }
+}